@@ -1,5 +1,7 @@
 package com.legacykeep.chat.config;
 
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import org.springframework.beans.factory.annotation.Value;
@@ -35,6 +37,12 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     @Value("${spring.data.mongodb.auto-index-creation:true}")
     private boolean autoIndexCreation;
 
+    @Value("${chat.mongo.max-pool-size:20}")
+    private int maxPoolSize;
+
+    @Value("${chat.virtual-threads.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
     /**
      * Configure MongoDB client with optimized settings
      */
@@ -42,7 +50,11 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     @Bean
     @NonNull
     public MongoClient mongoClient() {
-        return MongoClients.create(mongoUri);
+        // Apply the URI first so the pool and socket settings below take effect
+        MongoClientSettings.Builder builder = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(mongoUri));
+        configureClientSettings(builder);
+        return MongoClients.create(builder.build());
     }
 
     /**
@@ -94,11 +106,15 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     protected void configureClientSettings(@NonNull com.mongodb.MongoClientSettings.Builder builder) {
         // Connection pool settings
         builder.applyToConnectionPoolSettings(pool -> {
-            pool.maxSize(20)                    // Maximum connections
+            pool.maxSize(maxPoolSize)           // Maximum connections
                 .minSize(5)                     // Minimum connections
                 .maxWaitTime(30000, java.util.concurrent.TimeUnit.MILLISECONDS)  // Max wait time
                 .maxConnectionIdleTime(600000, java.util.concurrent.TimeUnit.MILLISECONDS)  // Max idle time
                 .maxConnectionLifeTime(1800000, java.util.concurrent.TimeUnit.MILLISECONDS); // Max connection lifetime
+            if (virtualThreadsEnabled) {
+                // Unbounded virtual threads queue on a semaphore sized to the pool
+                pool.addConnectionPoolListener(new MongoConnectionLimiter(maxPoolSize, 30000));
+            }
         });
 
         // Socket settings
@@ -0,0 +1,83 @@
+package com.legacykeep.chat.config;
+
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool listener that queues MongoDB checkouts on a fair semaphore.
+ * The sync driver raises check-out events on the calling thread, so waiting
+ * here keeps a burst of callers out of the pool until a permit frees up.
+ * A caller that cannot get a permit within the wait time falls through to
+ * the pool, whose own wait time still applies.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+public class MongoConnectionLimiter implements ConnectionPoolListener {
+
+    // Set between check-out started and checked-out/failed, which run on the same thread
+    private static final ThreadLocal<Boolean> HOLDING = new ThreadLocal<>();
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final Set<ConnectionId> permittedConnections = ConcurrentHashMap.newKeySet();
+
+    public MongoConnectionLimiter(int maxConcurrent, long acquireTimeoutMs) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    /**
+     * Get the number of checkouts that can proceed without waiting
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        try {
+            if (permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                HOLDING.set(Boolean.TRUE);
+            } else {
+                log.debug("No MongoDB connection permit after {}ms, deferring to the pool", acquireTimeoutMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        if (HOLDING.get() != null) {
+            HOLDING.remove();
+            permittedConnections.add(event.getConnectionId());
+        }
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        if (HOLDING.get() != null) {
+            HOLDING.remove();
+            permits.release();
+        }
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        if (permittedConnections.remove(event.getConnectionId())) {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.legacykeep.chat.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling Configuration
+ * 
+ * Enables scheduled background tasks such as write-behind flushes
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,63 @@
+package com.legacykeep.chat.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual-thread execution for servlet requests (opt-in).
+ * Each request runs on its own virtual thread, so blocking JDBC and Mongo
+ * calls no longer tie up a Tomcat worker. The JDBC pool is guarded by a
+ * semaphore sized to Hikari's maximum pool size; MongoConfig guards the Mongo
+ * pool the same way and WebSocketConfig moves the STOMP inbound channel
+ * onto virtual threads. Requires a Java 21 runtime; older runtimes keep
+ * platform threads.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "chat.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * Run each Tomcat request on a new virtual thread
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        ThreadFactory threadFactory = VirtualThreads.factory("http-virtual-").orElse(null);
+        if (threadFactory == null) {
+            log.warn("Virtual threads requested but not supported by this runtime, keeping platform request threads");
+            return protocolHandler -> { };
+        }
+        log.info("Servlet requests will run on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(task -> threadFactory.newThread(task).start());
+    }
+
+    /**
+     * Wrap the JDBC DataSource so callers queue on a semaphore instead of the pool
+     */
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    log.info("Bounding JDBC access to {} concurrent connections", hikari.getMaximumPoolSize());
+                    return new BoundedDataSource(hikari, hikari.getMaximumPoolSize(), hikari.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
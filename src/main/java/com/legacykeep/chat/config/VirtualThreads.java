@@ -0,0 +1,32 @@
+package com.legacykeep.chat.config;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads without requiring a Java 21 compiler.
+ * The service still builds for Java 17; on an older runtime the
+ * factory is empty and callers keep their platform threads.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Create a factory for virtual threads named prefix + counter, empty if the runtime has none
+     */
+    static Optional<ThreadFactory> factory(String namePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return Optional.of((ThreadFactory) builderType.getMethod("factory").invoke(builder));
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -1,10 +1,23 @@
 package com.legacykeep.chat.config;
 
+import com.legacykeep.chat.service.impl.LocalMessageDelivery;
+import com.legacykeep.chat.service.impl.OutboundFlowControl;
+import com.legacykeep.chat.service.impl.PresenceTracker;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * WebSocket configuration for real-time messaging.
@@ -16,10 +29,48 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final PresenceTracker presenceTracker;
+    private final OutboundFlowControl outboundFlowControl;
+    private final long heartbeatMs;
+    // Kept out of the context so it does not replace the @Scheduled task scheduler
+    private final ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+
+    @Value("${chat.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${chat.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${chat.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${chat.websocket.outbound.pool-size:8}")
+    private int outboundPoolSize;
+
+    @Value("${chat.virtual-threads.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${chat.virtual-threads.inbound-concurrency:256}")
+    private int inboundConcurrency;
+
+    public WebSocketConfig(PresenceTracker presenceTracker,
+                           OutboundFlowControl outboundFlowControl,
+                           @Value("${chat.websocket.heartbeat-ms:10000}") long heartbeatMs) {
+        this.presenceTracker = presenceTracker;
+        this.outboundFlowControl = outboundFlowControl;
+        this.heartbeatMs = heartbeatMs;
+        heartbeatScheduler.setPoolSize(1);
+        heartbeatScheduler.setThreadNamePrefix("websocket-heartbeat-");
+        heartbeatScheduler.setDaemon(true);
+        heartbeatScheduler.initialize();
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable simple broker for destinations prefixed with "/topic" and "/queue"
-        config.enableSimpleBroker("/topic", "/queue");
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                .setTaskScheduler(heartbeatScheduler);
         
         // Set application destination prefix
         config.setApplicationDestinationPrefixes("/app");
@@ -28,6 +79,61 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        if (virtualThreadsEnabled) {
+            // Virtual workers unmount while blocked on JDBC or Mongo, so the pool can far exceed the CPU count
+            VirtualThreads.factory("websocket-inbound-virtual-").ifPresent(threadFactory -> {
+                ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+                executor.setThreadFactory(threadFactory);
+                executor.setCorePoolSize(inboundConcurrency);
+                executor.setMaxPoolSize(inboundConcurrency);
+                executor.setAllowCoreThreadTimeOut(true);
+                registration.taskExecutor(executor);
+            });
+        }
+
+        // Every inbound frame, heartbeats included, counts as session activity
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                if (sessionId != null) {
+                    presenceTracker.touch(sessionId);
+                }
+                return message;
+            }
+        });
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Per-session queue bounds and drop policy; the pool itself stays fixed-size
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize)
+                .maxPoolSize(outboundPoolSize);
+        // Withheld events are dropped before they count against the session's queue
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                if (sessionId != null && LocalMessageDelivery.isExcluded(message, presenceTracker.getUserId(sessionId))) {
+                    return null;
+                }
+                return message;
+            }
+        }, outboundFlowControl);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Sessions that exceed the send buffer or time limit are closed instead of buffering without bound
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(outboundFlowControl);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Register STOMP endpoint for WebSocket connections
@@ -39,4 +145,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws-direct")
                 .setAllowedOriginPatterns("*");
     }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatScheduler.shutdown();
+    }
 }
@@ -1,7 +1,9 @@
 package com.legacykeep.chat.controller;
 
 import com.legacykeep.chat.dto.ApiResponse;
+import com.legacykeep.chat.entity.ReEncryptionJob;
 import com.legacykeep.chat.service.KeyManagementService;
+import com.legacykeep.chat.service.MessageReEncryptionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -19,6 +21,7 @@ import java.util.Optional;
  * - Generating encryption keys for chat rooms
  * - Managing key access for users
  * - Rotating encryption keys
+ * - Re-encrypting stored messages after a rotation
  * - Key access control
  * 
  * @author LegacyKeep Team
@@ -31,6 +34,7 @@ import java.util.Optional;
 public class KeyManagementController {
     
     private final KeyManagementService keyManagementService;
+    private final MessageReEncryptionService messageReEncryptionService;
     
     /**
      * Generate encryption key for a chat room
@@ -103,6 +107,7 @@ public class KeyManagementController {
         
         try {
             String newKey = keyManagementService.rotateChatRoomKey(chatRoomId, userId);
+            startReEncryption(chatRoomId, userId);
             return ResponseEntity.ok(ApiResponse.<String>builder()
                     .success(true)
                     .message("Encryption key rotated successfully")
@@ -279,4 +284,81 @@ public class KeyManagementController {
                             .build());
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Start re-encrypting a chat room's messages with its current key
+     */
+    @PostMapping("/chat-room/{chatRoomId}/re-encrypt")
+    public ResponseEntity<ApiResponse<ReEncryptionJob>> reEncryptChatRoom(
+            @PathVariable("chatRoomId") Long chatRoomId,
+            @RequestParam("userId") Long userId) {
+        log.info("Re-encrypting messages for chat room: {} by user: {}", chatRoomId, userId);
+        
+        try {
+            ReEncryptionJob job = messageReEncryptionService.startReEncryption(chatRoomId, userId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.<ReEncryptionJob>builder()
+                            .success(true)
+                            .message("Re-encryption started")
+                            .data(job)
+                            .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<ReEncryptionJob>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Failed to start re-encryption for chat room {}: {}", chatRoomId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<ReEncryptionJob>builder()
+                            .success(false)
+                            .message("Failed to start re-encryption: " + e.getMessage())
+                            .build());
+        }
+    }
+    
+    /**
+     * Get re-encryption progress for a chat room
+     */
+    @GetMapping("/chat-room/{chatRoomId}/re-encryption")
+    public ResponseEntity<ApiResponse<ReEncryptionJob>> getReEncryptionStatus(
+            @PathVariable("chatRoomId") Long chatRoomId) {
+        log.debug("Getting re-encryption status for chat room: {}", chatRoomId);
+        
+        try {
+            Optional<ReEncryptionJob> job = messageReEncryptionService.getJob(chatRoomId);
+            if (job.isPresent()) {
+                return ResponseEntity.ok(ApiResponse.<ReEncryptionJob>builder()
+                        .success(true)
+                        .message("Re-encryption status retrieved successfully")
+                        .data(job.get())
+                        .build());
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.<ReEncryptionJob>builder()
+                                .success(false)
+                                .message("No re-encryption job for chat room")
+                                .build());
+            }
+        } catch (Exception e) {
+            log.error("Failed to get re-encryption status for chat room {}: {}", chatRoomId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<ReEncryptionJob>builder()
+                            .success(false)
+                            .message("Failed to get re-encryption status: " + e.getMessage())
+                            .build());
+        }
+    }
+    
+    /**
+     * Kick off re-encryption after a rotation; the rotation itself already succeeded
+     */
+    private void startReEncryption(Long chatRoomId, Long userId) {
+        try {
+            messageReEncryptionService.startReEncryption(chatRoomId, userId);
+        } catch (Exception e) {
+            log.warn("Failed to start re-encryption for chat room {}: {}", chatRoomId, e.getMessage());
+        }
+    }
+}
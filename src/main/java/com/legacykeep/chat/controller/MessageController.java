@@ -9,6 +9,7 @@ import com.legacykeep.chat.dto.request.SearchMessagesRequest;
 import com.legacykeep.chat.dto.request.EditMessageWithHistoryRequest;
 import com.legacykeep.chat.dto.request.DeleteMessageRequest;
 import com.legacykeep.chat.dto.request.ScheduleMessageRequest;
+import com.legacykeep.chat.dto.response.MessageHistoryResponse;
 import com.legacykeep.chat.dto.response.MessageResponse;
 import com.legacykeep.chat.dto.response.PaginatedMessageResponse;
 import com.legacykeep.chat.dto.response.MessageStats;
@@ -23,6 +24,7 @@ import com.legacykeep.chat.enums.MessageStatus;
 import com.legacykeep.chat.enums.MessageType;
 import com.legacykeep.chat.service.MessageService;
 import com.legacykeep.chat.service.ContentFilterService;
+import com.legacykeep.chat.service.UserMessageStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -58,6 +60,7 @@ public class MessageController {
 
     private final MessageService messageService;
     private final ContentFilterService contentFilterService;
+    private final UserMessageStatsService userMessageStatsService;
 
     /**
      * Send a new message
@@ -373,6 +376,25 @@ public class MessageController {
         }
     }
 
+    /**
+     * Get unread message count in a room for a user
+     */
+    @GetMapping("/room/{chatRoomId}/unread-count")
+    public ResponseEntity<ApiResponse<Long>> getUnreadCount(
+            @PathVariable("chatRoomId") Long chatRoomId,
+            @RequestParam("userId") Long userId) {
+        log.debug("Getting unread count in chat room: {} for user: {}", chatRoomId, userId);
+        
+        try {
+            long unreadCount = messageService.getUnreadCount(chatRoomId, userId);
+            return ResponseEntity.ok(ApiResponse.success(unreadCount, "Unread count retrieved successfully"));
+        } catch (Exception e) {
+            log.error("Error getting unread count: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to retrieve unread count: " + e.getMessage(), e.getMessage(), 500));
+        }
+    }
+
     /**
      * Get messages in a chat room
      */
@@ -406,6 +428,54 @@ public class MessageController {
         }
     }
 
+    /**
+     * Get room history with keyset cursor pagination (newest first), decrypted when userId is given
+     */
+    @GetMapping("/room/{chatRoomId}/history")
+    public ResponseEntity<ApiResponse<MessageHistoryResponse>> getRoomHistory(
+            @PathVariable("chatRoomId") Long chatRoomId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(value = "userId", required = false) Long userId) {
+        log.debug("Getting history for chat room: {} with cursor: {} and limit: {}", chatRoomId, cursor, limit);
+        
+        try {
+            MessageService.MessageHistoryPage page = messageService.getRoomHistory(chatRoomId, cursor, limit);
+            List<MessageResponse> responses;
+            if (userId != null) {
+                // Decrypt the page for the requesting user with a single key lookup
+                responses = messageService.decryptPage(page.getMessages(), userId).stream()
+                        .map(view -> {
+                            MessageResponse response = MessageResponse.fromEntity(view.getMessage());
+                            response.setContent(view.getContent());
+                            return response;
+                        })
+                        .collect(Collectors.toList());
+            } else {
+                responses = page.getMessages().stream()
+                        .map(MessageResponse::fromEntity)
+                        .collect(Collectors.toList());
+            }
+            
+            MessageHistoryResponse historyResponse = MessageHistoryResponse.builder()
+                    .content(responses)
+                    .nextCursor(page.getNextCursor())
+                    .hasMore(page.isHasMore())
+                    .size(responses.size())
+                    .build();
+            
+            return ResponseEntity.ok(ApiResponse.success(historyResponse, "Room history retrieved successfully"));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid room history request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Invalid room history request: " + e.getMessage(), e.getMessage(), 400));
+        } catch (Exception e) {
+            log.error("Error getting room history: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to retrieve room history: " + e.getMessage(), e.getMessage(), 500));
+        }
+    }
+
     /**
      * Get messages before a specific message
      */
@@ -1008,6 +1078,25 @@ public class MessageController {
         }
     }
 
+    /**
+     * Rebuild per-user message statistics rollups from the messages collection
+     */
+    @PostMapping("/stats/user/rebuild")
+    public ResponseEntity<ApiResponse<Boolean>> rebuildUserMessageStats() {
+        log.info("Requesting rebuild of user message statistics");
+        
+        try {
+            boolean started = userMessageStatsService.startRebuild();
+            String message = started ? "User message statistics rebuild started" : "User message statistics rebuild already running";
+            return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                    .body(ApiResponse.success(started, message));
+        } catch (Exception e) {
+            log.error("Error starting user message statistics rebuild: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to start statistics rebuild: " + e.getMessage(), e.getMessage(), 500));
+        }
+    }
+
     /**
      * Get message statistics for a room
      */
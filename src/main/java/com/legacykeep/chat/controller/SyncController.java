@@ -0,0 +1,95 @@
+package com.legacykeep.chat.controller;
+
+import com.legacykeep.chat.dto.ApiResponse;
+import com.legacykeep.chat.dto.response.MailboxSyncResponse;
+import com.legacykeep.chat.service.UserMailboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+
+/**
+ * REST Controller for delta sync across all of a user's rooms.
+ *
+ * One call returns everything that changed since the client's cursor: new and
+ * edited messages, deletes, reactions, read receipts and room updates. A client
+ * with no cursor (or one older than the retained change log) gets a reset with
+ * its full room list, so a cold start is a single round trip. Clients keep
+ * calling with the returned lastSeq while hasMore is set. The user is the
+ * authenticated principal, whose requests may not name anyone else; without
+ * one, the userId parameter is trusted only when
+ * chat.sync.param-user-id.enabled is set.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/sync")
+public class SyncController {
+
+    private final UserMailboxService userMailboxService;
+    private final boolean paramUserIdEnabled;
+
+    public SyncController(UserMailboxService userMailboxService,
+                          @Value("${chat.sync.param-user-id.enabled:false}") boolean paramUserIdEnabled) {
+        this.userMailboxService = userMailboxService;
+        this.paramUserIdEnabled = paramUserIdEnabled;
+    }
+
+    /**
+     * Get all changes for the authenticated user since the given cursor
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<MailboxSyncResponse>> sync(
+            Principal principal,
+            @RequestParam(value = "userId", required = false) Long requestedUserId,
+            @RequestParam(value = "cursor", defaultValue = "0") long cursor) {
+        Long userId = resolveUserId(principal);
+        if (userId == null) {
+            if (!paramUserIdEnabled || requestedUserId == null) {
+                return reject(HttpStatus.UNAUTHORIZED, "Authentication required");
+            }
+            userId = requestedUserId;
+        } else if (requestedUserId != null && !requestedUserId.equals(userId)) {
+            log.warn("Rejected sync for user {} requested by user {}", requestedUserId, userId);
+            return reject(HttpStatus.FORBIDDEN, "Cannot sync another user's changes");
+        }
+        log.debug("Delta sync for user: {} from cursor: {}", userId, cursor);
+
+        try {
+            MailboxSyncResponse response = userMailboxService.sync(userId, cursor);
+            return ResponseEntity.ok(ApiResponse.<MailboxSyncResponse>builder()
+                    .success(true)
+                    .message("Changes retrieved successfully")
+                    .data(response)
+                    .build());
+        } catch (Exception e) {
+            log.error("Failed to sync user {} from cursor {}: {}", userId, cursor, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<MailboxSyncResponse>builder()
+                            .success(false)
+                            .message("Failed to retrieve changes: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    private static Long resolveUserId(Principal principal) {
+        try {
+            return principal != null ? Long.valueOf(principal.getName().trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ResponseEntity<ApiResponse<MailboxSyncResponse>> reject(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .body(ApiResponse.<MailboxSyncResponse>builder()
+                        .success(false)
+                        .message(message)
+                        .build());
+    }
+}
@@ -5,9 +5,13 @@ import com.legacykeep.chat.dto.request.TypingIndicatorRequest;
 import com.legacykeep.chat.dto.request.ConnectionStatusRequest;
 import com.legacykeep.chat.dto.request.SubscriptionRequest;
 import com.legacykeep.chat.dto.request.SendMessageRequest;
+import com.legacykeep.chat.dto.request.MailboxSyncRequest;
+import com.legacykeep.chat.dto.response.MailboxSyncResponse;
 import com.legacykeep.chat.dto.response.WebSocketStats;
 import com.legacykeep.chat.service.WebSocketService;
 import com.legacykeep.chat.service.MessageService;
+import com.legacykeep.chat.service.UserMailboxService;
+import com.legacykeep.chat.service.impl.PresenceTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -15,6 +19,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
@@ -38,6 +44,9 @@ public class WebSocketController {
 
     private final WebSocketService webSocketService;
     private final MessageService messageService;
+    private final UserMailboxService userMailboxService;
+    private final PresenceTracker presenceTracker;
+    private final SimpMessagingTemplate messagingTemplate;
 
     /**
      * Handle incoming chat messages via WebSocket
@@ -146,6 +155,30 @@ public class WebSocketController {
         }
     }
 
+    /**
+     * Handle mailbox catch-up via WebSocket, replying on /user/queue/sync to the requesting session only
+     */
+    @MessageMapping("/sync")
+    public void handleSync(@Payload @Valid MailboxSyncRequest request, SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = headerAccessor.getSessionId();
+        log.debug("Received sync request from user: {} after sequence: {}", request.getUserId(), request.getLastSeq());
+
+        try {
+            if (sessionId == null || !presenceTracker.getSessionIds(request.getUserId()).contains(sessionId)) {
+                log.warn("Rejected sync for user {} from session {} not connected as that user", request.getUserId(), sessionId);
+                return;
+            }
+            MailboxSyncResponse response = userMailboxService.sync(request.getUserId(), request.getLastSeq());
+
+            SimpMessageHeaderAccessor replyHeaders = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            replyHeaders.setSessionId(sessionId);
+            replyHeaders.setLeaveMutable(true);
+            messagingTemplate.convertAndSendToUser(sessionId, "/queue/sync", response, replyHeaders.getMessageHeaders());
+        } catch (Exception e) {
+            log.error("Error handling sync: {}", e.getMessage(), e);
+        }
+    }
+
     /**
      * Get WebSocket statistics
      */
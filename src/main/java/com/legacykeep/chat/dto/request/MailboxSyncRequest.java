@@ -0,0 +1,29 @@
+package com.legacykeep.chat.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * Request DTO for catching up on a user's mailbox after a reconnect.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailboxSyncRequest {
+
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    @NotNull(message = "Last sequence is required")
+    @PositiveOrZero(message = "Last sequence cannot be negative")
+    private Long lastSeq;
+}
@@ -0,0 +1,48 @@
+package com.legacykeep.chat.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for a mailbox catch-up (delta sync).
+ *
+ * Changes since the cursor are compacted: each message appears once in its
+ * latest state (new, edited or re-reacted), deleted messages only by id, and
+ * updated rooms once. lastSeq is the cursor for the next sync; hasMore means
+ * another sync should follow straight away. reset means the client's cursor
+ * is older than the retained mailbox, so rooms holds all of the user's rooms
+ * and the client reloads their history before continuing from lastSeq.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailboxSyncResponse {
+
+    private long lastSeq;
+    private boolean hasMore;
+    private boolean reset;
+    private List<MessageFrame> messages;
+    private List<String> deletedMessageIds;
+    private List<ReadReceipt> readReceipts;
+    private List<ChatRoomResponse> rooms;
+
+    /**
+     * A participant having read a message (and, for a room watermark, everything before it)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReadReceipt {
+        private Long chatRoomId;
+        private String messageId;
+        private Long userId;
+    }
+}
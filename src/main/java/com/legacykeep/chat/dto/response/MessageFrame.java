@@ -0,0 +1,112 @@
+package com.legacykeep.chat.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.legacykeep.chat.entity.Message;
+import com.legacykeep.chat.enums.MessageType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact wire DTO for messages pushed over WebSocket.
+ * 
+ * Carries only what clients render, omits null fields and sends timestamps
+ * as epoch milliseconds. The schema version lets clients handle changes to
+ * the frame; bump it whenever a field is removed or changes meaning.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MessageFrame {
+
+    public static final int SCHEMA_VERSION = 1;
+
+    private int v;
+    // The client's cursor for /app/sync once it has this frame; trails the delivery while earlier ones are still being written
+    private Long seq;
+    private String id;
+    private Long chatRoomId;
+    private Long senderUserId;
+    private MessageType messageType;
+    private String content;
+    private String replyToMessageId;
+    private String forwardedFromMessageId;
+    private Boolean isEncrypted;
+    private Integer keyVersion;
+    private Boolean isEdited;
+    private Boolean isProtected;
+    private String protectionLevel;
+    private Boolean screenshotProtection;
+    private Long selfDestructAt;
+    private String toneColor;
+    private String moodTag;
+    private String mediaUrl;
+    private String mediaThumbnailUrl;
+    private Long mediaSize;
+    private Integer mediaDuration;
+    private String mediaFormat;
+    private Double locationLatitude;
+    private Double locationLongitude;
+    private String locationName;
+    private Long storyId;
+    private Long memoryId;
+    private Long eventId;
+    private Map<String, List<Long>> reactions;
+    private Map<String, Object> metadata;
+    private Long createdAt;
+
+    public static MessageFrame fromEntity(Message message) {
+        if (message == null) {
+            return null;
+        }
+
+        return MessageFrame.builder()
+                .v(SCHEMA_VERSION)
+                .id(message.getId())
+                .chatRoomId(message.getChatRoomId())
+                .senderUserId(message.getSenderUserId())
+                .messageType(message.getMessageType())
+                .content(message.getContent())
+                .replyToMessageId(message.getReplyToMessageId())
+                .forwardedFromMessageId(message.getForwardedFromMessageId())
+                .isEncrypted(message.getIsEncrypted())
+                .keyVersion(message.getKeyVersion())
+                .isEdited(message.getIsEdited())
+                .isProtected(message.getIsProtected())
+                .protectionLevel(message.getProtectionLevel())
+                .screenshotProtection(message.getScreenshotProtection())
+                .selfDestructAt(toEpochMilli(message.getSelfDestructAt()))
+                .toneColor(message.getToneColor())
+                .moodTag(message.getMoodTag())
+                .mediaUrl(message.getMediaUrl())
+                .mediaThumbnailUrl(message.getMediaThumbnailUrl())
+                .mediaSize(message.getMediaSize())
+                .mediaDuration(message.getMediaDuration())
+                .mediaFormat(message.getMediaFormat())
+                .locationLatitude(message.getLocationLatitude())
+                .locationLongitude(message.getLocationLongitude())
+                .locationName(message.getLocationName())
+                .storyId(message.getStoryId())
+                .memoryId(message.getMemoryId())
+                .eventId(message.getEventId())
+                .reactions(message.getReactions() == null || message.getReactions().isEmpty() ? null : message.getReactions())
+                .metadata(message.getMetadata() == null || message.getMetadata().isEmpty() ? null : message.getMetadata())
+                .createdAt(toEpochMilli(message.getCreatedAt()))
+                .build();
+    }
+
+    private static Long toEpochMilli(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.legacykeep.chat.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for cursor-paginated room history.
+ * Pass nextCursor back as the cursor parameter to fetch the next (older) page.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageHistoryResponse {
+
+    private List<MessageResponse> content;
+    private String nextCursor;
+    private boolean hasMore;
+    private int size;
+}
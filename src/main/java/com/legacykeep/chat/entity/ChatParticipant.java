@@ -58,8 +58,9 @@ public class ChatParticipant {
     @Column(name = "left_at")
     private LocalDateTime leftAt;
 
-    @Column(name = "last_read_message_id")
-    private Long lastReadMessageId;
+    // Read watermark: the newest message the participant has read and its creation time
+    @Column(name = "last_read_message_id", length = 64)
+    private String lastReadMessageId;
 
     @Column(name = "last_read_at")
     private LocalDateTime lastReadAt;
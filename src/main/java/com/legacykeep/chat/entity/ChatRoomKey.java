@@ -0,0 +1,59 @@
+package com.legacykeep.chat.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * ChatRoomKey Entity
+ * 
+ * One version of a chat room's encryption key. Rotation adds a new version and
+ * retires the previous one, which stays readable for messages encrypted under it.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "chat_room_keys",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"chat_room_id", "key_version"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatRoomKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "chat_room_id", nullable = false)
+    private Long chatRoomId;
+
+    @Column(name = "key_version", nullable = false)
+    private Integer keyVersion;
+
+    /**
+     * Key material, wrapped with the configured master key when one is set
+     */
+    @Column(name = "key_material", nullable = false, length = 512)
+    private String keyMaterial;
+
+    @Column(name = "is_active", nullable = false)
+    @Builder.Default
+    private Boolean isActive = true;
+
+    @Column(name = "created_by_user_id", nullable = false)
+    private Long createdByUserId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "retired_at")
+    private LocalDateTime retiredAt;
+}
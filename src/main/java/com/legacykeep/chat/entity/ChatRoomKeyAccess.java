@@ -0,0 +1,45 @@
+package com.legacykeep.chat.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * ChatRoomKeyAccess Entity
+ * 
+ * Grants a user access to all key versions of a chat room.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "chat_room_key_access",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"chat_room_id", "user_id"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatRoomKeyAccess {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "chat_room_id", nullable = false)
+    private Long chatRoomId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "granted_by_user_id")
+    private Long grantedByUserId;
+
+    @CreationTimestamp
+    @Column(name = "granted_at", nullable = false, updatable = false)
+    private LocalDateTime grantedAt;
+}
@@ -0,0 +1,62 @@
+package com.legacykeep.chat.entity;
+
+import com.legacykeep.chat.enums.MailboxEventType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mailbox Entry Entity (MongoDB Document)
+ * 
+ * One change visible to one user (a delivery, edit, delete, reaction, read
+ * receipt or room update), stored so a reconnecting client can fetch what it
+ * missed. Sequence numbers come from a single counter, so they increase
+ * across all of a user's entries but are not contiguous. Entries can be
+ * inserted out of sequence order; a sync never reads past a sequence that is
+ * still being written.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Document(collection = "user_mailbox")
+@CompoundIndex(name = "user_seq_idx", def = "{'user_id': 1, 'seq': 1}", unique = true)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailboxEntry {
+
+    @Id
+    private String id;
+
+    @Field("user_id")
+    private Long userId;
+
+    @Field("seq")
+    private Long seq;
+
+    @Field("event_type")
+    private MailboxEventType eventType;
+
+    @Field("chat_room_id")
+    private Long chatRoomId;
+
+    @Field("message_id")
+    private String messageId;
+
+    // Who caused the change, e.g. the reader of a read receipt
+    @Field("actor_user_id")
+    private Long actorUserId;
+
+    @Indexed
+    @Field("created_at")
+    private LocalDateTime createdAt;
+}
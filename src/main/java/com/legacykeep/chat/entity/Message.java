@@ -5,6 +5,7 @@ import com.legacykeep.chat.enums.MessageStatus;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 import lombok.AllArgsConstructor;
@@ -13,8 +14,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Message Entity (MongoDB Document)
@@ -27,8 +30,9 @@ import java.util.Map;
  * @version 1.0.0
  */
 @Document(collection = "messages")
+@CompoundIndex(name = "room_history_idx", def = "{'chat_room_id': 1, 'created_at': -1, '_id': -1}")
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Message {
@@ -85,6 +89,9 @@ public class Message {
     @Field("is_encrypted")
     private Boolean isEncrypted;
 
+    @Field("key_version")
+    private Integer keyVersion; // Room key version the content was encrypted with
+
     // Advanced Features - Tone & Context
     @Field("tone_color")
     private String toneColor; // Hex color for message tone
@@ -197,6 +204,10 @@ public class Message {
     @Field("metadata")
     private Map<String, Object> metadata;
 
+    // Recipients whose content filters matched when it was sent; they only ever get the withheld copy
+    @Field("filtered_user_ids")
+    private Set<Long> filteredUserIds;
+
     @Field("created_at")
     @Indexed
     private LocalDateTime createdAt;
@@ -267,6 +278,25 @@ public class Message {
         return editedAt != null;
     }
 
+    /**
+     * Check if the message content is withheld from a user by the user's content filters
+     */
+    public boolean isWithheldFrom(Long userId) {
+        return filteredUserIds != null && filteredUserIds.contains(userId);
+    }
+
+    /**
+     * Copy of the message with its content withheld, for recipients whose filters matched
+     */
+    public Message toWithheldCopy() {
+        Map<String, Object> withheldMetadata = metadata != null ? new HashMap<>(metadata) : new HashMap<>();
+        withheldMetadata.put("filtered", true);
+        return toBuilder()
+                .content(null)
+                .metadata(withheldMetadata)
+                .build();
+    }
+
     /**
      * Check if the message has been read by a specific user
      */
@@ -0,0 +1,72 @@
+package com.legacykeep.chat.entity;
+
+import com.legacykeep.chat.enums.ReEncryptionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Re-Encryption Job Entity (MongoDB Document)
+ * 
+ * Progress of moving a room's encrypted messages to its current key version.
+ * One document per room; lastMessageId is the checkpoint the job resumes from.
+ * A running job is worked by the instance holding its lease (ownerId until
+ * leaseUntil), so only one instance processes a room at a time.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Document(collection = "reencryption_jobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReEncryptionJob {
+
+    @Id
+    private Long chatRoomId;
+
+    @Field("target_key_version")
+    private Integer targetKeyVersion;
+
+    @Indexed
+    @Field("status")
+    private ReEncryptionStatus status;
+
+    @Field("started_by_user_id")
+    private Long startedByUserId;
+
+    @Field("last_message_id")
+    private String lastMessageId;
+
+    @Field("processed_messages")
+    private long processedMessages;
+
+    @Field("failed_messages")
+    private long failedMessages;
+
+    @Field("last_error")
+    private String lastError;
+
+    @Field("started_at")
+    private LocalDateTime startedAt;
+
+    @Field("updated_at")
+    private LocalDateTime updatedAt;
+
+    @Field("completed_at")
+    private LocalDateTime completedAt;
+
+    @Field("owner_id")
+    private String ownerId;
+
+    @Field("lease_until")
+    private LocalDateTime leaseUntil;
+}
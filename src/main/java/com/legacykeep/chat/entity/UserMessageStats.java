@@ -0,0 +1,108 @@
+package com.legacykeep.chat.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * User Message Stats Entity (MongoDB Document)
+ * 
+ * Per-user rollup of message counters over the user's live (not deleted) sent messages.
+ * Maintained incrementally with $inc by the message write paths and recomputable
+ * from the messages collection by the rebuild job. A write path marks its change
+ * in flight before saving the message and clears the mark with its increment, so
+ * a rebuild can tell a recount that may already include the change.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Document(collection = "user_message_stats")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserMessageStats {
+
+    @Id
+    private Long userId;
+
+    @Field("total_messages")
+    private long totalMessages;
+
+    @Field("text_messages")
+    private long textMessages;
+
+    @Field("media_messages")
+    private long mediaMessages;
+
+    @Field("voice_messages")
+    private long voiceMessages;
+
+    @Field("starred_messages")
+    private long starredMessages;
+
+    @Field("protected_messages")
+    private long protectedMessages;
+
+    @Field("messages_with_tone_color")
+    private long messagesWithToneColor;
+
+    @Field("messages_with_ai_features")
+    private long messagesWithAIFeatures;
+
+    @Field("messages_with_media")
+    private long messagesWithMedia;
+
+    @Field("messages_with_location")
+    private long messagesWithLocation;
+
+    @Field("messages_with_contact")
+    private long messagesWithContact;
+
+    @Field("story_messages")
+    private long storyMessages;
+
+    @Field("memory_messages")
+    private long memoryMessages;
+
+    @Field("event_messages")
+    private long eventMessages;
+
+    // Bumped by every counter update, so a rebuild can tell whether it raced one
+    @Field("version")
+    private long version;
+
+    @Field("updated_at")
+    private LocalDateTime updatedAt;
+
+    @Field("rebuilt_at")
+    @Indexed
+    private LocalDateTime rebuiltAt;
+
+    // Changes saved or about to be saved whose increment has not been applied yet
+    @Field("in_flight")
+    private List<PendingChange> inFlight;
+
+    /**
+     * A message change marked before it is saved, with the time it was marked
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PendingChange {
+
+        @Field("change_id")
+        private String changeId;
+
+        @Field("at")
+        private LocalDateTime at;
+    }
+}
@@ -0,0 +1,39 @@
+package com.legacykeep.chat.enums;
+
+/**
+ * Enum representing the kind of change recorded in a user's mailbox.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+public enum MailboxEventType {
+    /**
+     * A message was delivered to a room the user is in, or directly to the user
+     */
+    MESSAGE,
+    
+    /**
+     * A message's content was edited
+     */
+    MESSAGE_EDITED,
+    
+    /**
+     * A message was deleted for everyone, or for this user only
+     */
+    MESSAGE_DELETED,
+    
+    /**
+     * A reaction was added to or removed from a message
+     */
+    REACTION_CHANGED,
+    
+    /**
+     * A participant read a message, or a room up to a message
+     */
+    READ_RECEIPT,
+    
+    /**
+     * A room's metadata changed (name, settings, archive, mute, status, participants)
+     */
+    ROOM_UPDATED
+}
@@ -0,0 +1,24 @@
+package com.legacykeep.chat.enums;
+
+/**
+ * Enum representing the state of a room re-encryption job.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+public enum ReEncryptionStatus {
+    /**
+     * Job is running or waiting to resume
+     */
+    RUNNING,
+    
+    /**
+     * All messages have been moved to the target key version
+     */
+    COMPLETED,
+    
+    /**
+     * Job stopped on an error and can be restarted
+     */
+    FAILED
+}
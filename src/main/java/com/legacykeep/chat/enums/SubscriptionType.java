@@ -0,0 +1,29 @@
+package com.legacykeep.chat.enums;
+
+/**
+ * Enum representing what a WebSocket subscription targets.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+public enum SubscriptionType {
+    /**
+     * Chat room subscription
+     */
+    CHAT_ROOM,
+    
+    /**
+     * Family subscription
+     */
+    FAMILY,
+    
+    /**
+     * Story subscription
+     */
+    STORY,
+    
+    /**
+     * Event subscription
+     */
+    EVENT
+}
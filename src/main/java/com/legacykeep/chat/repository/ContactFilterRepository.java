@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +30,11 @@ public interface ContactFilterRepository extends JpaRepository<ContactFilter, Lo
      */
     List<ContactFilter> findByUserIdAndContactUserIdAndIsActiveTrue(Long userId, Long contactUserId);
     
+    /**
+     * Find all active filters a set of users have on one contact
+     */
+    List<ContactFilter> findByUserIdInAndContactUserIdAndIsActiveTrue(Collection<Long> userIds, Long contactUserId);
+    
     /**
      * Find specific filter by user, contact, and content
      */
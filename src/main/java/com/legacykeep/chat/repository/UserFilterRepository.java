@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +25,11 @@ public interface UserFilterRepository extends JpaRepository<UserFilter, Long> {
      */
     List<UserFilter> findByUserIdAndIsActiveTrue(Long userId);
     
+    /**
+     * Find all active filters for a set of users
+     */
+    List<UserFilter> findByUserIdInAndIsActiveTrue(Collection<Long> userIds);
+    
     /**
      * Find all filters for a user (active and inactive)
      */
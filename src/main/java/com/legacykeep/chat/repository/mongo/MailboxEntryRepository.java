@@ -0,0 +1,20 @@
+package com.legacykeep.chat.repository.mongo;
+
+import com.legacykeep.chat.entity.MailboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for per-user mailbox entries (MongoDB).
+ */
+@Repository
+public interface MailboxEntryRepository extends MongoRepository<MailboxEntry, String>, MailboxEntryRepositoryCustom {
+
+    /**
+     * Find a user's entries strictly between two sequence numbers, oldest first
+     */
+    List<MailboxEntry> findByUserIdAndSeqBetweenOrderBySeqAsc(Long userId, Long afterSeq, Long beforeSeq, Pageable pageable);
+}
@@ -0,0 +1,41 @@
+package com.legacykeep.chat.repository.mongo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Custom repository fragment for the mailbox sequence counter and retention.
+ */
+public interface MailboxEntryRepositoryCustom {
+
+    /**
+     * Atomically allocate the next mailbox sequence number and mark it in flight until released
+     */
+    long allocateSequence();
+
+    /**
+     * Mark an allocated sequence as written; returns the highest sequence a client may resume from, at most seq.
+     * In-flight sequences allocated before staleBefore are treated as abandoned.
+     */
+    long releaseSequence(long seq, LocalDateTime staleBefore);
+
+    /**
+     * Get the highest sequence with nothing at or below it still in flight, 0 if none.
+     * In-flight sequences allocated before staleBefore are treated as abandoned.
+     */
+    long getStableSequence(LocalDateTime staleBefore);
+
+    /**
+     * Forget in-flight sequences allocated before the cutoff by writers that never released them
+     */
+    void dropStaleSequences(LocalDateTime staleBefore);
+
+    /**
+     * Get the highest sequence number removed by retention, 0 if none
+     */
+    long getFloorSequence();
+
+    /**
+     * Delete entries created before the cutoff, raising the floor first; returns the number deleted
+     */
+    long deleteCreatedBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,136 @@
+package com.legacykeep.chat.repository.mongo;
+
+import com.legacykeep.chat.entity.MailboxEntry;
+import lombok.RequiredArgsConstructor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * MongoTemplate-backed implementation of MailboxEntryRepositoryCustom.
+ * The counter, the floor and the sequences still being written (in_flight,
+ * each with its allocation time) live in one document of the sequences
+ * collection, so allocating and releasing are single atomic updates; raw
+ * pipelines use the stored (snake_case) field names.
+ */
+@RequiredArgsConstructor
+public class MailboxEntryRepositoryCustomImpl implements MailboxEntryRepositoryCustom {
+
+    private static final String SEQUENCES_COLLECTION = "sequences";
+    private static final String MAILBOX_SEQUENCE = "user_mailbox";
+    private static final String IN_FLIGHT = "in_flight";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public long allocateSequence() {
+        // Increment and record the new value as in flight in one pipeline update
+        List<Document> pipeline = List.of(
+                new Document("$set", new Document("value",
+                        new Document("$add", List.of(new Document("$ifNull", List.of("$value", 0L)), 1L)))),
+                new Document("$set", new Document(IN_FLIGHT, new Document("$concatArrays", List.of(
+                        new Document("$ifNull", List.of("$" + IN_FLIGHT, List.of())),
+                        List.of(new Document("seq", "$value").append("at", new Date())))))));
+        Document counter = sequences().findOneAndUpdate(sequenceFilter(), pipeline,
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        return counter != null ? counter.get("value", Number.class).longValue() : 0L;
+    }
+
+    @Override
+    public long releaseSequence(long seq, LocalDateTime staleBefore) {
+        Document counter = sequences().findOneAndUpdate(sequenceFilter(),
+                new Document("$pull", new Document(IN_FLIGHT, new Document("seq", seq))),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+        return Math.min(seq, stableSequence(counter, staleBefore));
+    }
+
+    @Override
+    public long getStableSequence(LocalDateTime staleBefore) {
+        return stableSequence(sequences().find(sequenceFilter()).first(), staleBefore);
+    }
+
+    @Override
+    public void dropStaleSequences(LocalDateTime staleBefore) {
+        sequences().updateOne(sequenceFilter(), new Document("$pull", new Document(IN_FLIGHT,
+                new Document("at", new Document("$lt", toStoredDate(staleBefore))))));
+    }
+
+    @Override
+    public long getFloorSequence() {
+        return sequenceField("floor");
+    }
+
+    @Override
+    public long deleteCreatedBefore(LocalDateTime cutoff) {
+        Date storedCutoff = toStoredDate(cutoff);
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("created_at", new Document("$lt", storedCutoff))),
+                new Document("$group", new Document("_id", null).append("maxSeq", new Document("$max", "$seq"))));
+        Document expired = mongoTemplate.getCollection(mongoTemplate.getCollectionName(MailboxEntry.class))
+                .aggregate(pipeline)
+                .first();
+        if (expired == null) {
+            return 0;
+        }
+
+        // Raise the floor before deleting so a concurrent sync never sees a silent gap
+        mongoTemplate.upsert(sequenceQuery(), new Update().max("floor", expired.get("maxSeq", Number.class).longValue()),
+                SEQUENCES_COLLECTION);
+        return mongoTemplate.remove(Query.query(Criteria.where("createdAt").lt(cutoff)), MailboxEntry.class)
+                .getDeletedCount();
+    }
+
+    private long sequenceField(String field) {
+        Query query = sequenceQuery();
+        query.fields().include(field);
+        Document counter = mongoTemplate.findOne(query, Document.class, SEQUENCES_COLLECTION);
+        Number value = counter != null ? counter.get(field, Number.class) : null;
+        return value != null ? value.longValue() : 0L;
+    }
+
+    /**
+     * Compute the stable sequence from the counter document, ignoring in-flight sequences allocated before staleBefore
+     */
+    static long stableSequence(Document counter, LocalDateTime staleBefore) {
+        if (counter == null) {
+            return 0L;
+        }
+        Number value = counter.get("value", Number.class);
+        long stable = value != null ? value.longValue() : 0L;
+        Date cutoff = toStoredDate(staleBefore);
+        for (Document inFlight : counter.getList(IN_FLIGHT, Document.class, List.of())) {
+            Date allocatedAt = inFlight.getDate("at");
+            if (allocatedAt == null || !allocatedAt.before(cutoff)) {
+                stable = Math.min(stable, inFlight.get("seq", Number.class).longValue() - 1);
+            }
+        }
+        return stable;
+    }
+
+    // Stored the way the mapping layer writes LocalDateTime: the system zone's instant
+    private static Date toStoredDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private MongoCollection<Document> sequences() {
+        return mongoTemplate.getCollection(SEQUENCES_COLLECTION);
+    }
+
+    private static Document sequenceFilter() {
+        return new Document("_id", MAILBOX_SEQUENCE);
+    }
+
+    private static Query sequenceQuery() {
+        return Query.query(Criteria.where("_id").is(MAILBOX_SEQUENCE));
+    }
+}
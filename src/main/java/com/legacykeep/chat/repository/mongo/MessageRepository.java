@@ -3,6 +3,7 @@ package com.legacykeep.chat.repository.mongo;
 import com.legacykeep.chat.entity.Message;
 import com.legacykeep.chat.enums.MessageStatus;
 import com.legacykeep.chat.enums.MessageType;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -19,7 +20,7 @@ import java.util.Optional;
  * Provides data access methods for messages.
  */
 @Repository
-public interface MessageRepository extends MongoRepository<Message, String> {
+public interface MessageRepository extends MongoRepository<Message, String>, MessageRepositoryCustom {
 
     /**
      * Find message by UUID
@@ -415,6 +416,36 @@ public interface MessageRepository extends MongoRepository<Message, String> {
     @Query("{ 'chatRoomId': ?0, 'createdAt': { $gt: ?1 } }")
     Page<Message> findMessagesAfter(Long chatRoomId, LocalDateTime after, Pageable pageable);
 
+    /**
+     * Find the newest messages in a chat room without a count query (first history page)
+     */
+    @Query("{ 'chatRoomId': ?0 }")
+    List<Message> findHistoryHead(Long chatRoomId, Pageable pageable);
+
+    /**
+     * Seek messages strictly older than the (createdAt, id) keyset position
+     */
+    @Query("{ 'chatRoomId': ?0, $or: [ { 'createdAt': { $lt: ?1 } }, { 'createdAt': ?1, '_id': { $lt: ?2 } } ] }")
+    List<Message> findHistoryBefore(Long chatRoomId, LocalDateTime createdAt, ObjectId id, Pageable pageable);
+
+    /**
+     * Seek messages strictly newer than the (createdAt, id) keyset position
+     */
+    @Query("{ 'chatRoomId': ?0, $or: [ { 'createdAt': { $gt: ?1 } }, { 'createdAt': ?1, '_id': { $gt: ?2 } } ] }")
+    List<Message> findHistoryAfter(Long chatRoomId, LocalDateTime createdAt, ObjectId id, Pageable pageable);
+
+    /**
+     * Count messages from other users in a chat room created after a read watermark
+     */
+    @Query(value = "{ 'chatRoomId': ?0, 'createdAt': { $gt: ?1 }, 'senderUserId': { $ne: ?2 }, 'deletedAt': null }", count = true)
+    long countUnreadAfter(Long chatRoomId, LocalDateTime watermark, Long userId);
+
+    /**
+     * Count messages from other users in a chat room (no read watermark yet)
+     */
+    @Query(value = "{ 'chatRoomId': ?0, 'senderUserId': { $ne: ?1 }, 'deletedAt': null }", count = true)
+    long countUnreadInRoom(Long chatRoomId, Long userId);
+
     // ==================== SEARCH METHODS ====================
 
     /**
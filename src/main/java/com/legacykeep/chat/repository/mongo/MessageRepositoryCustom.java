@@ -0,0 +1,82 @@
+package com.legacykeep.chat.repository.mongo;
+
+import com.legacykeep.chat.entity.Message;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Custom repository fragment for Message operations that need MongoTemplate
+ * (server-side aggregations and targeted updates).
+ */
+public interface MessageRepositoryCustom {
+
+    /**
+     * Compute all message statistics counters for a chat room in one aggregation round trip.
+     * Keys match the MessageStats property names; missing rooms yield an empty map.
+     */
+    Map<String, Long> aggregateRoomStats(Long chatRoomId);
+
+    /**
+     * Stream the ids of users with live (not deleted) messages, grouped server-side.
+     * Results are pulled from the cursor in batches of the given size.
+     */
+    void streamSenderUserIds(int batchSize, Consumer<Long> consumer);
+
+    /**
+     * Compute statistics counters over the live messages of each given sender in one aggregation.
+     * Senders without live messages are absent from the result.
+     */
+    Map<Long, Map<String, Long>> aggregateUserStats(Collection<Long> userIds);
+
+    /**
+     * Set readBy.&lt;userId&gt; on every message in a chat room created after the previous watermark
+     * (exclusive, null for none) and up to the new one (inclusive), in a single updateMany.
+     * Messages already read by the user keep their original read time.
+     */
+    long markReadBetween(Long chatRoomId, Long userId, LocalDateTime after, LocalDateTime upTo, LocalDateTime readAt);
+
+    /**
+     * Atomically $addToSet a user to a reaction. Returns the message projected to its id, room, sender,
+     * reactions and updatedAt if the reaction was added, or null if the message is missing or already had it.
+     */
+    Message addReaction(String messageId, String emoji, Long userId);
+
+    /**
+     * Atomically $pull a user from a reaction, dropping the emoji once nobody is left. Returns the
+     * projected message if the reaction was removed, or null if the message is missing or did not have it.
+     */
+    Message removeReaction(String messageId, String emoji, Long userId);
+
+    /**
+     * Atomically flip isStarred server-side. Returns the message projected to its id, room, sender,
+     * isStarred, deletedAt and updatedAt, or null if the message is missing.
+     */
+    Message toggleStar(String messageId);
+
+    /**
+     * Set readBy.&lt;userId&gt; on a single message unless the user already read it.
+     * Returns the message projected to id, room and sender if a new read time was recorded, null otherwise.
+     */
+    Message markReadIfUnread(String messageId, Long userId, LocalDateTime readAt);
+
+    /**
+     * Load a message projected to the fields returned by the targeted update methods
+     */
+    Message findProjectedForUpdate(String messageId);
+
+    /**
+     * Load the next batch of a room's encrypted messages that are not under the target key version,
+     * in id order after the checkpoint and projected to id, room, content and keyVersion
+     */
+    List<Message> findReEncryptionBatch(Long chatRoomId, int targetKeyVersion, String afterMessageId, int batchSize);
+
+    /**
+     * Write re-encrypted content back with one unordered bulkWrite. Each update only applies while the
+     * message still has the key version and content it was read with. Returns the number of messages updated.
+     */
+    int bulkReEncrypt(List<Message> originals, Map<String, String> reEncryptedContent, int targetKeyVersion);
+}
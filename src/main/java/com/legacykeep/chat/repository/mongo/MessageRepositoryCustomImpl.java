@@ -0,0 +1,265 @@
+package com.legacykeep.chat.repository.mongo;
+
+import com.legacykeep.chat.entity.Message;
+import com.legacykeep.chat.enums.MessageType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * MongoTemplate-backed implementation of MessageRepositoryCustom.
+ * Raw pipelines use the stored (snake_case) field names.
+ */
+@RequiredArgsConstructor
+public class MessageRepositoryCustomImpl implements MessageRepositoryCustom {
+
+    private static final List<String> MEDIA_TYPES = Arrays.stream(MessageType.values())
+            .filter(MessageType::isMediaType)
+            .map(Enum::name)
+            .toList();
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<String, Long> aggregateRoomStats(Long chatRoomId) {
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("chat_room_id", chatRoomId)),
+                new Document("$group", statsGroup(null)));
+
+        Document result = messagesCollection().aggregate(pipeline).first();
+        return result != null ? toCounters(result) : new LinkedHashMap<>();
+    }
+
+    @Override
+    public void streamSenderUserIds(int batchSize, Consumer<Long> consumer) {
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("deleted_at", null)),
+                new Document("$group", new Document("_id", "$sender_user_id")));
+
+        try (MongoCursor<Document> cursor = messagesCollection().aggregate(pipeline)
+                .allowDiskUse(true)
+                .batchSize(batchSize)
+                .cursor()) {
+            while (cursor.hasNext()) {
+                Object userId = cursor.next().get("_id");
+                if (userId instanceof Number) {
+                    consumer.accept(((Number) userId).longValue());
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<Long, Map<String, Long>> aggregateUserStats(Collection<Long> userIds) {
+        Map<Long, Map<String, Long>> countersByUser = new LinkedHashMap<>();
+        if (userIds.isEmpty()) {
+            return countersByUser;
+        }
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("sender_user_id", new Document("$in", userIds))
+                        .append("deleted_at", null)),
+                new Document("$group", statsGroup("$sender_user_id")));
+
+        for (Document result : messagesCollection().aggregate(pipeline).allowDiskUse(true)) {
+            Object userId = result.get("_id");
+            if (userId instanceof Number) {
+                countersByUser.put(((Number) userId).longValue(), toCounters(result));
+            }
+        }
+        return countersByUser;
+    }
+
+    @Override
+    public long markReadBetween(Long chatRoomId, Long userId, LocalDateTime after, LocalDateTime upTo, LocalDateTime readAt) {
+        String readByUser = "readBy." + userId;
+        Criteria createdAt = Criteria.where("createdAt").lte(upTo);
+        if (after != null) {
+            createdAt = createdAt.gt(after);
+        }
+        Query query = Query.query(Criteria.where("chatRoomId").is(chatRoomId)
+                .andOperator(createdAt, Criteria.where(readByUser).exists(false)));
+        return mongoTemplate.updateMulti(query, new Update().set(readByUser, readAt), Message.class)
+                .getModifiedCount();
+    }
+
+    @Override
+    public Message addReaction(String messageId, String emoji, Long userId) {
+        String reaction = "reactions." + emoji;
+        Query query = Query.query(Criteria.where("id").is(messageId).and(reaction).ne(userId));
+        Update update = new Update().addToSet(reaction, userId).set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.findAndModify(projected(query), update, FindAndModifyOptions.options().returnNew(true), Message.class);
+    }
+
+    @Override
+    public Message removeReaction(String messageId, String emoji, Long userId) {
+        String reaction = "reactions." + emoji;
+        Query query = Query.query(Criteria.where("id").is(messageId).and(reaction).is(userId));
+        Update update = new Update().pull(reaction, userId).set("updatedAt", LocalDateTime.now());
+        Message updated = mongoTemplate.findAndModify(projected(query), update,
+                FindAndModifyOptions.options().returnNew(true), Message.class);
+        if (updated != null && updated.getReactions() != null && updated.getReactions().getOrDefault(emoji, List.of()).isEmpty()) {
+            // Drop the emoji key only if it is still empty, so a concurrent add is not lost
+            mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(messageId).and(reaction).size(0)),
+                    new Update().unset(reaction), Message.class);
+            updated.getReactions().remove(emoji);
+        }
+        return updated;
+    }
+
+    @Override
+    public Message toggleStar(String messageId) {
+        if (!ObjectId.isValid(messageId)) {
+            return null;
+        }
+        // Pipeline update flips the stored flag server-side; a missing flag counts as unstarred
+        List<Document> pipeline = List.of(new Document("$set", new Document()
+                .append("is_starred", new Document("$not", List.of(new Document("$ifNull", Arrays.asList("$is_starred", false)))))
+                .append("updated_at", "$$NOW")));
+        FindOneAndUpdateOptions options = new FindOneAndUpdateOptions()
+                .returnDocument(ReturnDocument.AFTER)
+                .projection(new Document("chat_room_id", 1).append("sender_user_id", 1).append("is_starred", 1)
+                        .append("deleted_at", 1).append("updated_at", 1));
+        Document updated = messagesCollection().findOneAndUpdate(
+                new Document("_id", new ObjectId(messageId)), pipeline, options);
+        return updated != null ? mongoTemplate.getConverter().read(Message.class, updated) : null;
+    }
+
+    @Override
+    public Message markReadIfUnread(String messageId, Long userId, LocalDateTime readAt) {
+        String readByUser = "readBy." + userId;
+        Query query = Query.query(Criteria.where("id").is(messageId).and(readByUser).exists(false));
+        query.fields().include("id", "chatRoomId", "senderUserId");
+        return mongoTemplate.findAndModify(query, new Update().set(readByUser, readAt), Message.class);
+    }
+
+    @Override
+    public Message findProjectedForUpdate(String messageId) {
+        return mongoTemplate.findOne(projected(Query.query(Criteria.where("id").is(messageId))), Message.class);
+    }
+
+    /**
+     * Restrict a query to the fields touched by targeted updates, so only those come back over the wire
+     */
+    private static Query projected(Query query) {
+        query.fields().include("id", "chatRoomId", "senderUserId", "reactions", "isStarred", "deletedAt", "updatedAt");
+        return query;
+    }
+
+    private MongoCollection<Document> messagesCollection() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Message.class));
+    }
+
+    /**
+     * Build a $group stage body whose accumulators compute every MessageStats counter in a single pass.
+     * Only the grouped result documents come back over the wire.
+     */
+    private static Document statsGroup(Object groupId) {
+        return new Document("_id", groupId)
+                .append("totalMessages", new Document("$sum", 1))
+                .append("textMessages", countIf(eq("$message_type", MessageType.TEXT.name())))
+                .append("mediaMessages", countIf(new Document("$in", Arrays.asList("$message_type", MEDIA_TYPES))))
+                .append("voiceMessages", countIf(eq("$message_type", MessageType.AUDIO.name())))
+                .append("starredMessages", countIf(eq("$is_starred", true)))
+                .append("protectedMessages", countIf(eq("$is_protected", true)))
+                .append("messagesWithToneColor", countIf(notBlank("$tone_color")))
+                .append("messagesWithAIFeatures", countIf(new Document("$or", Arrays.asList(
+                        present("$voice_emotion"),
+                        new Document("$gt", Arrays.asList(
+                                new Document("$size", new Document("$ifNull", Arrays.asList("$memory_triggers", List.of()))), 0)),
+                        present("$predictive_text"),
+                        present("$ai_tone_suggestion")))))
+                .append("messagesWithMedia", countIf(notBlank("$media_url")))
+                .append("messagesWithLocation", countIf(new Document("$and", Arrays.asList(
+                        present("$location_latitude"), present("$location_longitude")))))
+                .append("messagesWithContact", countIf(notBlank("$contact_name")))
+                .append("storyMessages", countIf(present("$story_id")))
+                .append("memoryMessages", countIf(present("$memory_id")))
+                .append("eventMessages", countIf(present("$event_id")));
+    }
+
+    private static Map<String, Long> toCounters(Document result) {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : result.entrySet()) {
+            if (!"_id".equals(entry.getKey())) {
+                counters.put(entry.getKey(), ((Number) entry.getValue()).longValue());
+            }
+        }
+        return counters;
+    }
+
+    private static Document countIf(Document condition) {
+        return new Document("$sum", new Document("$cond", Arrays.asList(condition, 1, 0)));
+    }
+
+    private static Document eq(String field, Object value) {
+        return new Document("$eq", Arrays.asList(field, value));
+    }
+
+    /**
+     * True when the field exists and is not null (missing and null both sort at or below null)
+     */
+    private static Document present(String field) {
+        return new Document("$gt", Arrays.asList(field, null));
+    }
+
+    private static Document notBlank(String field) {
+        return new Document("$gt", Arrays.asList(
+                new Document("$strLenCP", new Document("$trim",
+                        new Document("input", new Document("$ifNull", Arrays.asList(field, ""))))), 0));
+    }
+
+    @Override
+    public List<Message> findReEncryptionBatch(Long chatRoomId, int targetKeyVersion, String afterMessageId, int batchSize) {
+        Criteria criteria = Criteria.where("chatRoomId").is(chatRoomId)
+                .and("isEncrypted").is(true)
+                .and("keyVersion").ne(targetKeyVersion);
+        if (afterMessageId != null) {
+            criteria = criteria.and("id").gt(new ObjectId(afterMessageId));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .limit(batchSize);
+        query.fields().include("id", "chatRoomId", "content", "keyVersion");
+        return mongoTemplate.find(query, Message.class);
+    }
+
+    @Override
+    public int bulkReEncrypt(List<Message> originals, Map<String, String> reEncryptedContent, int targetKeyVersion) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Message.class);
+        int queued = 0;
+        for (Message original : originals) {
+            String content = reEncryptedContent.get(original.getId());
+            if (content == null) {
+                continue;
+            }
+            // Guard on the version and content read so a concurrent rotation or edit is never overwritten
+            Query query = new Query(Criteria.where("id").is(original.getId())
+                    .and("keyVersion").is(original.getKeyVersion())
+                    .and("content").is(original.getContent()));
+            bulk.updateOne(query, new Update()
+                    .set("content", content)
+                    .set("keyVersion", targetKeyVersion));
+            queued++;
+        }
+        return queued == 0 ? 0 : bulk.execute().getModifiedCount();
+    }
+}
@@ -0,0 +1,20 @@
+package com.legacykeep.chat.repository.mongo;
+
+import com.legacykeep.chat.entity.ReEncryptionJob;
+import com.legacykeep.chat.enums.ReEncryptionStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for room re-encryption jobs (MongoDB).
+ */
+@Repository
+public interface ReEncryptionJobRepository extends MongoRepository<ReEncryptionJob, Long>, ReEncryptionJobRepositoryCustom {
+
+    /**
+     * Find jobs by status
+     */
+    List<ReEncryptionJob> findByStatus(ReEncryptionStatus status);
+}
@@ -0,0 +1,33 @@
+package com.legacykeep.chat.repository.mongo;
+
+import com.legacykeep.chat.entity.ReEncryptionJob;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Custom repository fragment for conditional re-encryption job updates.
+ */
+public interface ReEncryptionJobRepositoryCustom {
+
+    /**
+     * Atomically start a fresh job for a room unless one is already running; empty if one is
+     */
+    Optional<ReEncryptionJob> startIfNotRunning(Long chatRoomId, int targetKeyVersion, Long startedByUserId, LocalDateTime now);
+
+    /**
+     * Take or renew the lease on a running job; empty if the job is not running or another owner holds the lease
+     */
+    Optional<ReEncryptionJob> acquireLease(Long chatRoomId, String ownerId, LocalDateTime now, LocalDateTime leaseUntil);
+
+    /**
+     * Record a processed batch while still holding the lease, completing the job when done; false if the lease was lost
+     */
+    boolean checkpoint(Long chatRoomId, String ownerId, int targetKeyVersion, String lastMessageId,
+                       long processedDelta, long failedDelta, boolean completed, LocalDateTime now);
+
+    /**
+     * Mark a running job failed while still holding the lease
+     */
+    void markFailed(Long chatRoomId, String ownerId, String lastError, LocalDateTime now);
+}
@@ -0,0 +1,107 @@
+package com.legacykeep.chat.repository.mongo;
+
+import com.legacykeep.chat.entity.ReEncryptionJob;
+import com.legacykeep.chat.enums.ReEncryptionStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * MongoTemplate-backed implementation of ReEncryptionJobRepositoryCustom.
+ * Every write is a targeted update conditioned on the job's status or lease,
+ * so concurrent starts and workers on different instances never overwrite
+ * each other's progress.
+ */
+@RequiredArgsConstructor
+public class ReEncryptionJobRepositoryCustomImpl implements ReEncryptionJobRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<ReEncryptionJob> startIfNotRunning(Long chatRoomId, int targetKeyVersion, Long startedByUserId,
+                                                       LocalDateTime now) {
+        Query query = Query.query(Criteria.where("chatRoomId").is(chatRoomId)
+                .and("status").ne(ReEncryptionStatus.RUNNING));
+        Update update = new Update()
+                .set("targetKeyVersion", targetKeyVersion)
+                .set("status", ReEncryptionStatus.RUNNING)
+                .set("startedByUserId", startedByUserId)
+                .set("processedMessages", 0L)
+                .set("failedMessages", 0L)
+                .set("startedAt", now)
+                .set("updatedAt", now)
+                .unset("lastMessageId")
+                .unset("lastError")
+                .unset("completedAt")
+                .unset("ownerId")
+                .unset("leaseUntil");
+        try {
+            return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), ReEncryptionJob.class));
+        } catch (DuplicateKeyException e) {
+            // The upsert collided with the running job's _id
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<ReEncryptionJob> acquireLease(Long chatRoomId, String ownerId, LocalDateTime now,
+                                                  LocalDateTime leaseUntil) {
+        Query query = Query.query(Criteria.where("chatRoomId").is(chatRoomId)
+                .and("status").is(ReEncryptionStatus.RUNNING)
+                .orOperator(Criteria.where("ownerId").is(ownerId),
+                        Criteria.where("ownerId").is(null),
+                        Criteria.where("leaseUntil").lt(now)));
+        Update update = new Update()
+                .set("ownerId", ownerId)
+                .set("leaseUntil", leaseUntil);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), ReEncryptionJob.class));
+    }
+
+    @Override
+    public boolean checkpoint(Long chatRoomId, String ownerId, int targetKeyVersion, String lastMessageId,
+                              long processedDelta, long failedDelta, boolean completed, LocalDateTime now) {
+        Update update = new Update()
+                .set("targetKeyVersion", targetKeyVersion)
+                .inc("processedMessages", processedDelta)
+                .inc("failedMessages", failedDelta)
+                .set("updatedAt", now);
+        if (lastMessageId != null) {
+            update.set("lastMessageId", lastMessageId);
+        } else {
+            update.unset("lastMessageId");
+        }
+        if (completed) {
+            update.set("status", ReEncryptionStatus.COMPLETED)
+                    .set("completedAt", now)
+                    .unset("ownerId")
+                    .unset("leaseUntil");
+        }
+        return mongoTemplate.updateFirst(ownedQuery(chatRoomId, ownerId), update, ReEncryptionJob.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public void markFailed(Long chatRoomId, String ownerId, String lastError, LocalDateTime now) {
+        mongoTemplate.updateFirst(ownedQuery(chatRoomId, ownerId), new Update()
+                .set("status", ReEncryptionStatus.FAILED)
+                .set("lastError", lastError)
+                .set("updatedAt", now)
+                .unset("ownerId")
+                .unset("leaseUntil"), ReEncryptionJob.class);
+    }
+
+    private static Query ownedQuery(Long chatRoomId, String ownerId) {
+        return Query.query(Criteria.where("chatRoomId").is(chatRoomId)
+                .and("status").is(ReEncryptionStatus.RUNNING)
+                .and("ownerId").is(ownerId));
+    }
+}
@@ -0,0 +1,17 @@
+package com.legacykeep.chat.repository.mongo;
+
+import com.legacykeep.chat.entity.UserMessageStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for UserMessageStats rollup documents (MongoDB).
+ */
+@Repository
+public interface UserMessageStatsRepository extends MongoRepository<UserMessageStats, Long>, UserMessageStatsRepositoryCustom {
+
+    /**
+     * Check if any rollup has been written by a rebuild
+     */
+    boolean existsByRebuiltAtIsNotNull();
+}
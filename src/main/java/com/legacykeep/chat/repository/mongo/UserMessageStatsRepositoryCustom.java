@@ -0,0 +1,49 @@
+package com.legacykeep.chat.repository.mongo;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Custom repository fragment for atomic UserMessageStats updates.
+ * Counter keys are UserMessageStats property names.
+ */
+public interface UserMessageStatsRepositoryCustom {
+
+    /**
+     * Mark a change to a user's messages as in flight before it is saved, creating the rollup if missing
+     */
+    void markChangePending(Long userId, String changeId);
+
+    /**
+     * Atomically apply counter deltas to a user's rollup, creating it if missing, and clear the
+     * change's in-flight mark (a null changeId clears nothing)
+     */
+    void incrementCounters(Long userId, String changeId, Map<String, Long> deltas);
+
+    /**
+     * Clear a change's in-flight mark without counting it, for a change that was never saved
+     */
+    void clearChangePending(Long userId, String changeId);
+
+    /**
+     * Get the current version of each existing rollup among the given users
+     */
+    Map<Long, Long> findVersions(Collection<Long> userIds);
+
+    /**
+     * Overwrite rollups with recomputed counters in one unordered bulk write, skipping any rollup
+     * whose version moved away from the expected one (a missing expected version means version 0)
+     * or that has a change marked in flight since staleBefore. Older marks are dropped as abandoned.
+     * Returns the users whose rollup was not overwritten.
+     */
+    Set<Long> replaceCountersIfUnchanged(Map<Long, Map<String, Long>> countersByUser,
+                                         Map<Long, Long> expectedVersions, LocalDateTime rebuiltAt,
+                                         LocalDateTime staleBefore);
+
+    /**
+     * Remove rollups that were neither rebuilt nor incremented since the rebuild started
+     */
+    long deleteNotRebuiltSince(LocalDateTime rebuildStartedAt);
+}
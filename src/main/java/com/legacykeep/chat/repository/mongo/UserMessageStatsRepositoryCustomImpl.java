@@ -0,0 +1,118 @@
+package com.legacykeep.chat.repository.mongo;
+
+import com.legacykeep.chat.entity.UserMessageStats;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MongoTemplate-backed implementation of UserMessageStatsRepositoryCustom.
+ */
+@RequiredArgsConstructor
+public class UserMessageStatsRepositoryCustomImpl implements UserMessageStatsRepositoryCustom {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void markChangePending(Long userId, String changeId) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update().set("updatedAt", now)
+                .push("inFlight", new UserMessageStats.PendingChange(changeId, now));
+        mongoTemplate.upsert(Query.query(Criteria.where("userId").is(userId)), update, UserMessageStats.class);
+    }
+
+    @Override
+    public void incrementCounters(Long userId, String changeId, Map<String, Long> deltas) {
+        Update update = new Update().set("updatedAt", LocalDateTime.now()).inc("version", 1);
+        deltas.forEach((counter, delta) -> {
+            if (delta != 0) {
+                update.inc(counter, delta);
+            }
+        });
+        if (changeId != null) {
+            update.pull("inFlight", new Document("change_id", changeId));
+        }
+        mongoTemplate.upsert(Query.query(Criteria.where("userId").is(userId)), update, UserMessageStats.class);
+    }
+
+    @Override
+    public void clearChangePending(Long userId, String changeId) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("userId").is(userId)),
+                new Update().pull("inFlight", new Document("change_id", changeId)), UserMessageStats.class);
+    }
+
+    @Override
+    public Map<Long, Long> findVersions(Collection<Long> userIds) {
+        Query query = Query.query(Criteria.where("userId").in(userIds));
+        query.fields().include("version");
+        Map<Long, Long> versions = new HashMap<>();
+        mongoTemplate.find(query, UserMessageStats.class)
+                .forEach(stats -> versions.put(stats.getUserId(), stats.getVersion()));
+        return versions;
+    }
+
+    @Override
+    public Set<Long> replaceCountersIfUnchanged(Map<Long, Map<String, Long>> countersByUser,
+                                                Map<Long, Long> expectedVersions, LocalDateTime rebuiltAt,
+                                                LocalDateTime staleBefore) {
+        if (countersByUser.isEmpty()) {
+            return Set.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserMessageStats.class);
+        countersByUser.forEach((userId, counters) -> {
+            long expected = expectedVersions.getOrDefault(userId, 0L);
+            // Version 0 also matches a missing rollup (upserted) or one written before versions existed
+            Criteria unchanged = expected == 0
+                    ? Criteria.where("version").in(0L, null)
+                    : Criteria.where("version").is(expected);
+            // A change marked in flight may already be in the recount while its increment is still to come
+            Criteria settled = Criteria.where("inFlight").not().elemMatch(Criteria.where("at").gte(staleBefore));
+            Update update = new Update()
+                    .set("updatedAt", LocalDateTime.now())
+                    .set("rebuiltAt", rebuiltAt)
+                    .unset("inFlight")
+                    .inc("version", 1);
+            counters.forEach(update::set);
+            bulk.upsert(Query.query(Criteria.where("userId").is(userId).andOperator(unchanged, settled)), update);
+        });
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            // A rollup that changed or is busy fails its upsert with a duplicate key and is retried by the caller
+            if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw e;
+            }
+        }
+
+        Query written = Query.query(Criteria.where("userId").in(countersByUser.keySet()).and("rebuiltAt").is(rebuiltAt));
+        written.fields().include("userId");
+        Set<Long> skipped = new HashSet<>(countersByUser.keySet());
+        mongoTemplate.find(written, UserMessageStats.class).forEach(stats -> skipped.remove(stats.getUserId()));
+        return skipped;
+    }
+
+    @Override
+    public long deleteNotRebuiltSince(LocalDateTime rebuildStartedAt) {
+        // Rollups incremented while the rebuild was running are kept
+        Query stale = Query.query(new Criteria().andOperator(
+                Criteria.where("updatedAt").lt(rebuildStartedAt),
+                new Criteria().orOperator(
+                        Criteria.where("rebuiltAt").exists(false),
+                        Criteria.where("rebuiltAt").lt(rebuildStartedAt))));
+        return mongoTemplate.remove(stale, UserMessageStats.class).getDeletedCount();
+    }
+}
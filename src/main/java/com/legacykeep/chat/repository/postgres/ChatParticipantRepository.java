@@ -6,6 +6,7 @@ import com.legacykeep.chat.enums.ParticipantStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -92,6 +93,12 @@ public interface ChatParticipantRepository extends JpaRepository<ChatParticipant
     @Query("SELECT cp FROM ChatParticipant cp WHERE cp.chatRoomId = :chatRoomId AND cp.status = 'ACTIVE'")
     List<ChatParticipant> findActiveParticipantsInRoom(@Param("chatRoomId") Long chatRoomId);
 
+    /**
+     * Find the user IDs of active participants in a chat room
+     */
+    @Query("SELECT cp.userId FROM ChatParticipant cp WHERE cp.chatRoomId = :chatRoomId AND cp.status = 'ACTIVE'")
+    List<Long> findActiveUserIdsInRoom(@Param("chatRoomId") Long chatRoomId);
+
     /**
      * Find active participants in a chat room with pagination
      */
@@ -272,4 +279,17 @@ public interface ChatParticipantRepository extends JpaRepository<ChatParticipant
      * Find participants who left after a specific date
      */
     List<ChatParticipant> findByLeftAtAfter(LocalDateTime leftAt);
+
+    /**
+     * Advance a participant's read watermark; never moves it backwards
+     */
+    @Modifying
+    @Query("UPDATE ChatParticipant cp SET cp.lastReadAt = :lastReadAt, cp.lastReadMessageId = :lastReadMessageId, " +
+           "cp.unreadCount = 0, cp.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE cp.chatRoomId = :chatRoomId AND cp.userId = :userId " +
+           "AND (cp.lastReadAt IS NULL OR cp.lastReadAt < :lastReadAt)")
+    int advanceReadWatermark(@Param("chatRoomId") Long chatRoomId,
+                             @Param("userId") Long userId,
+                             @Param("lastReadAt") LocalDateTime lastReadAt,
+                             @Param("lastReadMessageId") String lastReadMessageId);
 }
@@ -0,0 +1,43 @@
+package com.legacykeep.chat.repository.postgres;
+
+import com.legacykeep.chat.entity.ChatRoomKeyAccess;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for ChatRoomKeyAccess entity.
+ * Provides data access methods for chat room key access grants.
+ */
+@Repository
+public interface ChatRoomKeyAccessRepository extends JpaRepository<ChatRoomKeyAccess, Long> {
+
+    /**
+     * Find the user IDs with key access to a chat room
+     */
+    @Query("SELECT a.userId FROM ChatRoomKeyAccess a WHERE a.chatRoomId = :chatRoomId")
+    List<Long> findUserIdsByChatRoomId(@Param("chatRoomId") Long chatRoomId);
+
+    /**
+     * Check if a user has key access to a chat room
+     */
+    boolean existsByChatRoomIdAndUserId(Long chatRoomId, Long userId);
+
+    /**
+     * Remove a user's key access to a chat room
+     */
+    @Modifying
+    @Query("DELETE FROM ChatRoomKeyAccess a WHERE a.chatRoomId = :chatRoomId AND a.userId = :userId")
+    int deleteByChatRoomIdAndUserId(@Param("chatRoomId") Long chatRoomId, @Param("userId") Long userId);
+
+    /**
+     * Remove all key access to a chat room
+     */
+    @Modifying
+    @Query("DELETE FROM ChatRoomKeyAccess a WHERE a.chatRoomId = :chatRoomId")
+    int deleteByChatRoomId(@Param("chatRoomId") Long chatRoomId);
+}
@@ -0,0 +1,53 @@
+package com.legacykeep.chat.repository.postgres;
+
+import com.legacykeep.chat.entity.ChatRoom;
+import com.legacykeep.chat.entity.ChatRoomKey;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository interface for ChatRoomKey entity.
+ * Provides data access methods for versioned chat room keys.
+ */
+@Repository
+public interface ChatRoomKeyRepository extends JpaRepository<ChatRoomKey, Long> {
+
+    /**
+     * Find a specific key version of a chat room
+     */
+    Optional<ChatRoomKey> findByChatRoomIdAndKeyVersion(Long chatRoomId, Integer keyVersion);
+
+    /**
+     * Find the active key of a chat room
+     */
+    Optional<ChatRoomKey> findFirstByChatRoomIdAndIsActiveTrueOrderByKeyVersionDesc(Long chatRoomId);
+
+    /**
+     * Find the highest key version of a chat room, active or retired
+     */
+    @Query("SELECT MAX(k.keyVersion) FROM ChatRoomKey k WHERE k.chatRoomId = :chatRoomId")
+    Optional<Integer> findLatestKeyVersion(@Param("chatRoomId") Long chatRoomId);
+
+    /**
+     * Lock the chat room row until the end of the transaction, serializing key rotations of the room
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ChatRoom c WHERE c.id = :chatRoomId")
+    Optional<ChatRoom> lockChatRoom(@Param("chatRoomId") Long chatRoomId);
+
+    /**
+     * Retire the active key of a chat room
+     */
+    @Modifying
+    @Query("UPDATE ChatRoomKey k SET k.isActive = false, k.retiredAt = :retiredAt " +
+           "WHERE k.chatRoomId = :chatRoomId AND k.isActive = true")
+    int retireActiveKeys(@Param("chatRoomId") Long chatRoomId, @Param("retiredAt") LocalDateTime retiredAt);
+}
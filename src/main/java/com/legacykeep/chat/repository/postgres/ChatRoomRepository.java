@@ -6,6 +6,7 @@ import com.legacykeep.chat.enums.ChatRoomType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -200,4 +201,23 @@ public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
      */
     @Query("SELECT cr FROM ChatRoom cr WHERE cr.lastMessageAt IS NULL OR cr.lastMessageAt < :before")
     List<ChatRoom> findInactiveChatRooms(@Param("before") LocalDateTime before);
+
+    /**
+     * Apply a coalesced batch of message activity to a chat room in one statement.
+     * The counter is incremented in place and last message info only moves forward in time.
+     */
+    @Modifying
+    @Query("UPDATE ChatRoom cr SET cr.messageCount = cr.messageCount + :delta, " +
+           "cr.lastMessageId = CASE WHEN cr.lastMessageAt IS NULL OR cr.lastMessageAt <= :lastMessageAt " +
+           "THEN :lastMessageId ELSE cr.lastMessageId END, " +
+           "cr.lastMessageByUserId = CASE WHEN cr.lastMessageAt IS NULL OR cr.lastMessageAt <= :lastMessageAt " +
+           "THEN :lastMessageByUserId ELSE cr.lastMessageByUserId END, " +
+           "cr.lastMessageAt = CASE WHEN cr.lastMessageAt IS NULL OR cr.lastMessageAt <= :lastMessageAt " +
+           "THEN :lastMessageAt ELSE cr.lastMessageAt END " +
+           "WHERE cr.id = :chatRoomId")
+    int applyMessageActivity(@Param("chatRoomId") Long chatRoomId,
+                             @Param("delta") long delta,
+                             @Param("lastMessageId") String lastMessageId,
+                             @Param("lastMessageByUserId") Long lastMessageByUserId,
+                             @Param("lastMessageAt") LocalDateTime lastMessageAt);
 }
@@ -8,6 +8,7 @@ import com.legacykeep.chat.enums.ChatRoomType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -181,6 +182,11 @@ public interface ChatRoomService {
      */
     void updateLastMessageInfo(Long chatRoomId, String messageId, Long senderUserId);
 
+    /**
+     * Update last message info for chat room using the message's own timestamp
+     */
+    void updateLastMessageInfo(Long chatRoomId, String messageId, Long senderUserId, LocalDateTime messageAt);
+
     /**
      * Increment message count for chat room
      */
@@ -3,7 +3,9 @@ package com.legacykeep.chat.service;
 import com.legacykeep.chat.dto.request.AddFilterRequest;
 import com.legacykeep.chat.dto.response.FilterResponse;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service interface for content filtering operations.
@@ -87,6 +89,12 @@ public interface ContentFilterService {
      */
     boolean shouldFilterMessage(Long senderUserId, Long receiverUserId, Long roomId, String content);
     
+    /**
+     * Get the recipients who must receive a filtered variant of a message,
+     * loading filters for all recipients with one query per scope
+     */
+    Set<Long> getFilteredRecipients(Long senderUserId, Long roomId, String content, Collection<Long> recipientUserIds);
+    
     /**
      * Get all applicable filters for a message
      */
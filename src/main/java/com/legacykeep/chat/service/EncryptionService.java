@@ -5,6 +5,9 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Base64;
@@ -17,6 +20,7 @@ import java.util.Base64;
  * - Random IV generation for each encryption operation
  * - Base64 encoding for safe storage and transmission
  * - Key generation and management
+ * - Streaming chunked encryption for media files
  * 
  * @author LegacyKeep Team
  * @version 1.0.0
@@ -49,6 +53,64 @@ public interface EncryptionService {
      */
     String decryptMessage(String encryptedMessage, String encryptionKey);
     
+    /**
+     * Encrypt a message with a chat room key, reusing the key decoded for that room and key version
+     * 
+     * @param plaintext The message content to encrypt
+     * @param encryptionKey Base64 encoded encryption key
+     * @param chatRoomId Room the key belongs to
+     * @param keyVersion Version of the room key, or null to decode the key without caching it
+     * @return Encrypted message with IV prepended (Base64 encoded)
+     */
+    String encryptMessage(String plaintext, String encryptionKey, Long chatRoomId, Integer keyVersion);
+    
+    /**
+     * Decrypt a message with a chat room key, reusing the key decoded for that room and key version
+     * 
+     * @param encryptedMessage Encrypted message with IV prepended (Base64 encoded)
+     * @param encryptionKey Base64 encoded encryption key
+     * @param chatRoomId Room the key belongs to
+     * @param keyVersion Version of the room key, or null to decode the key without caching it
+     * @return Decrypted plaintext message
+     * @throws IllegalArgumentException if decryption fails
+     */
+    String decryptMessage(String encryptedMessage, String encryptionKey, Long chatRoomId, Integer keyVersion);
+    
+    /**
+     * Encrypt a media stream in fixed-size authenticated chunks.
+     * Memory use is bounded by the chunk size, independent of the stream length.
+     * 
+     * @param source Plaintext channel, read to end of stream
+     * @param target Channel receiving the stream header and encrypted chunks
+     * @param encryptionKey Base64 encoded encryption key
+     * @return Number of bytes written to the target
+     * @throws IOException if reading or writing a channel fails
+     */
+    long encryptStream(ReadableByteChannel source, WritableByteChannel target, String encryptionKey) throws IOException;
+    
+    /**
+     * Decrypt a media stream written by encryptStream.
+     * Chunks are verified as they are read, so plaintext already written to the
+     * target must be discarded if this method throws. Streams whose chunk size is
+     * above the configured media chunk size are rejected before any buffer is allocated.
+     * 
+     * @param source Encrypted channel, read to end of stream
+     * @param target Channel receiving the plaintext
+     * @param encryptionKey Base64 encoded encryption key
+     * @return Number of plaintext bytes written to the target
+     * @throws IOException if reading or writing a channel fails
+     * @throws IllegalArgumentException if the stream is malformed, truncated or tampered with
+     */
+    long decryptStream(ReadableByteChannel source, WritableByteChannel target, String encryptionKey) throws IOException;
+    
+    /**
+     * Get the encrypted size of a media stream of the given plaintext size
+     * 
+     * @param plaintextSize Plaintext size in bytes
+     * @return Size of the stream written by encryptStream
+     */
+    long getEncryptedStreamSize(long plaintextSize);
+    
     /**
      * Validate if a string is a valid encryption key
      * 
@@ -36,7 +36,35 @@ public interface KeyManagementService {
     Optional<String> getChatRoomKey(Long chatRoomId, Long userId);
     
     /**
-     * Rotate the encryption key for a chat room
+     * Get a specific version of the encryption key for a chat room
+     * 
+     * @param chatRoomId The ID of the chat room
+     * @param keyVersion The key version, or null for the current key
+     * @param userId The user ID requesting the key
+     * @return Optional containing the encryption key if the version exists and user has access
+     */
+    Optional<String> getChatRoomKey(Long chatRoomId, Integer keyVersion, Long userId);
+    
+    /**
+     * Get the current encryption key for a chat room together with its version
+     * 
+     * @param chatRoomId The ID of the chat room
+     * @param userId The user ID requesting the key
+     * @return Optional containing the current key if one exists and user has access
+     */
+    Optional<VersionedKey> getCurrentChatRoomKey(Long chatRoomId, Long userId);
+    
+    /**
+     * Check if a chat room has an active encryption key
+     * 
+     * @param chatRoomId The ID of the chat room
+     * @return true if the room has an active key
+     */
+    boolean hasChatRoomKey(Long chatRoomId);
+    
+    /**
+     * Rotate the encryption key for a chat room.
+     * The previous key version is retired but stays readable.
      * 
      * @param chatRoomId The ID of the chat room
      * @param rotatedByUserId The user ID who initiated the rotation
@@ -89,4 +117,22 @@ public interface KeyManagementService {
      * @return true if successful, false otherwise
      */
     boolean revokeAllKeyAccess(Long chatRoomId, Long revokedByUserId);
+    
+    /**
+     * An encryption key together with the room key version it belongs to
+     */
+    class VersionedKey {
+        private final int version;
+        private final String key;
+        
+        public VersionedKey(int version, String key) {
+            this.version = version;
+            this.key = key;
+        }
+        
+        // Getters
+        public int getVersion() { return version; }
+        
+        public String getKey() { return key; }
+    }
 }
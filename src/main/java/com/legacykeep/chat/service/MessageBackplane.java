@@ -0,0 +1,26 @@
+package com.legacykeep.chat.service;
+
+import java.util.Set;
+
+/**
+ * Fan-out backplane for WebSocket destinations.
+ * Publishing delivers a payload to the destination's subscribers on every node;
+ * each node receives the event once and fans it out to its own sessions.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+public interface MessageBackplane {
+
+    /**
+     * Publish a payload to a broker destination on all nodes
+     */
+    default void publish(String destination, Object payload) {
+        publish(destination, payload, Set.of());
+    }
+
+    /**
+     * Publish a payload to a broker destination on all nodes, withheld from the sessions of the given users
+     */
+    void publish(String destination, Object payload, Set<Long> excludedUserIds);
+}
@@ -0,0 +1,24 @@
+package com.legacykeep.chat.service;
+
+import com.legacykeep.chat.entity.ReEncryptionJob;
+
+import java.util.Optional;
+
+/**
+ * Service interface for re-encrypting a room's stored messages after a key rotation.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+public interface MessageReEncryptionService {
+
+    /**
+     * Start (or restart) moving a room's messages to its current key version in the background
+     */
+    ReEncryptionJob startReEncryption(Long chatRoomId, Long userId);
+
+    /**
+     * Get the re-encryption job for a room
+     */
+    Optional<ReEncryptionJob> getJob(Long chatRoomId);
+}
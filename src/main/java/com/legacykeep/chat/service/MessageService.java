@@ -48,6 +48,12 @@ public interface MessageService {
      */
     Optional<Message> getMessageByIdWithDecryption(String id, Long userId);
 
+    /**
+     * Decrypt a page of messages for a user, resolving each room key once.
+     * Messages the user cannot decrypt keep their stored content.
+     */
+    List<DecryptedMessage> decryptPage(List<Message> messages, Long userId);
+
     /**
      * Get message by UUID
      */
@@ -98,6 +104,11 @@ public interface MessageService {
      */
     void markMessagesAsReadInRoom(Long chatRoomId, Long userId);
 
+    /**
+     * Get the number of unread messages in a chat room for a user, derived from the read watermark
+     */
+    long getUnreadCount(Long chatRoomId, Long userId);
+
     /**
      * Get messages in a chat room
      */
@@ -118,6 +129,12 @@ public interface MessageService {
      */
     List<Message> getMessagesAfter(Long chatRoomId, String messageId, int limit);
 
+    /**
+     * Get a page of room history, newest first, starting after an opaque cursor
+     * (null cursor for the newest page)
+     */
+    MessageHistoryPage getRoomHistory(Long chatRoomId, String cursor, int limit);
+
     /**
      * Get messages by sender
      */
@@ -491,14 +508,64 @@ public interface MessageService {
         public void setEventMessages(long eventMessages) { this.eventMessages = eventMessages; }
     }
 
+    /**
+     * Keyset-paginated room history page
+     */
+    class MessageHistoryPage {
+        private List<Message> messages;
+        private String nextCursor;
+        private boolean hasMore;
+
+        // Constructors
+        public MessageHistoryPage() {}
+
+        public MessageHistoryPage(List<Message> messages, String nextCursor, boolean hasMore) {
+            this.messages = messages;
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+        }
+
+        // Getters and Setters
+        public List<Message> getMessages() { return messages; }
+        public void setMessages(List<Message> messages) { this.messages = messages; }
+
+        public String getNextCursor() { return nextCursor; }
+        public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+        public boolean isHasMore() { return hasMore; }
+        public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+    }
+
+    /**
+     * Read-only view of a message with its content decrypted for one user
+     */
+    class DecryptedMessage {
+        private final Message message;
+        private final String content;
+        private final boolean decrypted;
+
+        public DecryptedMessage(Message message, String content, boolean decrypted) {
+            this.message = message;
+            this.content = content;
+            this.decrypted = decrypted;
+        }
+
+        // Getters
+        public Message getMessage() { return message; }
+
+        public String getContent() { return content; }
+
+        public boolean isDecrypted() { return decrypted; }
+    }
+
     /**
      * Check if a message would be filtered for a specific user
      */
     boolean wouldMessageBeFiltered(Long senderUserId, Long receiverUserId, Long roomId, String content);
 
     /**
-     * Send a message with content filtering applied
-     * Returns null if message is filtered, otherwise returns the sent message
+     * Send a message with content filtering applied per recipient.
+     * Recipients whose filters match receive a variant with the content withheld.
      */
     Message sendMessageWithFiltering(SendMessageRequest request);
 
@@ -0,0 +1,50 @@
+package com.legacykeep.chat.service;
+
+import com.legacykeep.chat.dto.response.MailboxSyncResponse;
+import com.legacykeep.chat.entity.Message;
+import com.legacykeep.chat.enums.MailboxEventType;
+
+import java.util.Set;
+
+/**
+ * Service interface for per-user delivery mailboxes.
+ * Every delivered message and every later change to messages and rooms is
+ * recorded for the affected users under a sequence number, so a client can
+ * fetch everything that changed since its cursor in one call.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+public interface UserMailboxService {
+
+    /**
+     * Record a room message for the room's active participants other than the excluded ones,
+     * returns the cursor its recipients may resume from or null if nobody receives it
+     */
+    Long recordRoomMessage(Long chatRoomId, Message message, Set<Long> excludedUserIds);
+
+    /**
+     * Record a message delivered directly to one user, returns the cursor the user may resume from
+     */
+    Long recordUserMessage(Long userId, Message message);
+
+    /**
+     * Record a change to a room or one of its messages for the room's active participants
+     */
+    void recordRoomChange(Long chatRoomId, MailboxEventType eventType, String messageId, Long actorUserId);
+
+    /**
+     * Record a single-message read receipt for the message's sender and the reader's other sessions only
+     */
+    void recordReadReceipt(Long chatRoomId, String messageId, Long senderUserId, Long readerUserId);
+
+    /**
+     * Record a change visible to one user only, such as a delete for that user
+     */
+    void recordUserChange(Long userId, Long chatRoomId, MailboxEventType eventType, String messageId);
+
+    /**
+     * Get the compacted changes for a user after a sequence number
+     */
+    MailboxSyncResponse sync(Long userId, long lastSeq);
+}
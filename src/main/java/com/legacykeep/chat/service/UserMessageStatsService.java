@@ -0,0 +1,66 @@
+package com.legacykeep.chat.service;
+
+import com.legacykeep.chat.entity.Message;
+
+import java.util.Map;
+
+/**
+ * Service interface for the incrementally maintained per-user message statistics rollup.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+public interface UserMessageStatsService {
+
+    /**
+     * Compute the counter contribution of a single message (all zero for deleted messages)
+     */
+    Map<String, Long> countersOf(Message message);
+
+    /**
+     * Mark a change to a sender's messages as in flight before it is saved, so a concurrent rebuild
+     * cannot count it twice. Returns the change id to record it with, or null for no sender.
+     */
+    String beginChange(Long senderUserId);
+
+    /**
+     * Drop a change that was begun but never saved
+     */
+    void cancelChange(Long senderUserId, String changeId);
+
+    /**
+     * Record a newly sent message against its sender's rollup
+     */
+    void recordSent(String changeId, Message message);
+
+    /**
+     * Record a change to a message given its counters before the change
+     */
+    void recordChange(String changeId, Map<String, Long> before, Message after);
+
+    /**
+     * Record a star toggle given the message state after the toggle
+     */
+    void recordStarToggle(String changeId, Message after);
+
+    /**
+     * Record a message that is being removed permanently
+     */
+    void recordRemoved(String changeId, Message message);
+
+    /**
+     * Get the rollup statistics for a user in O(1)
+     */
+    MessageService.MessageStats getStatsForUser(Long userId);
+
+    /**
+     * Start a background rebuild of all rollups from the messages collection.
+     * Returns false if a rebuild is already running.
+     */
+    boolean startRebuild();
+
+    /**
+     * Check if a rebuild is currently running
+     */
+    boolean isRebuildRunning();
+}
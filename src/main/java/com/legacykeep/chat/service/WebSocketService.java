@@ -5,6 +5,7 @@ import com.legacykeep.chat.enums.MessageType;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Service interface for WebSocket operations.
@@ -16,17 +17,22 @@ import java.util.Map;
 public interface WebSocketService {
 
     /**
-     * Send message to chat room subscribers
+     * Send message to chat room subscribers, recording it in each participant's mailbox
      */
     void sendMessageToRoom(Long chatRoomId, Message message);
 
     /**
-     * Send message to specific user
+     * Send message to chat room subscribers except the given users, recording it for every other participant
+     */
+    void sendMessageToRoom(Long chatRoomId, Message message, Set<Long> excludedUserIds);
+
+    /**
+     * Send message to specific user, recording it in the user's mailbox
      */
     void sendMessageToUser(Long userId, Message message);
 
     /**
-     * Send typing indicator to chat room
+     * Send typing indicator to chat room (coalesced into one snapshot per window)
      */
     void sendTypingIndicator(Long chatRoomId, Long userId, boolean isTyping);
 
@@ -41,12 +47,12 @@ public interface WebSocketService {
     void sendReadReceipt(String messageId, Long userId);
 
     /**
-     * Send user online status
+     * Send user online status (coalesced, unchanged status is not resent)
      */
     void sendUserOnlineStatus(Long userId, boolean isOnline);
 
     /**
-     * Send user away status
+     * Send user away status (coalesced, unchanged status is not resent)
      */
     void sendUserAwayStatus(Long userId, boolean isAway);
 
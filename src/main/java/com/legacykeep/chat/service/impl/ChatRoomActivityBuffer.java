@@ -0,0 +1,167 @@
+package com.legacykeep.chat.service.impl;
+
+import com.legacykeep.chat.repository.postgres.ChatRoomRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for chat room message activity.
+ * Coalesces message count deltas and the latest message info per room in memory
+ * and flushes them to chat_rooms periodically, one atomic UPDATE per dirty room
+ * in its own transaction. A room whose update fails is re-queued on its own and
+ * dropped with an error after a bounded number of attempts, so it cannot hold
+ * back the other rooms. A flushed room's cached snapshot is invalidated once
+ * its update commits. Pending activity is also flushed on shutdown.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatRoomActivityBuffer {
+
+    private final ChatRoomRepository chatRoomRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ChatRoomCache chatRoomCache;
+
+    @Value("${chat.room-activity.max-flush-attempts:5}")
+    private int maxFlushAttempts;
+
+    private final Map<Long, PendingActivity> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Record message count delta for a chat room
+     */
+    public void recordMessageCount(Long chatRoomId, long delta) {
+        pending.compute(chatRoomId, (id, activity) -> {
+            PendingActivity current = activity != null ? activity : new PendingActivity();
+            current.delta += delta;
+            return current;
+        });
+    }
+
+    /**
+     * Record the latest message for a chat room, keeping only the newest one
+     */
+    public void recordLastMessage(Long chatRoomId, String messageId, Long senderUserId, LocalDateTime messageAt) {
+        pending.compute(chatRoomId, (id, activity) -> {
+            PendingActivity current = activity != null ? activity : new PendingActivity();
+            current.mergeLastMessage(messageId, senderUserId, messageAt);
+            return current;
+        });
+    }
+
+    /**
+     * Get the number of rooms with unflushed activity
+     */
+    public int getPendingRoomCount() {
+        return pending.size();
+    }
+
+    /**
+     * Flush coalesced activity to the database
+     */
+    @Scheduled(fixedDelayString = "${chat.room-activity.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<Long, PendingActivity>> batch = new ArrayList<>();
+        for (Long chatRoomId : pending.keySet()) {
+            PendingActivity activity = pending.remove(chatRoomId);
+            if (activity != null) {
+                batch.add(Map.entry(chatRoomId, activity));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int flushed = 0;
+        for (Map.Entry<Long, PendingActivity> entry : batch) {
+            if (flushRoom(transactionTemplate, entry.getKey(), entry.getValue())) {
+                flushed++;
+            }
+        }
+        log.debug("Flushed message activity for {} of {} chat rooms", flushed, batch.size());
+    }
+
+    /**
+     * Apply one room's activity in its own transaction, re-queueing it on failure until it runs out of attempts
+     */
+    private boolean flushRoom(TransactionTemplate transactionTemplate, Long chatRoomId, PendingActivity activity) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int updated = chatRoomRepository.applyMessageActivity(chatRoomId, activity.delta,
+                        activity.lastMessageId, activity.lastMessageByUserId, activity.lastMessageAt);
+                if (updated == 0) {
+                    log.warn("Dropped message activity for missing chat room: {}", chatRoomId);
+                }
+            });
+            chatRoomCache.invalidate(chatRoomId);
+            return true;
+        } catch (Exception e) {
+            activity.attempts++;
+            if (activity.attempts >= maxFlushAttempts) {
+                log.error("Dropping message activity for chat room {} after {} failed flushes (delta {}): {}",
+                        chatRoomId, activity.attempts, activity.delta, e.getMessage(), e);
+                return false;
+            }
+            log.warn("Error flushing activity for chat room {}, re-queueing (attempt {} of {}): {}",
+                    chatRoomId, activity.attempts, maxFlushAttempts, e.getMessage());
+            pending.merge(chatRoomId, activity, PendingActivity::merge);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing pending chat room activity for {} rooms before shutdown", pending.size());
+        flush();
+    }
+
+    /**
+     * Coalesced activity for a single chat room. Only mutated inside map compute/merge,
+     * or by the flush that removed it from the map.
+     */
+    private static final class PendingActivity {
+        private long delta;
+        private String lastMessageId;
+        private Long lastMessageByUserId;
+        private LocalDateTime lastMessageAt;
+        private int attempts;
+
+        private void mergeLastMessage(String messageId, Long senderUserId, LocalDateTime messageAt) {
+            if (messageAt == null) {
+                return;
+            }
+            if (lastMessageAt == null || !messageAt.isBefore(lastMessageAt)) {
+                lastMessageId = messageId;
+                lastMessageByUserId = senderUserId;
+                lastMessageAt = messageAt;
+            }
+        }
+
+        private static PendingActivity merge(PendingActivity current, PendingActivity failed) {
+            current.delta += failed.delta;
+            current.mergeLastMessage(failed.lastMessageId, failed.lastMessageByUserId, failed.lastMessageAt);
+            current.attempts = Math.max(current.attempts, failed.attempts);
+            return current;
+        }
+    }
+}
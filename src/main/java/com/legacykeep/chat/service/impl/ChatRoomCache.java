@@ -0,0 +1,111 @@
+package com.legacykeep.chat.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.legacykeep.chat.entity.ChatRoom;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of ChatRoom snapshots keyed by id and by room UUID.
+ * Entries expire after a fixed TTL and are evicted by size; callers always
+ * receive a copy so cached snapshots cannot be mutated in place.
+ *
+ * Hit, miss and eviction counts are published as cache.* meters and are
+ * available under /actuator/metrics.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class ChatRoomCache {
+
+    private final Cache<Long, ChatRoom> roomsById;
+    private final Cache<UUID, Long> roomIdsByUuid;
+
+    public ChatRoomCache(MeterRegistry meterRegistry,
+                         @Value("${chat.room-cache.maximum-size:10000}") long maximumSize,
+                         @Value("${chat.room-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.roomsById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.roomIdsByUuid = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, roomsById, "chatRoomsById");
+        CaffeineCacheMetrics.monitor(meterRegistry, roomIdsByUuid, "chatRoomIdsByUuid");
+    }
+
+    /**
+     * Get a chat room by ID, loading and caching it on a miss
+     */
+    public Optional<ChatRoom> getById(Long id, Function<Long, Optional<ChatRoom>> loader) {
+        ChatRoom cached = roomsById.get(id, key -> loader.apply(key).map(this::snapshot).orElse(null));
+        if (cached != null && cached.getRoomUuid() != null) {
+            roomIdsByUuid.put(cached.getRoomUuid(), cached.getId());
+        }
+        return Optional.ofNullable(cached).map(this::snapshot);
+    }
+
+    /**
+     * Get a chat room by UUID, loading and caching it on a miss
+     */
+    public Optional<ChatRoom> getByUuid(UUID roomUuid, Function<UUID, Optional<ChatRoom>> loader) {
+        Long id = roomIdsByUuid.getIfPresent(roomUuid);
+        if (id != null) {
+            ChatRoom cached = roomsById.getIfPresent(id);
+            if (cached != null) {
+                return Optional.of(snapshot(cached));
+            }
+        }
+        Optional<ChatRoom> loaded = loader.apply(roomUuid);
+        loaded.ifPresent(chatRoom -> {
+            roomsById.put(chatRoom.getId(), snapshot(chatRoom));
+            roomIdsByUuid.put(roomUuid, chatRoom.getId());
+        });
+        return loaded.map(this::snapshot);
+    }
+
+    /**
+     * Invalidate a chat room now and again once the surrounding transaction commits,
+     * so a concurrent reader cannot re-populate the cache with pre-commit state
+     */
+    public void invalidate(Long id) {
+        evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(id);
+                }
+            });
+        }
+    }
+
+    private void evict(Long id) {
+        ChatRoom removed = roomsById.asMap().remove(id);
+        if (removed != null && removed.getRoomUuid() != null) {
+            roomIdsByUuid.invalidate(removed.getRoomUuid());
+        }
+        log.debug("Invalidated cached chat room: {}", id);
+    }
+
+    private ChatRoom snapshot(ChatRoom chatRoom) {
+        return chatRoom.toBuilder().build();
+    }
+}
@@ -0,0 +1,180 @@
+package com.legacykeep.chat.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded in-process cache in front of the persistent chat room key store.
+ * Key material is cached per (room, key version); versions are immutable once
+ * written, so entries only leave the cache by size or idle expiry. The current
+ * version of each room is invalidated when a key is rotated. Access lists are
+ * immutable primitive sets that are swapped for a changed copy after each
+ * committed grant or revoke.
+ *
+ * Invalidations and swaps only reach this instance, so current versions and
+ * access lists also expire a fixed time after they were loaded, regardless of
+ * reads or local swaps. A rotation or revoke made on another node is picked up
+ * here within that time.
+ *
+ * Nothing is preloaded: entries are loaded on first use.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class ChatRoomKeyCache {
+
+    private final Cache<KeyVersion, String> keys;
+    private final Cache<Long, Integer> currentVersions;
+    private final Cache<Long, LongAccessSet> accessLists;
+
+    public ChatRoomKeyCache(MeterRegistry meterRegistry,
+                            @Value("${chat.key-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${chat.key-cache.idle-minutes:60}") long idleMinutes,
+                            @Value("${chat.key-cache.shared-state-ttl-seconds:30}") long sharedStateTtlSeconds) {
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .recordStats()
+                .build();
+        this.currentVersions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(expireAfterLoad(Duration.ofSeconds(sharedStateTtlSeconds)))
+                .recordStats()
+                .build();
+        this.accessLists = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(expireAfterLoad(Duration.ofSeconds(sharedStateTtlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, keys, "chatRoomKeys");
+        CaffeineCacheMetrics.monitor(meterRegistry, currentVersions, "chatRoomKeyVersions");
+        CaffeineCacheMetrics.monitor(meterRegistry, accessLists, "chatRoomKeyAccess");
+    }
+
+    /**
+     * Get the key material of one key version, loading it on a miss; null if the version does not exist
+     */
+    public String getKey(Long chatRoomId, Integer keyVersion, Supplier<String> loader) {
+        return keys.get(new KeyVersion(chatRoomId, keyVersion), key -> loader.get());
+    }
+
+    /**
+     * Get the current key version of a room, loading it on a miss; null if the room has no active key
+     */
+    public Integer getCurrentVersion(Long chatRoomId, Supplier<Integer> loader) {
+        return currentVersions.get(chatRoomId, key -> loader.get());
+    }
+
+    /**
+     * Get the users with key access to a room, loading them on a miss.
+     * A hit is a plain lookup with no allocation.
+     */
+    public LongAccessSet getAccessList(Long chatRoomId, Function<Long, LongAccessSet> loader) {
+        LongAccessSet accessList = accessLists.getIfPresent(chatRoomId);
+        return accessList != null ? accessList : accessLists.get(chatRoomId, loader);
+    }
+
+    /**
+     * Invalidate the current key version of a room
+     */
+    public void invalidateCurrentVersion(Long chatRoomId) {
+        afterCommit(() -> currentVersions.invalidate(chatRoomId));
+        log.debug("Invalidated current key version for chat room: {}", chatRoomId);
+    }
+
+    /**
+     * Add a user to a room's cached access list once the surrounding transaction commits
+     */
+    public void grantAccess(Long chatRoomId, Long userId) {
+        swapAccessList(chatRoomId, accessList -> accessList.with(userId));
+    }
+
+    /**
+     * Remove a user from a room's cached access list once the surrounding transaction commits
+     */
+    public void revokeAccess(Long chatRoomId, Long userId) {
+        swapAccessList(chatRoomId, accessList -> accessList.without(userId));
+    }
+
+    /**
+     * Clear a room's cached access list once the surrounding transaction commits
+     */
+    public void revokeAllAccess(Long chatRoomId) {
+        swapAccessList(chatRoomId, accessList -> LongAccessSet.EMPTY);
+    }
+
+    /**
+     * Replace a cached access list with a changed copy; rooms that are not cached load fresh on next use
+     */
+    private void swapAccessList(Long chatRoomId, UnaryOperator<LongAccessSet> change) {
+        Runnable swap = () -> accessLists.asMap().computeIfPresent(chatRoomId, (id, accessList) -> change.apply(accessList));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    swap.run();
+                }
+            });
+        } else {
+            swap.run();
+        }
+        log.debug("Updated key access list for chat room: {}", chatRoomId);
+    }
+
+    /**
+     * Evict now and again once the surrounding transaction commits,
+     * so a concurrent reader cannot re-populate the cache with pre-commit state
+     */
+    private void afterCommit(Runnable evict) {
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Expire a fixed time after an entry was loaded; neither reads nor local swaps extend it
+     */
+    private static <K, V> Expiry<K, V> expireAfterLoad(Duration ttl) {
+        long ttlNanos = ttl.toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(K key, V value, long currentTime) {
+                return ttlNanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+
+            @Override
+            public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private record KeyVersion(Long chatRoomId, Integer keyVersion) {
+    }
+}
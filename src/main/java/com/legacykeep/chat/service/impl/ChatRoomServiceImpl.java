@@ -7,14 +7,18 @@ import com.legacykeep.chat.dto.request.UpdateChatRoomRequest;
 import com.legacykeep.chat.entity.ChatRoom;
 import com.legacykeep.chat.enums.ChatRoomStatus;
 import com.legacykeep.chat.enums.ChatRoomType;
+import com.legacykeep.chat.enums.MailboxEventType;
 import com.legacykeep.chat.repository.postgres.ChatRoomRepository;
 import com.legacykeep.chat.service.ChatRoomService;
+import com.legacykeep.chat.service.UserMailboxService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -37,6 +41,10 @@ public class ChatRoomServiceImpl implements ChatRoomService {
 
     private final ChatRoomRepository chatRoomRepository;
     private final ObjectMapper objectMapper;
+    private final ChatRoomActivityBuffer chatRoomActivityBuffer;
+    private final ChatRoomCache chatRoomCache;
+    private final MessageSendPipeline messageSendPipeline;
+    private final UserMailboxService userMailboxService;
     
     /**
      * Helper method to convert Map to JSON string
@@ -53,6 +61,38 @@ public class ChatRoomServiceImpl implements ChatRoomService {
         }
     }
 
+    /**
+     * Record the room change in its participants' delta-sync log once the update has committed
+     */
+    private void recordRoomUpdated(Long chatRoomId) {
+        recordAfterCommit(chatRoomId,
+                () -> userMailboxService.recordRoomChange(chatRoomId, MailboxEventType.ROOM_UPDATED, null, null));
+    }
+
+    /**
+     * Record a room change only one user sees, such as their mute setting, in that user's delta-sync log
+     */
+    private void recordRoomUpdatedFor(Long chatRoomId, Long userId) {
+        if (userId != null) {
+            recordAfterCommit(chatRoomId,
+                    () -> userMailboxService.recordUserChange(userId, chatRoomId, MailboxEventType.ROOM_UPDATED, null));
+        }
+    }
+
+    private void recordAfterCommit(Long chatRoomId, Runnable change) {
+        Runnable record = () -> messageSendPipeline.submitFanout(chatRoomId, change);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record.run();
+                }
+            });
+        } else {
+            record.run();
+        }
+    }
+
     @Override
     public ChatRoom createChatRoom(CreateChatRoomRequest request) {
         log.debug("Creating chat room: {}", request.getRoomName());
@@ -89,14 +129,14 @@ public class ChatRoomServiceImpl implements ChatRoomService {
     @Transactional(readOnly = true)
     public Optional<ChatRoom> getChatRoomById(Long id) {
         log.debug("Getting chat room by ID: {}", id);
-        return chatRoomRepository.findById(id);
+        return chatRoomCache.getById(id, chatRoomRepository::findById);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<ChatRoom> getChatRoomByUuid(UUID roomUuid) {
         log.debug("Getting chat room by UUID: {}", roomUuid);
-        return chatRoomRepository.findByRoomUuid(roomUuid);
+        return chatRoomCache.getByUuid(roomUuid, chatRoomRepository::findByRoomUuid);
     }
 
     @Override
@@ -139,6 +179,8 @@ public class ChatRoomServiceImpl implements ChatRoomService {
         }
 
         ChatRoom updatedChatRoom = chatRoomRepository.save(chatRoom);
+        chatRoomCache.invalidate(id);
+        recordRoomUpdated(id);
         log.info("Updated chat room with ID: {}", updatedChatRoom.getId());
         
         return updatedChatRoom;
@@ -153,6 +195,8 @@ public class ChatRoomServiceImpl implements ChatRoomService {
 
         chatRoom.setStatus(ChatRoomStatus.DELETED);
         chatRoomRepository.save(chatRoom);
+        chatRoomCache.invalidate(id);
+        recordRoomUpdated(id);
         
         log.info("Deleted chat room with ID: {}", id);
     }
@@ -166,6 +210,8 @@ public class ChatRoomServiceImpl implements ChatRoomService {
 
         chatRoom.setIsArchived(true);
         ChatRoom archivedChatRoom = chatRoomRepository.save(chatRoom);
+        chatRoomCache.invalidate(id);
+        recordRoomUpdated(id);
         
         log.info("Archived chat room with ID: {}", id);
         return archivedChatRoom;
@@ -180,6 +226,8 @@ public class ChatRoomServiceImpl implements ChatRoomService {
 
         chatRoom.setIsArchived(false);
         ChatRoom unarchivedChatRoom = chatRoomRepository.save(chatRoom);
+        chatRoomCache.invalidate(id);
+        recordRoomUpdated(id);
         
         log.info("Unarchived chat room with ID: {}", id);
         return unarchivedChatRoom;
@@ -194,6 +242,8 @@ public class ChatRoomServiceImpl implements ChatRoomService {
 
         chatRoom.setIsMuted(true);
         ChatRoom mutedChatRoom = chatRoomRepository.save(chatRoom);
+        chatRoomCache.invalidate(id);
+        recordRoomUpdatedFor(id, userId);
         
         log.info("Muted chat room with ID: {} for user: {}", id, userId);
         return mutedChatRoom;
@@ -208,6 +258,8 @@ public class ChatRoomServiceImpl implements ChatRoomService {
 
         chatRoom.setIsMuted(false);
         ChatRoom unmutedChatRoom = chatRoomRepository.save(chatRoom);
+        chatRoomCache.invalidate(id);
+        recordRoomUpdatedFor(id, userId);
         
         log.info("Unmuted chat room with ID: {} for user: {}", id, userId);
         return unmutedChatRoom;
@@ -420,30 +472,22 @@ public class ChatRoomServiceImpl implements ChatRoomService {
 
     @Override
     public void updateLastMessageInfo(Long chatRoomId, String messageId, Long senderUserId) {
-        log.debug("Updating last message info for chat room: {}", chatRoomId);
-        
-        ChatRoom chatRoom = chatRoomRepository.findById(chatRoomId)
-                .orElseThrow(() -> new RuntimeException("Chat room not found with ID: " + chatRoomId));
-
-        chatRoom.setLastMessageId(messageId);
-        chatRoom.setLastMessageAt(LocalDateTime.now());
-        chatRoom.setLastMessageByUserId(senderUserId);
-
-        chatRoomRepository.save(chatRoom);
-        log.debug("Updated last message info for chat room: {}", chatRoomId);
+        updateLastMessageInfo(chatRoomId, messageId, senderUserId, LocalDateTime.now());
     }
 
     @Override
-    public void incrementMessageCount(Long chatRoomId) {
-        log.debug("Incrementing message count for chat room: {}", chatRoomId);
+    public void updateLastMessageInfo(Long chatRoomId, String messageId, Long senderUserId, LocalDateTime messageAt) {
+        log.debug("Buffering last message info for chat room: {}", chatRoomId);
         
-        ChatRoom chatRoom = chatRoomRepository.findById(chatRoomId)
-                .orElseThrow(() -> new RuntimeException("Chat room not found with ID: " + chatRoomId));
+        // Coalesced and written by ChatRoomActivityBuffer on its next flush
+        chatRoomActivityBuffer.recordLastMessage(chatRoomId, messageId, senderUserId, messageAt);
+    }
 
-        chatRoom.setMessageCount(chatRoom.getMessageCount() + 1);
-        chatRoomRepository.save(chatRoom);
+    @Override
+    public void incrementMessageCount(Long chatRoomId) {
+        log.debug("Buffering message count increment for chat room: {}", chatRoomId);
         
-        log.debug("Incremented message count for chat room: {}", chatRoomId);
+        chatRoomActivityBuffer.recordMessageCount(chatRoomId, 1);
     }
 
     @Override
@@ -456,6 +500,7 @@ public class ChatRoomServiceImpl implements ChatRoomService {
         // This would typically be calculated from ChatParticipant table
         // For now, we'll keep the existing count
         chatRoomRepository.save(chatRoom);
+        chatRoomCache.invalidate(chatRoomId);
         
         log.debug("Updated participant count for chat room: {}", chatRoomId);
     }
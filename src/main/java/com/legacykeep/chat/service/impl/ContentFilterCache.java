@@ -0,0 +1,154 @@
+package com.legacykeep.chat.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of compiled filter matchers, one per filter scope: a user's
+ * global filters, a user's filters for one contact, and a room's filters.
+ * A scope's matcher is compiled on first use and rebuilt only after the
+ * scope's filters change; the TTL bounds staleness for changes made by
+ * other instances.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class ContentFilterCache {
+
+    private final Cache<Long, FilterMatcher> userMatchers;
+    private final Cache<ContactScope, FilterMatcher> contactMatchers;
+    private final Cache<Long, FilterMatcher> roomMatchers;
+
+    public ContentFilterCache(MeterRegistry meterRegistry,
+                              @Value("${chat.filter-cache.maximum-size:50000}") long maximumSize,
+                              @Value("${chat.filter-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.userMatchers = newCache(maximumSize, ttlSeconds);
+        this.contactMatchers = newCache(maximumSize, ttlSeconds);
+        this.roomMatchers = newCache(maximumSize, ttlSeconds);
+        CaffeineCacheMetrics.monitor(meterRegistry, userMatchers, "userFilterMatchers");
+        CaffeineCacheMetrics.monitor(meterRegistry, contactMatchers, "contactFilterMatchers");
+        CaffeineCacheMetrics.monitor(meterRegistry, roomMatchers, "roomFilterMatchers");
+    }
+
+    /**
+     * Get the matcher for a user's global filters, compiling it on a miss
+     */
+    public FilterMatcher getUserMatcher(Long userId, Supplier<FilterMatcher> loader) {
+        return userMatchers.get(userId, key -> loader.get());
+    }
+
+    /**
+     * Get the matcher for a user's filters on one contact, compiling it on a miss
+     */
+    public FilterMatcher getContactMatcher(Long userId, Long contactUserId, Supplier<FilterMatcher> loader) {
+        return contactMatchers.get(new ContactScope(userId, contactUserId), key -> loader.get());
+    }
+
+    /**
+     * Get the global filter matchers for several users, compiling all misses with one loader call
+     */
+    public Map<Long, FilterMatcher> getUserMatchers(Collection<Long> userIds,
+                                                    Function<Set<Long>, Map<Long, FilterMatcher>> loader) {
+        return userMatchers.getAll(userIds, missing -> loader.apply(Set.copyOf(missing)));
+    }
+
+    /**
+     * Get several users' filter matchers for one contact, compiling all misses with one loader call
+     */
+    public Map<Long, FilterMatcher> getContactMatchers(Long contactUserId, Collection<Long> userIds,
+                                                       Function<Set<Long>, Map<Long, FilterMatcher>> loader) {
+        List<ContactScope> scopes = userIds.stream()
+                .map(userId -> new ContactScope(userId, contactUserId))
+                .toList();
+        Map<ContactScope, FilterMatcher> matchers = contactMatchers.getAll(scopes, missing -> {
+            Set<Long> missingUserIds = missing.stream()
+                    .map(ContactScope::userId)
+                    .collect(Collectors.toSet());
+            Map<ContactScope, FilterMatcher> loaded = new HashMap<>();
+            loader.apply(missingUserIds).forEach((userId, matcher) ->
+                    loaded.put(new ContactScope(userId, contactUserId), matcher));
+            return loaded;
+        });
+        Map<Long, FilterMatcher> byUser = new HashMap<>();
+        matchers.forEach((scope, matcher) -> byUser.put(scope.userId(), matcher));
+        return byUser;
+    }
+
+    /**
+     * Get the matcher for a room's filters, compiling it on a miss
+     */
+    public FilterMatcher getRoomMatcher(Long roomId, Supplier<FilterMatcher> loader) {
+        return roomMatchers.get(roomId, key -> loader.get());
+    }
+
+    /**
+     * Invalidate a user's global filter matcher
+     */
+    public void invalidateUser(Long userId) {
+        afterCommit(() -> userMatchers.invalidate(userId));
+        log.debug("Invalidated user filter matcher: {}", userId);
+    }
+
+    /**
+     * Invalidate a user's filter matcher for one contact
+     */
+    public void invalidateContact(Long userId, Long contactUserId) {
+        ContactScope scope = new ContactScope(userId, contactUserId);
+        afterCommit(() -> contactMatchers.invalidate(scope));
+        log.debug("Invalidated contact filter matcher: {} -> {}", userId, contactUserId);
+    }
+
+    /**
+     * Invalidate a room's filter matcher
+     */
+    public void invalidateRoom(Long roomId) {
+        afterCommit(() -> roomMatchers.invalidate(roomId));
+        log.debug("Invalidated room filter matcher: {}", roomId);
+    }
+
+    /**
+     * Evict now and again once the surrounding transaction commits,
+     * so a concurrent reader cannot re-populate the cache with pre-commit filters
+     */
+    private void afterCommit(Runnable evict) {
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private static <K> Cache<K, FilterMatcher> newCache(long maximumSize, long ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    private record ContactScope(Long userId, Long contactUserId) {
+    }
+}
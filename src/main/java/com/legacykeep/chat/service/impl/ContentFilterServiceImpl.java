@@ -16,8 +16,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Implementation of ContentFilterService for managing content filters.
@@ -34,6 +39,7 @@ public class ContentFilterServiceImpl implements ContentFilterService {
     private final UserFilterRepository userFilterRepository;
     private final ContactFilterRepository contactFilterRepository;
     private final RoomFilterRepository roomFilterRepository;
+    private final ContentFilterCache contentFilterCache;
     
     // Global User Filters
     @Override
@@ -81,6 +87,7 @@ public class ContentFilterServiceImpl implements ContentFilterService {
             log.info("Created new user filter: {}", savedFilter.getId());
         }
         
+        contentFilterCache.invalidateUser(userId);
         return FilterResponse.fromUserFilter(savedFilter);
     }
     
@@ -90,6 +97,7 @@ public class ContentFilterServiceImpl implements ContentFilterService {
         Optional<UserFilter> filter = userFilterRepository.findById(filterId);
         if (filter.isPresent() && filter.get().getUserId().equals(userId)) {
             userFilterRepository.deleteById(filterId);
+            contentFilterCache.invalidateUser(userId);
             log.info("Deleted user filter: {}", filterId);
         } else {
             log.warn("User filter not found or access denied: {}", filterId);
@@ -102,22 +110,9 @@ public class ContentFilterServiceImpl implements ContentFilterService {
     public boolean isContentFilteredGlobally(Long userId, String content) {
         log.debug("Checking global filters for user: {} with content: {}", userId, content);
         
-        // Check word filters
-        List<UserFilter> wordFilters = userFilterRepository.findActiveWordFiltersByUserId(userId);
-        for (UserFilter filter : wordFilters) {
-            if (containsWord(content, filter.getContent())) {
-                log.debug("Content filtered by global word filter: {}", filter.getContent());
-                return true;
-            }
-        }
-        
-        // Check emoji filters
-        List<UserFilter> emojiFilters = userFilterRepository.findActiveEmojiFiltersByUserId(userId);
-        for (UserFilter filter : emojiFilters) {
-            if (content.contains(filter.getContent())) {
-                log.debug("Content filtered by global emoji filter: {}", filter.getContent());
-                return true;
-            }
+        if (getUserMatcher(userId).matches(content)) {
+            log.debug("Content filtered by global filters for user: {}", userId);
+            return true;
         }
         
         return false;
@@ -180,6 +175,7 @@ public class ContentFilterServiceImpl implements ContentFilterService {
             log.info("Created new contact filter: {}", savedFilter.getId());
         }
         
+        contentFilterCache.invalidateContact(userId, contactUserId);
         return FilterResponse.fromContactFilter(savedFilter);
     }
     
@@ -189,6 +185,7 @@ public class ContentFilterServiceImpl implements ContentFilterService {
         Optional<ContactFilter> filter = contactFilterRepository.findById(filterId);
         if (filter.isPresent() && filter.get().getUserId().equals(userId) && filter.get().getContactUserId().equals(contactUserId)) {
             contactFilterRepository.deleteById(filterId);
+            contentFilterCache.invalidateContact(userId, contactUserId);
             log.info("Deleted contact filter: {}", filterId);
         } else {
             log.warn("Contact filter not found or access denied: {}", filterId);
@@ -201,22 +198,9 @@ public class ContentFilterServiceImpl implements ContentFilterService {
     public boolean isContentFilteredForContact(Long userId, Long contactUserId, String content) {
         log.debug("Checking contact filters for user: {} and contact: {} with content: {}", userId, contactUserId, content);
         
-        // Check word filters
-        List<ContactFilter> wordFilters = contactFilterRepository.findActiveWordFiltersByUserIdAndContactUserId(userId, contactUserId);
-        for (ContactFilter filter : wordFilters) {
-            if (containsWord(content, filter.getContent())) {
-                log.debug("Content filtered by contact word filter: {}", filter.getContent());
-                return true;
-            }
-        }
-        
-        // Check emoji filters
-        List<ContactFilter> emojiFilters = contactFilterRepository.findActiveEmojiFiltersByUserIdAndContactUserId(userId, contactUserId);
-        for (ContactFilter filter : emojiFilters) {
-            if (content.contains(filter.getContent())) {
-                log.debug("Content filtered by contact emoji filter: {}", filter.getContent());
-                return true;
-            }
+        if (getContactMatcher(userId, contactUserId).matches(content)) {
+            log.debug("Content filtered by contact filters for user: {} and contact: {}", userId, contactUserId);
+            return true;
         }
         
         return false;
@@ -269,6 +253,7 @@ public class ContentFilterServiceImpl implements ContentFilterService {
             log.info("Created new room filter: {}", savedFilter.getId());
         }
         
+        contentFilterCache.invalidateRoom(roomId);
         return FilterResponse.fromRoomFilter(savedFilter);
     }
     
@@ -278,6 +263,7 @@ public class ContentFilterServiceImpl implements ContentFilterService {
         Optional<RoomFilter> filter = roomFilterRepository.findById(filterId);
         if (filter.isPresent() && filter.get().getRoomId().equals(roomId)) {
             roomFilterRepository.deleteById(filterId);
+            contentFilterCache.invalidateRoom(roomId);
             log.info("Deleted room filter: {}", filterId);
         } else {
             log.warn("Room filter not found or access denied: {}", filterId);
@@ -290,22 +276,9 @@ public class ContentFilterServiceImpl implements ContentFilterService {
     public boolean isContentFilteredInRoom(Long roomId, String content) {
         log.debug("Checking room filters for room: {} with content: {}", roomId, content);
         
-        // Check word filters
-        List<RoomFilter> wordFilters = roomFilterRepository.findActiveWordFiltersByRoomId(roomId);
-        for (RoomFilter filter : wordFilters) {
-            if (containsWord(content, filter.getContent())) {
-                log.debug("Content filtered by room word filter: {}", filter.getContent());
-                return true;
-            }
-        }
-        
-        // Check emoji filters
-        List<RoomFilter> emojiFilters = roomFilterRepository.findActiveEmojiFiltersByRoomId(roomId);
-        for (RoomFilter filter : emojiFilters) {
-            if (content.contains(filter.getContent())) {
-                log.debug("Content filtered by room emoji filter: {}", filter.getContent());
-                return true;
-            }
+        if (getRoomMatcher(roomId).matches(content)) {
+            log.debug("Content filtered by room filters for room: {}", roomId);
+            return true;
         }
         
         return false;
@@ -338,6 +311,37 @@ public class ContentFilterServiceImpl implements ContentFilterService {
         return false;
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Long> getFilteredRecipients(Long senderUserId, Long roomId, String content, Collection<Long> recipientUserIds) {
+        log.debug("Checking filters for {} recipients of sender: {} in room: {}", recipientUserIds.size(), senderUserId, roomId);
+        
+        if (content == null || content.isBlank() || recipientUserIds.isEmpty()) {
+            return Set.of();
+        }
+        
+        // Room filters apply to every recipient alike
+        if (roomId != null && getRoomMatcher(roomId).matches(content)) {
+            log.debug("Message filtered by room filters for all recipients");
+            return new HashSet<>(recipientUserIds);
+        }
+        
+        Map<Long, FilterMatcher> globalMatchers = contentFilterCache.getUserMatchers(recipientUserIds, this::loadUserMatchers);
+        Map<Long, FilterMatcher> contactMatchers = contentFilterCache.getContactMatchers(senderUserId, recipientUserIds,
+                userIds -> loadContactMatchers(userIds, senderUserId));
+        
+        Set<Long> filteredRecipients = new HashSet<>();
+        for (Long recipientUserId : recipientUserIds) {
+            if (globalMatchers.getOrDefault(recipientUserId, FilterMatcher.EMPTY).matches(content)
+                    || contactMatchers.getOrDefault(recipientUserId, FilterMatcher.EMPTY).matches(content)) {
+                filteredRecipients.add(recipientUserId);
+            }
+        }
+        
+        log.debug("Message filtered for {} of {} recipients", filteredRecipients.size(), recipientUserIds.size());
+        return filteredRecipients;
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public List<FilterResponse> getApplicableFilters(Long senderUserId, Long receiverUserId, Long roomId, String content) {
@@ -374,6 +378,57 @@ public class ContentFilterServiceImpl implements ContentFilterService {
     }
     
     // Helper Methods
+    private FilterMatcher getUserMatcher(Long userId) {
+        return contentFilterCache.getUserMatcher(userId, () -> FilterMatcher.compile(
+                userFilterRepository.findByUserIdAndIsActiveTrue(userId).stream()
+                        .map(filter -> new FilterMatcher.Entry(filter.getId(), filter.getFilterType(), filter.getContent()))
+                        .toList()));
+    }
+    
+    private FilterMatcher getContactMatcher(Long userId, Long contactUserId) {
+        return contentFilterCache.getContactMatcher(userId, contactUserId, () -> FilterMatcher.compile(
+                contactFilterRepository.findByUserIdAndContactUserIdAndIsActiveTrue(userId, contactUserId).stream()
+                        .map(filter -> new FilterMatcher.Entry(filter.getId(), filter.getFilterType(), filter.getContent()))
+                        .toList()));
+    }
+    
+    private Map<Long, FilterMatcher> loadUserMatchers(Set<Long> userIds) {
+        Map<Long, List<FilterMatcher.Entry>> entries = new HashMap<>();
+        for (UserFilter filter : userFilterRepository.findByUserIdInAndIsActiveTrue(userIds)) {
+            entries.computeIfAbsent(filter.getUserId(), key -> new ArrayList<>())
+                    .add(new FilterMatcher.Entry(filter.getId(), filter.getFilterType(), filter.getContent()));
+        }
+        return compileAll(userIds, entries);
+    }
+    
+    private Map<Long, FilterMatcher> loadContactMatchers(Set<Long> userIds, Long contactUserId) {
+        Map<Long, List<FilterMatcher.Entry>> entries = new HashMap<>();
+        for (ContactFilter filter : contactFilterRepository.findByUserIdInAndContactUserIdAndIsActiveTrue(userIds, contactUserId)) {
+            entries.computeIfAbsent(filter.getUserId(), key -> new ArrayList<>())
+                    .add(new FilterMatcher.Entry(filter.getId(), filter.getFilterType(), filter.getContent()));
+        }
+        return compileAll(userIds, entries);
+    }
+    
+    /**
+     * Compile a matcher for every requested user, including users without filters,
+     * so those are cached as empty matchers instead of being reloaded
+     */
+    private Map<Long, FilterMatcher> compileAll(Set<Long> userIds, Map<Long, List<FilterMatcher.Entry>> entries) {
+        Map<Long, FilterMatcher> matchers = new HashMap<>();
+        for (Long userId : userIds) {
+            matchers.put(userId, FilterMatcher.compile(entries.getOrDefault(userId, List.of())));
+        }
+        return matchers;
+    }
+    
+    private FilterMatcher getRoomMatcher(Long roomId) {
+        return contentFilterCache.getRoomMatcher(roomId, () -> FilterMatcher.compile(
+                roomFilterRepository.findByRoomIdAndIsActiveTrue(roomId).stream()
+                        .map(filter -> new FilterMatcher.Entry(filter.getId(), filter.getFilterType(), filter.getContent()))
+                        .toList()));
+    }
+    
     private boolean containsWord(String content, String word) {
         if (content == null || word == null) return false;
         
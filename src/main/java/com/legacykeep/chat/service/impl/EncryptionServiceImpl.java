@@ -1,17 +1,29 @@
 package com.legacykeep.chat.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.legacykeep.chat.service.EncryptionService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Implementation of EncryptionService using AES-256-GCM encryption.
@@ -22,6 +34,14 @@ import java.util.Base64;
  * - 128-bit authentication tag
  * - Secure random number generation
  * - Base64 encoding for safe storage
+ * - Pooled Cipher reuse and a bounded cache of decoded room keys, keyed by
+ *   room and key version so no key material is held as a cache key
+ * 
+ * Media streams are split into fixed-size chunks, each sealed with AES-GCM under a
+ * per-stream key derived from the room key and a random salt. A chunk's IV carries
+ * its index and a final-chunk flag, so reordered, dropped or truncated chunks fail
+ * authentication. Stream layout:
+ * version (1) | chunk size (4) | salt (16) | nonce prefix (7) | chunk ciphertext + tag ...
  * 
  * @author LegacyKeep Team
  * @version 1.0.0
@@ -36,6 +56,27 @@ public class EncryptionServiceImpl implements EncryptionService {
     private static final int GCM_TAG_LENGTH = 16; // 128 bits
     private static final int AES_KEY_LENGTH = 256; // 256 bits
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final byte STREAM_VERSION = 1;
+    private static final int STREAM_SALT_LENGTH = 16;
+    private static final int STREAM_NONCE_PREFIX_LENGTH = 7;
+    private static final int STREAM_HEADER_LENGTH = 1 + 4 + STREAM_SALT_LENGTH + STREAM_NONCE_PREFIX_LENGTH;
+    private static final int MAX_STREAM_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final byte[] STREAM_KEY_INFO = "legacykeep-media-stream-v1".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_POOLED_CIPHERS = 64;
+    // Cipher instances are not thread-safe; each operation borrows one and re-initializes it.
+    // A shared pool rather than a ThreadLocal, so short-lived virtual threads still reuse them
+    private static final BlockingQueue<Cipher> CIPHERS = new ArrayBlockingQueue<>(MAX_POOLED_CIPHERS);
+    
+    private final Cache<RoomKeyRef, SecretKeySpec> keySpecs;
+    private final int streamChunkSize;
+    
+    public EncryptionServiceImpl(@Value("${chat.encryption.key-cache.maximum-size:1000}") long keyCacheMaximumSize,
+                                 @Value("${chat.encryption.media-chunk-size:65536}") int streamChunkSize) {
+        this.keySpecs = Caffeine.newBuilder()
+                .maximumSize(keyCacheMaximumSize)
+                .build();
+        this.streamChunkSize = Math.min(Math.max(streamChunkSize, 1024), MAX_STREAM_CHUNK_SIZE);
+    }
     
     @Override
     public String generateEncryptionKey() {
@@ -52,35 +93,33 @@ public class EncryptionServiceImpl implements EncryptionService {
     
     @Override
     public String encryptMessage(String plaintext, String encryptionKey) {
+        return encrypt(plaintext, decodeKey(encryptionKey));
+    }
+    
+    @Override
+    public String encryptMessage(String plaintext, String encryptionKey, Long chatRoomId, Integer keyVersion) {
+        return encrypt(plaintext, resolveKey(encryptionKey, chatRoomId, keyVersion));
+    }
+    
+    private String encrypt(String plaintext, SecretKeySpec secretKeySpec) {
         if (plaintext == null || plaintext.isEmpty()) {
             throw new IllegalArgumentException("Plaintext cannot be null or empty");
         }
-        if (!isValidEncryptionKey(encryptionKey)) {
-            throw new IllegalArgumentException("Invalid encryption key");
-        }
+        Cipher cipher = borrowCipher();
         
         try {
-            // Decode the encryption key
-            byte[] keyBytes = Base64.getDecoder().decode(encryptionKey);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(keyBytes, ALGORITHM);
-            
             // Generate random IV
             byte[] iv = new byte[GCM_IV_LENGTH];
             SECURE_RANDOM.nextBytes(iv);
             
-            // Initialize cipher for encryption
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec, gcmParameterSpec);
+            // Initialize the borrowed cipher for encryption
+            cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec, new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
             
-            // Encrypt the plaintext
+            // Write IV, ciphertext and tag into one buffer
             byte[] plaintextBytes = plaintext.getBytes(StandardCharsets.UTF_8);
-            byte[] encryptedBytes = cipher.doFinal(plaintextBytes);
-            
-            // Combine IV and encrypted data
-            byte[] combined = new byte[GCM_IV_LENGTH + encryptedBytes.length];
+            byte[] combined = new byte[GCM_IV_LENGTH + cipher.getOutputSize(plaintextBytes.length)];
             System.arraycopy(iv, 0, combined, 0, GCM_IV_LENGTH);
-            System.arraycopy(encryptedBytes, 0, combined, GCM_IV_LENGTH, encryptedBytes.length);
+            cipher.doFinal(plaintextBytes, 0, plaintextBytes.length, combined, GCM_IV_LENGTH);
             
             // Return Base64 encoded result
             String result = Base64.getEncoder().encodeToString(combined);
@@ -90,43 +129,42 @@ public class EncryptionServiceImpl implements EncryptionService {
         } catch (Exception e) {
             log.error("Failed to encrypt message: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to encrypt message", e);
+        } finally {
+            CIPHERS.offer(cipher);
         }
     }
     
     @Override
     public String decryptMessage(String encryptedMessage, String encryptionKey) {
+        return decrypt(encryptedMessage, decodeKey(encryptionKey));
+    }
+    
+    @Override
+    public String decryptMessage(String encryptedMessage, String encryptionKey, Long chatRoomId, Integer keyVersion) {
+        return decrypt(encryptedMessage, resolveKey(encryptionKey, chatRoomId, keyVersion));
+    }
+    
+    private String decrypt(String encryptedMessage, SecretKeySpec secretKeySpec) {
         if (encryptedMessage == null || encryptedMessage.isEmpty()) {
             throw new IllegalArgumentException("Encrypted message cannot be null or empty");
         }
-        if (!isValidEncryptionKey(encryptionKey)) {
-            throw new IllegalArgumentException("Invalid encryption key");
-        }
+        Cipher cipher = borrowCipher();
         
         try {
-            // Decode the encryption key
-            byte[] keyBytes = Base64.getDecoder().decode(encryptionKey);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(keyBytes, ALGORITHM);
-            
             // Decode the encrypted message
             byte[] combined = Base64.getDecoder().decode(encryptedMessage);
             
-            // Extract IV and encrypted data
+            // IV and ciphertext are read in place from the decoded buffer
             if (combined.length < GCM_IV_LENGTH) {
                 throw new IllegalArgumentException("Invalid encrypted message format");
             }
             
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            byte[] encryptedBytes = new byte[combined.length - GCM_IV_LENGTH];
-            System.arraycopy(combined, 0, iv, 0, GCM_IV_LENGTH);
-            System.arraycopy(combined, GCM_IV_LENGTH, encryptedBytes, 0, encryptedBytes.length);
-            
-            // Initialize cipher for decryption
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, gcmParameterSpec);
+            // Initialize the borrowed cipher for decryption
+            cipher.init(Cipher.DECRYPT_MODE, secretKeySpec,
+                    new GCMParameterSpec(GCM_TAG_LENGTH * 8, combined, 0, GCM_IV_LENGTH));
             
             // Decrypt the message
-            byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
+            byte[] decryptedBytes = cipher.doFinal(combined, GCM_IV_LENGTH, combined.length - GCM_IV_LENGTH);
             String result = new String(decryptedBytes, StandardCharsets.UTF_8);
             
             log.debug("Successfully decrypted message (length: {})", result.length());
@@ -135,7 +173,131 @@ public class EncryptionServiceImpl implements EncryptionService {
         } catch (Exception e) {
             log.error("Failed to decrypt message: {}", e.getMessage(), e);
             throw new IllegalArgumentException("Failed to decrypt message: " + e.getMessage(), e);
+        } finally {
+            CIPHERS.offer(cipher);
+        }
+    }
+    
+    @Override
+    public long encryptStream(ReadableByteChannel source, WritableByteChannel target, String encryptionKey) throws IOException {
+        SecretKeySpec roomKey = decodeKey(encryptionKey);
+        int chunkSize = streamChunkSize;
+        
+        // Header doubles as associated data for every chunk
+        byte[] header = new byte[STREAM_HEADER_LENGTH];
+        ByteBuffer.wrap(header).put(STREAM_VERSION).putInt(chunkSize);
+        byte[] random = new byte[STREAM_SALT_LENGTH + STREAM_NONCE_PREFIX_LENGTH];
+        SECURE_RANDOM.nextBytes(random);
+        System.arraycopy(random, 0, header, 5, random.length);
+        
+        try {
+            SecretKeySpec streamKey = deriveStreamKey(roomKey, header);
+            // A stream holds its cipher across every chunk, so it gets its own rather than a pooled one
+            Cipher cipher = newCipher();
+            ByteBuffer current = ByteBuffer.allocate(chunkSize);
+            ByteBuffer next = ByteBuffer.allocate(chunkSize);
+            ByteBuffer out = ByteBuffer.allocate(chunkSize + GCM_TAG_LENGTH);
+            
+            long written = writeFully(target, ByteBuffer.wrap(header));
+            boolean full = fill(source, current);
+            for (int index = 0; ; index++) {
+                // Read ahead one chunk to know whether the current one is the last
+                boolean nextFull = full && fill(source, next);
+                boolean last = !full || next.position() == 0;
+                
+                cipher.init(Cipher.ENCRYPT_MODE, streamKey, chunkParameters(header, index, last));
+                cipher.updateAAD(header);
+                current.flip();
+                out.clear();
+                cipher.doFinal(current, out);
+                out.flip();
+                written += writeFully(target, out);
+                if (last) {
+                    break;
+                }
+                
+                ByteBuffer swap = current;
+                current = next;
+                next = swap;
+                next.clear();
+                full = nextFull;
+            }
+            
+            log.debug("Successfully encrypted stream ({} bytes written)", written);
+            return written;
+            
+        } catch (GeneralSecurityException e) {
+            log.error("Failed to encrypt stream: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to encrypt stream", e);
+        }
+    }
+    
+    @Override
+    public long decryptStream(ReadableByteChannel source, WritableByteChannel target, String encryptionKey) throws IOException {
+        SecretKeySpec roomKey = decodeKey(encryptionKey);
+        
+        ByteBuffer headerBuffer = ByteBuffer.allocate(STREAM_HEADER_LENGTH);
+        if (!fill(source, headerBuffer)) {
+            throw new IllegalArgumentException("Invalid encrypted stream format");
         }
+        byte[] header = headerBuffer.array();
+        headerBuffer.flip();
+        byte version = headerBuffer.get();
+        int chunkSize = headerBuffer.getInt();
+        // The header is not authenticated until the first chunk is, so never allocate more than configured
+        if (version != STREAM_VERSION || chunkSize <= 0 || chunkSize > streamChunkSize) {
+            throw new IllegalArgumentException("Unsupported encrypted stream version or chunk size");
+        }
+        
+        try {
+            SecretKeySpec streamKey = deriveStreamKey(roomKey, header);
+            Cipher cipher = newCipher();
+            ByteBuffer current = ByteBuffer.allocate(chunkSize + GCM_TAG_LENGTH);
+            ByteBuffer next = ByteBuffer.allocate(chunkSize + GCM_TAG_LENGTH);
+            ByteBuffer out = ByteBuffer.allocate(chunkSize);
+            
+            long written = 0;
+            boolean full = fill(source, current);
+            for (int index = 0; ; index++) {
+                boolean nextFull = full && fill(source, next);
+                boolean last = !full || next.position() == 0;
+                if (current.position() < GCM_TAG_LENGTH) {
+                    throw new IllegalArgumentException("Encrypted stream is truncated");
+                }
+                
+                cipher.init(Cipher.DECRYPT_MODE, streamKey, chunkParameters(header, index, last));
+                cipher.updateAAD(header);
+                current.flip();
+                out.clear();
+                cipher.doFinal(current, out);
+                out.flip();
+                written += writeFully(target, out);
+                if (last) {
+                    break;
+                }
+                
+                ByteBuffer swap = current;
+                current = next;
+                next = swap;
+                next.clear();
+                full = nextFull;
+            }
+            
+            log.debug("Successfully decrypted stream ({} bytes written)", written);
+            return written;
+            
+        } catch (AEADBadTagException e) {
+            throw new IllegalArgumentException("Encrypted stream failed authentication", e);
+        } catch (GeneralSecurityException e) {
+            log.error("Failed to decrypt stream: {}", e.getMessage(), e);
+            throw new IllegalArgumentException("Failed to decrypt stream: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public long getEncryptedStreamSize(long plaintextSize) {
+        long chunks = Math.max(1, (plaintextSize + streamChunkSize - 1) / streamChunkSize);
+        return STREAM_HEADER_LENGTH + plaintextSize + chunks * GCM_TAG_LENGTH;
     }
     
     @Override
@@ -154,10 +316,91 @@ public class EncryptionServiceImpl implements EncryptionService {
         }
     }
     
+    /**
+     * Get the key spec for a room key version, decoding and validating it only on a cache miss.
+     * A room key version never changes once stored, so the cached spec cannot go stale.
+     */
+    private SecretKeySpec resolveKey(String encryptionKey, Long chatRoomId, Integer keyVersion) {
+        if (chatRoomId == null || keyVersion == null) {
+            return decodeKey(encryptionKey);
+        }
+        return keySpecs.get(new RoomKeyRef(chatRoomId, keyVersion), ref -> decodeKey(encryptionKey));
+    }
+    
+    /**
+     * Decode and validate a Base64 key
+     */
+    private SecretKeySpec decodeKey(String encryptionKey) {
+        if (!isValidEncryptionKey(encryptionKey)) {
+            throw new IllegalArgumentException("Invalid encryption key");
+        }
+        return new SecretKeySpec(Base64.getDecoder().decode(encryptionKey), ALGORITHM);
+    }
+    
+    /**
+     * Derive the per-stream AES key from the room key and the header's salt
+     */
+    private static SecretKeySpec deriveStreamKey(SecretKeySpec roomKey, byte[] header) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(roomKey.getEncoded(), "HmacSHA256"));
+        mac.update(STREAM_KEY_INFO);
+        mac.update(header, 5, STREAM_SALT_LENGTH);
+        return new SecretKeySpec(mac.doFinal(), ALGORITHM);
+    }
+    
+    /**
+     * Chunk IV: nonce prefix | chunk index | final-chunk flag
+     */
+    private static GCMParameterSpec chunkParameters(byte[] header, int index, boolean last) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Stream has too many chunks");
+        }
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        System.arraycopy(header, 5 + STREAM_SALT_LENGTH, iv, 0, STREAM_NONCE_PREFIX_LENGTH);
+        ByteBuffer.wrap(iv, STREAM_NONCE_PREFIX_LENGTH, 5).putInt(index).put((byte) (last ? 1 : 0));
+        return new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
+    }
+    
+    /**
+     * Read until the buffer is full or the channel ends, returns true if the buffer was filled
+     */
+    private static boolean fill(ReadableByteChannel source, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static long writeFully(WritableByteChannel target, ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += target.write(buffer);
+        }
+        return written;
+    }
+    
+    private static Cipher borrowCipher() {
+        Cipher cipher = CIPHERS.poll();
+        return cipher != null ? cipher : newCipher();
+    }
+    
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cipher " + TRANSFORMATION + " is not available", e);
+        }
+    }
+    
     @Override
     public String generateIV() {
         byte[] iv = new byte[GCM_IV_LENGTH];
         SECURE_RANDOM.nextBytes(iv);
         return Base64.getEncoder().encodeToString(iv);
     }
+    
+    private record RoomKeyRef(Long chatRoomId, Integer keyVersion) {
+    }
 }
@@ -0,0 +1,230 @@
+package com.legacykeep.chat.service.impl;
+
+import com.legacykeep.chat.enums.FilterType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable Aho-Corasick automaton over a set of content filters.
+ * All WORD, EMOJI and PHRASE filters of one scope are compiled together so a
+ * message is checked in a single pass over its characters, independent of
+ * how many filters the scope has.
+ *
+ * Matching is case-insensitive for WORD and PHRASE filters and exact for EMOJI
+ * filters. WORD filters only match on word boundaries, with the same rules as
+ * a regex \b around the filter text.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+public final class FilterMatcher {
+
+    /**
+     * Matcher with no filters, never matches
+     */
+    public static final FilterMatcher EMPTY = new FilterMatcher(new int[][]{{}}, new char[][]{{}},
+            new int[]{0}, new int[]{-1}, new Pattern[][]{{}});
+
+    private static final Pattern[] NO_PATTERNS = new Pattern[0];
+
+    // Per state: sorted transition characters and their target states
+    private final int[][] targets;
+    private final char[][] labels;
+    private final int[] failure;
+    // Nearest state on the failure chain that has patterns, -1 if none
+    private final int[] outputLink;
+    private final Pattern[][] patterns;
+
+    private FilterMatcher(int[][] targets, char[][] labels, int[] failure, int[] outputLink, Pattern[][] patterns) {
+        this.targets = targets;
+        this.labels = labels;
+        this.failure = failure;
+        this.outputLink = outputLink;
+        this.patterns = patterns;
+    }
+
+    /**
+     * Compile a matcher from filter entries
+     */
+    public static FilterMatcher compile(Collection<Entry> entries) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<List<Pattern>> terminal = new ArrayList<>();
+        trie.add(new HashMap<>());
+        terminal.add(new ArrayList<>());
+
+        for (Entry entry : entries) {
+            if (entry.content() == null || entry.content().isEmpty() || entry.filterType() == null) {
+                continue;
+            }
+            String text = entry.content();
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = fold(text.charAt(i));
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(c, next);
+                    trie.add(new HashMap<>());
+                    terminal.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            terminal.get(state).add(new Pattern(entry.filterId(), entry.filterType(), text));
+        }
+        if (trie.size() == 1) {
+            return EMPTY;
+        }
+
+        int size = trie.size();
+        int[][] targets = new int[size][];
+        char[][] labels = new char[size][];
+        Pattern[][] patterns = new Pattern[size][];
+        for (int state = 0; state < size; state++) {
+            Map<Character, Integer> edges = trie.get(state);
+            char[] stateLabels = new char[edges.size()];
+            int i = 0;
+            for (Character c : edges.keySet()) {
+                stateLabels[i++] = c;
+            }
+            Arrays.sort(stateLabels);
+            int[] stateTargets = new int[stateLabels.length];
+            for (i = 0; i < stateLabels.length; i++) {
+                stateTargets[i] = edges.get(stateLabels[i]);
+            }
+            labels[state] = stateLabels;
+            targets[state] = stateTargets;
+            List<Pattern> statePatterns = terminal.get(state);
+            patterns[state] = statePatterns.isEmpty() ? NO_PATTERNS : statePatterns.toArray(NO_PATTERNS);
+        }
+
+        // Breadth-first pass to resolve failure and output links
+        int[] failure = new int[size];
+        int[] outputLink = new int[size];
+        Arrays.fill(outputLink, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            failure[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < labels[state].length; i++) {
+                char c = labels[state][i];
+                int child = targets[state][i];
+                int fallback = failure[state];
+                int next;
+                while ((next = step(labels, targets, fallback, c)) < 0 && fallback != 0) {
+                    fallback = failure[fallback];
+                }
+                failure[child] = next >= 0 ? next : 0;
+                outputLink[child] = patterns[failure[child]].length > 0 ? failure[child] : outputLink[failure[child]];
+                queue.add(child);
+            }
+        }
+        return new FilterMatcher(targets, labels, failure, outputLink, patterns);
+    }
+
+    /**
+     * Check whether the content matches any filter
+     */
+    public boolean matches(String content) {
+        return !scan(content, true).isEmpty();
+    }
+
+    /**
+     * Get the ids of all filters matched by the content
+     */
+    public List<Long> findMatches(String content) {
+        return scan(content, false);
+    }
+
+    /**
+     * Check whether this matcher has no filters
+     */
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    private List<Long> scan(String content, boolean firstOnly) {
+        if (content == null || content.isEmpty() || isEmpty()) {
+            return List.of();
+        }
+        List<Long> matched = new ArrayList<>();
+        int state = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = fold(content.charAt(i));
+            int next;
+            while ((next = step(labels, targets, state, c)) < 0 && state != 0) {
+                state = failure[state];
+            }
+            state = Math.max(next, 0);
+
+            int output = patterns[state].length > 0 ? state : outputLink[state];
+            while (output >= 0) {
+                for (Pattern pattern : patterns[output]) {
+                    if (pattern.accepts(content, i + 1) && !matched.contains(pattern.filterId())) {
+                        matched.add(pattern.filterId());
+                        if (firstOnly) {
+                            return matched;
+                        }
+                    }
+                }
+                output = outputLink[output];
+            }
+        }
+        return matched;
+    }
+
+    private static int step(char[][] labels, int[][] targets, int state, char c) {
+        int index = Arrays.binarySearch(labels[state], c);
+        return index >= 0 ? targets[state][index] : -1;
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * Same character class as regex \w without UNICODE_CHARACTER_CLASS
+     */
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isBoundary(String content, int index) {
+        boolean before = index > 0 && isWordChar(content.charAt(index - 1));
+        boolean after = index < content.length() && isWordChar(content.charAt(index));
+        return before != after;
+    }
+
+    /**
+     * A filter to compile into the matcher
+     */
+    public record Entry(Long filterId, FilterType filterType, String content) {
+    }
+
+    private record Pattern(Long filterId, FilterType filterType, String text) {
+
+        /**
+         * Apply per-type rules to a case-folded match ending at the given index
+         */
+        private boolean accepts(String content, int end) {
+            int start = end - text.length();
+            switch (filterType) {
+                case WORD:
+                    return isBoundary(content, start) && isBoundary(content, end);
+                case EMOJI:
+                    return content.regionMatches(start, text, 0, text.length());
+                default:
+                    return true;
+            }
+        }
+    }
+}
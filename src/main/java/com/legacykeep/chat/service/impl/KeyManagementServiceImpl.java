@@ -1,25 +1,34 @@
 package com.legacykeep.chat.service.impl;
 
 import com.legacykeep.chat.entity.ChatRoom;
-import com.legacykeep.chat.repository.postgres.ChatRoomRepository;
+import com.legacykeep.chat.entity.ChatRoomKey;
+import com.legacykeep.chat.entity.ChatRoomKeyAccess;
+import com.legacykeep.chat.repository.postgres.ChatRoomKeyAccessRepository;
+import com.legacykeep.chat.repository.postgres.ChatRoomKeyRepository;
+import com.legacykeep.chat.service.ChatRoomService;
 import com.legacykeep.chat.service.EncryptionService;
 import com.legacykeep.chat.service.KeyManagementService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Implementation of KeyManagementService for managing encryption keys.
  * 
  * Features:
- * - In-memory key storage for performance (in production, use Redis or secure key store)
- * - Key access control based on chat room participants
- * - Key rotation for enhanced security
- * - User access management for encryption keys
+ * - Persistent, versioned key storage in chat_room_keys, wrapped with a master key when configured
+ * - Bounded lazy cache of keys by (room, key version) in front of the store
+ * - Key access control based on chat room participants, persisted in chat_room_key_access
+ * - Key rotation that retires old versions instead of overwriting them
  * 
  * @author LegacyKeep Team
  * @version 1.0.0
@@ -30,13 +39,30 @@ import java.util.concurrent.ConcurrentHashMap;
 public class KeyManagementServiceImpl implements KeyManagementService {
     
     private final EncryptionService encryptionService;
-    private final ChatRoomRepository chatRoomRepository;
+    private final ChatRoomService chatRoomService;
+    private final ChatRoomKeyRepository chatRoomKeyRepository;
+    private final ChatRoomKeyAccessRepository chatRoomKeyAccessRepository;
+    private final ChatRoomKeyCache chatRoomKeyCache;
+    private final Environment environment;
     
-    // In-memory storage for encryption keys (in production, use Redis or secure key store)
-    private final Map<Long, String> chatRoomKeys = new ConcurrentHashMap<>();
+    // Bound once so an access list cache hit does not allocate a loader
+    private final Function<Long, LongAccessSet> accessListLoader = this::loadAccessList;
     
-    // In-memory storage for key access control (in production, use database)
-    private final Map<Long, Set<Long>> keyAccessControl = new ConcurrentHashMap<>();
+    // Base64 AES-256 key used to wrap stored room keys; may only be blank in the dev and test profiles
+    @Value("${chat.encryption.master-key:}")
+    private String masterKey;
+    
+    @PostConstruct
+    public void checkMasterKey() {
+        if (masterKey == null || masterKey.isBlank()) {
+            if (!environment.acceptsProfiles(Profiles.of("dev", "test"))) {
+                throw new IllegalStateException("chat.encryption.master-key must be configured outside the dev and test profiles");
+            }
+            log.warn("No chat.encryption.master-key configured, chat room keys are stored unwrapped");
+        } else if (!encryptionService.isValidEncryptionKey(masterKey)) {
+            throw new IllegalStateException("chat.encryption.master-key must be a Base64 encoded 256-bit key");
+        }
+    }
     
     @Override
     @Transactional
@@ -45,26 +71,22 @@ public class KeyManagementServiceImpl implements KeyManagementService {
         
         try {
             // Check if chat room exists
-            Optional<ChatRoom> chatRoomOpt = chatRoomRepository.findById(chatRoomId);
+            Optional<ChatRoom> chatRoomOpt = chatRoomService.getChatRoomById(chatRoomId);
             if (chatRoomOpt.isEmpty()) {
                 throw new IllegalArgumentException("Chat room not found: " + chatRoomId);
             }
             
             ChatRoom chatRoom = chatRoomOpt.get();
             
-            // Generate new encryption key
+            // Generate and store a new key version
             String encryptionKey = encryptionService.generateEncryptionKey();
+            int keyVersion = storeNewKeyVersion(chatRoomId, encryptionKey, createdByUserId);
             
-            // Store the key
-            chatRoomKeys.put(chatRoomId, encryptionKey);
-            
-            // Initialize key access control
-            Set<Long> authorizedUsers = new HashSet<>();
-            authorizedUsers.add(createdByUserId);
-            authorizedUsers.add(chatRoom.getCreatedByUserId()); // Room creator always has access
-            keyAccessControl.put(chatRoomId, authorizedUsers);
+            // Grant key access
+            grantKeyAccess(chatRoomId, createdByUserId, createdByUserId);
+            grantKeyAccess(chatRoomId, chatRoom.getCreatedByUserId(), createdByUserId); // Room creator always has access
             
-            log.info("Successfully generated encryption key for chat room: {}", chatRoomId);
+            log.info("Successfully generated encryption key version {} for chat room: {}", keyVersion, chatRoomId);
             return encryptionKey;
             
         } catch (Exception e) {
@@ -75,7 +97,12 @@ public class KeyManagementServiceImpl implements KeyManagementService {
     
     @Override
     public Optional<String> getChatRoomKey(Long chatRoomId, Long userId) {
-        log.debug("Getting encryption key for chat room: {} by user: {}", chatRoomId, userId);
+        return getChatRoomKey(chatRoomId, null, userId);
+    }
+    
+    @Override
+    public Optional<String> getChatRoomKey(Long chatRoomId, Integer keyVersion, Long userId) {
+        log.debug("Getting encryption key version {} for chat room: {} by user: {}", keyVersion, chatRoomId, userId);
         
         try {
             // Check if user has access
@@ -85,9 +112,10 @@ public class KeyManagementServiceImpl implements KeyManagementService {
             }
             
             // Get the key
-            String key = chatRoomKeys.get(chatRoomId);
+            Integer version = keyVersion != null ? keyVersion : getCurrentKeyVersion(chatRoomId);
+            String key = version != null ? loadKey(chatRoomId, version) : null;
             if (key == null) {
-                log.warn("No encryption key found for chat room: {}", chatRoomId);
+                log.warn("No encryption key version {} found for chat room: {}", keyVersion, chatRoomId);
                 return Optional.empty();
             }
             
@@ -99,6 +127,20 @@ public class KeyManagementServiceImpl implements KeyManagementService {
         }
     }
     
+    @Override
+    public Optional<VersionedKey> getCurrentChatRoomKey(Long chatRoomId, Long userId) {
+        Integer version = getCurrentKeyVersion(chatRoomId);
+        if (version == null) {
+            return Optional.empty();
+        }
+        return getChatRoomKey(chatRoomId, version, userId).map(key -> new VersionedKey(version, key));
+    }
+    
+    @Override
+    public boolean hasChatRoomKey(Long chatRoomId) {
+        return getCurrentKeyVersion(chatRoomId) != null;
+    }
+    
     @Override
     @Transactional
     public String rotateChatRoomKey(Long chatRoomId, Long rotatedByUserId) {
@@ -110,13 +152,11 @@ public class KeyManagementServiceImpl implements KeyManagementService {
                 throw new IllegalArgumentException("User does not have permission to rotate key");
             }
             
-            // Generate new key
+            // Generate new key; the previous version is retired, not overwritten
             String newKey = encryptionService.generateEncryptionKey();
+            int keyVersion = storeNewKeyVersion(chatRoomId, newKey, rotatedByUserId);
             
-            // Update the key
-            chatRoomKeys.put(chatRoomId, newKey);
-            
-            log.info("Successfully rotated encryption key for chat room: {}", chatRoomId);
+            log.info("Successfully rotated encryption key for chat room: {} to version {}", chatRoomId, keyVersion);
             return newKey;
             
         } catch (Exception e) {
@@ -138,7 +178,7 @@ public class KeyManagementServiceImpl implements KeyManagementService {
             }
             
             // Add user to key access
-            keyAccessControl.computeIfAbsent(chatRoomId, k -> new HashSet<>()).add(userId);
+            grantKeyAccess(chatRoomId, userId, addedByUserId);
             
             log.info("Successfully added user {} to key access for chat room: {}", userId, chatRoomId);
             return true;
@@ -162,10 +202,8 @@ public class KeyManagementServiceImpl implements KeyManagementService {
             }
             
             // Remove user from key access
-            Set<Long> authorizedUsers = keyAccessControl.get(chatRoomId);
-            if (authorizedUsers != null) {
-                authorizedUsers.remove(userId);
-            }
+            chatRoomKeyAccessRepository.deleteByChatRoomIdAndUserId(chatRoomId, userId);
+            chatRoomKeyCache.revokeAccess(chatRoomId, userId);
             
             log.info("Successfully removed user {} from key access for chat room: {}", userId, chatRoomId);
             return true;
@@ -178,25 +216,17 @@ public class KeyManagementServiceImpl implements KeyManagementService {
     
     @Override
     public boolean hasKeyAccess(Long chatRoomId, Long userId) {
-        Set<Long> authorizedUsers = keyAccessControl.get(chatRoomId);
-        if (authorizedUsers == null) {
+        if (userId == null) {
             return false;
         }
         
-        // Check if user is in the authorized list
-        boolean hasAccess = authorizedUsers.contains(userId);
-        log.debug("User {} {} access to encryption key for chat room {}", userId, hasAccess ? "has" : "does not have", chatRoomId);
-        return hasAccess;
+        // Lock-free, allocation-free probe of the room's immutable access set; too hot a path to log
+        return chatRoomKeyCache.getAccessList(chatRoomId, accessListLoader).contains(userId);
     }
     
     @Override
     public List<Long> getUsersWithKeyAccess(Long chatRoomId) {
-        Set<Long> authorizedUsers = keyAccessControl.get(chatRoomId);
-        if (authorizedUsers == null) {
-            return new ArrayList<>();
-        }
-        
-        return new ArrayList<>(authorizedUsers);
+        return chatRoomKeyCache.getAccessList(chatRoomId, accessListLoader).toList();
     }
     
     @Override
@@ -212,10 +242,12 @@ public class KeyManagementServiceImpl implements KeyManagementService {
             }
             
             // Clear all key access
-            keyAccessControl.remove(chatRoomId);
+            chatRoomKeyAccessRepository.deleteByChatRoomId(chatRoomId);
+            chatRoomKeyCache.revokeAllAccess(chatRoomId);
             
-            // Optionally, remove the key as well
-            chatRoomKeys.remove(chatRoomId);
+            // Retire the active key; a new key must be generated before encrypting again
+            chatRoomKeyRepository.retireActiveKeys(chatRoomId, LocalDateTime.now());
+            chatRoomKeyCache.invalidateCurrentVersion(chatRoomId);
             
             log.warn("Successfully revoked all key access for chat room: {}", chatRoomId);
             return true;
@@ -225,4 +257,61 @@ public class KeyManagementServiceImpl implements KeyManagementService {
             return false;
         }
     }
+    
+    private Integer getCurrentKeyVersion(Long chatRoomId) {
+        return chatRoomKeyCache.getCurrentVersion(chatRoomId, () -> chatRoomKeyRepository
+                .findFirstByChatRoomIdAndIsActiveTrueOrderByKeyVersionDesc(chatRoomId)
+                .map(ChatRoomKey::getKeyVersion)
+                .orElse(null));
+    }
+    
+    private String loadKey(Long chatRoomId, Integer keyVersion) {
+        return chatRoomKeyCache.getKey(chatRoomId, keyVersion, () -> chatRoomKeyRepository
+                .findByChatRoomIdAndKeyVersion(chatRoomId, keyVersion)
+                .map(key -> unwrap(key.getKeyMaterial()))
+                .orElse(null));
+    }
+    
+    private LongAccessSet loadAccessList(Long chatRoomId) {
+        return LongAccessSet.of(chatRoomKeyAccessRepository.findUserIdsByChatRoomId(chatRoomId));
+    }
+    
+    /**
+     * Retire the active key of a room and store a new version as the active one
+     */
+    private int storeNewKeyVersion(Long chatRoomId, String encryptionKey, Long createdByUserId) {
+        // Serialize rotations of the room until commit so two of them cannot pick the same version
+        chatRoomKeyRepository.lockChatRoom(chatRoomId);
+        int keyVersion = chatRoomKeyRepository.findLatestKeyVersion(chatRoomId).orElse(0) + 1;
+        chatRoomKeyRepository.retireActiveKeys(chatRoomId, LocalDateTime.now());
+        chatRoomKeyRepository.save(ChatRoomKey.builder()
+                .chatRoomId(chatRoomId)
+                .keyVersion(keyVersion)
+                .keyMaterial(wrap(encryptionKey))
+                .isActive(true)
+                .createdByUserId(createdByUserId)
+                .build());
+        chatRoomKeyCache.invalidateCurrentVersion(chatRoomId);
+        return keyVersion;
+    }
+    
+    private void grantKeyAccess(Long chatRoomId, Long userId, Long grantedByUserId) {
+        if (userId == null || chatRoomKeyAccessRepository.existsByChatRoomIdAndUserId(chatRoomId, userId)) {
+            return;
+        }
+        chatRoomKeyAccessRepository.save(ChatRoomKeyAccess.builder()
+                .chatRoomId(chatRoomId)
+                .userId(userId)
+                .grantedByUserId(grantedByUserId)
+                .build());
+        chatRoomKeyCache.grantAccess(chatRoomId, userId);
+    }
+    
+    private String wrap(String encryptionKey) {
+        return masterKey == null || masterKey.isBlank() ? encryptionKey : encryptionService.encryptMessage(encryptionKey, masterKey);
+    }
+    
+    private String unwrap(String keyMaterial) {
+        return masterKey == null || masterKey.isBlank() ? keyMaterial : encryptionService.decryptMessage(keyMaterial, masterKey);
+    }
 }
@@ -0,0 +1,31 @@
+package com.legacykeep.chat.service.impl;
+
+import com.legacykeep.chat.service.MessageBackplane;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+
+/**
+ * Single-node backplane: publishing delivers straight to this JVM's broker.
+ * Payloads for destinations without local subscribers are never serialized.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "chat.backplane.mode", havingValue = "local", matchIfMissing = true)
+public class LocalMessageBackplane implements MessageBackplane {
+
+    private final LocalMessageDelivery localMessageDelivery;
+    private final WireFrameEncoder wireFrameEncoder;
+
+    @Override
+    public void publish(String destination, Object payload, Set<Long> excludedUserIds) {
+        if (localMessageDelivery.hasSubscribers(destination)) {
+            localMessageDelivery.deliver(destination, wireFrameEncoder.encode(payload), excludedUserIds);
+        }
+    }
+}
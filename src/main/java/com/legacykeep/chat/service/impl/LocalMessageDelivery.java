@@ -0,0 +1,72 @@
+package com.legacykeep.chat.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Hands serialized backplane events to this node's STOMP broker, skipping
+ * destinations no local session is subscribed to. Users an event is withheld
+ * from travel with it in the EXCLUDED_USERS_HEADER, which the client outbound
+ * channel checks per session (see WebSocketConfig); sessions with no known
+ * user never receive a message carrying it.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocalMessageDelivery {
+
+    public static final String EXCLUDED_USERS_HEADER = "excludedUserIds";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final PresenceTracker presenceTracker;
+    private final WireFrameEncoder wireFrameEncoder;
+
+    /**
+     * Check whether any local session is subscribed to a destination
+     */
+    public boolean hasSubscribers(String destination) {
+        return presenceTracker.hasSubscribers(destination);
+    }
+
+    /**
+     * Deliver serialized JSON to local subscribers of a destination
+     */
+    public void deliver(String destination, byte[] json) {
+        deliver(destination, json, Set.of());
+    }
+
+    /**
+     * Deliver serialized JSON to local subscribers of a destination except the sessions of the given users
+     */
+    public void deliver(String destination, byte[] json, Set<Long> excludedUserIds) {
+        if (!hasSubscribers(destination)) {
+            log.trace("No local subscribers for destination: {}", destination);
+            return;
+        }
+        Message<byte[]> message = wireFrameEncoder.toMessage(json);
+        if (!excludedUserIds.isEmpty()) {
+            message = MessageBuilder.fromMessage(message)
+                    .setHeader(EXCLUDED_USERS_HEADER, Set.copyOf(excludedUserIds))
+                    .build();
+        }
+        messagingTemplate.send(destination, message);
+    }
+
+    /**
+     * Check whether a broker message for a session is withheld from that session's user.
+     * A withheld message is also dropped for a session whose user is unknown.
+     */
+    public static boolean isExcluded(Message<?> message, Long userId) {
+        Object excluded = message.getHeaders().get(EXCLUDED_USERS_HEADER);
+        return excluded instanceof Set<?> excludedUserIds && (userId == null || excludedUserIds.contains(userId));
+    }
+}
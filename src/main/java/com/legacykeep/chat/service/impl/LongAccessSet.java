@@ -0,0 +1,106 @@
+package com.legacykeep.chat.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable set of ids backed by a sorted primitive long array.
+ * Membership checks are a binary search with no boxing or allocation;
+ * changes return a new set, so readers never observe a partial update.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+public final class LongAccessSet {
+
+    public static final LongAccessSet EMPTY = new LongAccessSet(new long[0]);
+
+    private final long[] ids;
+
+    private LongAccessSet(long[] ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Create a set from user ids, ignoring nulls and duplicates
+     */
+    public static LongAccessSet of(Collection<Long> userIds) {
+        long[] values = userIds.stream()
+                .filter(id -> id != null)
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+        return values.length == 0 ? EMPTY : new LongAccessSet(values);
+    }
+
+    /**
+     * Check whether the set contains a user id
+     */
+    public boolean contains(long userId) {
+        return Arrays.binarySearch(ids, userId) >= 0;
+    }
+
+    /**
+     * Get a copy of this set with a user id added
+     */
+    public LongAccessSet with(long userId) {
+        int index = Arrays.binarySearch(ids, userId);
+        if (index >= 0) {
+            return this;
+        }
+        int insertAt = -index - 1;
+        long[] copy = new long[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, insertAt);
+        copy[insertAt] = userId;
+        System.arraycopy(ids, insertAt, copy, insertAt + 1, ids.length - insertAt);
+        return new LongAccessSet(copy);
+    }
+
+    /**
+     * Get a copy of this set with a user id removed
+     */
+    public LongAccessSet without(long userId) {
+        int index = Arrays.binarySearch(ids, userId);
+        if (index < 0) {
+            return this;
+        }
+        if (ids.length == 1) {
+            return EMPTY;
+        }
+        long[] copy = new long[ids.length - 1];
+        System.arraycopy(ids, 0, copy, 0, index);
+        System.arraycopy(ids, index + 1, copy, index, ids.length - index - 1);
+        return new LongAccessSet(copy);
+    }
+
+    /**
+     * Get the number of user ids in the set
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Get the user ids as a list
+     */
+    public List<Long> toList() {
+        List<Long> userIds = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            userIds.add(id);
+        }
+        return userIds;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof LongAccessSet set && Arrays.equals(ids, set.ids));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ids);
+    }
+}
@@ -0,0 +1,83 @@
+package com.legacykeep.chat.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Bounded worker pool for decrypting pages of messages in parallel.
+ * A page is split into contiguous chunks, one per worker; small pages run
+ * on the caller thread. When the queue is full chunks run on the caller,
+ * so a burst of page loads cannot grow the pool or its queue.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class MessageDecryptionPool {
+
+    @Value("${chat.decryption.threads:4}")
+    private int threads;
+
+    @Value("${chat.decryption.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${chat.decryption.parallel-threshold:8}")
+    private int parallelThreshold;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger created = new AtomicInteger();
+        executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "message-decryption-" + created.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        log.info("Message decryption pool started with {} threads", threads);
+    }
+
+    /**
+     * Apply a function to every item, in parallel for large inputs, keeping input order
+     */
+    public <T, R> List<R> map(List<T> items, Function<T, R> function) {
+        if (items.size() < parallelThreshold || executor.getMaximumPoolSize() == 1) {
+            return items.stream().map(function).toList();
+        }
+
+        int chunks = Math.min(executor.getMaximumPoolSize(), items.size());
+        int chunkSize = (items.size() + chunks - 1) / chunks;
+        List<CompletableFuture<List<R>>> futures = new ArrayList<>(chunks);
+        for (int start = 0; start < items.size(); start += chunkSize) {
+            List<T> chunk = items.subList(start, Math.min(start + chunkSize, items.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> chunk.stream().map(function).toList(), executor));
+        }
+
+        List<R> results = new ArrayList<>(items.size());
+        for (CompletableFuture<List<R>> future : futures) {
+            results.addAll(future.join());
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,229 @@
+package com.legacykeep.chat.service.impl;
+
+import com.legacykeep.chat.entity.Message;
+import com.legacykeep.chat.entity.ReEncryptionJob;
+import com.legacykeep.chat.enums.ReEncryptionStatus;
+import com.legacykeep.chat.repository.mongo.MessageRepository;
+import com.legacykeep.chat.repository.mongo.ReEncryptionJobRepository;
+import com.legacykeep.chat.service.EncryptionService;
+import com.legacykeep.chat.service.KeyManagementService;
+import com.legacykeep.chat.service.KeyManagementService.VersionedKey;
+import com.legacykeep.chat.service.MessageReEncryptionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of MessageReEncryptionService.
+ * A job walks a room's encrypted messages in _id order in fixed-size batches,
+ * decrypts each with the key version it was written under, re-encrypts it with
+ * the room's current key and writes the batch back with one bulkWrite. The last
+ * processed id is checkpointed after every batch so an interrupted job resumes
+ * where it stopped, and a pause between batches keeps the load on Mongo bounded.
+ * A worker holds a lease on the job document, renewed with every checkpoint, so
+ * only one instance processes a room even when several resume or start it.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class MessageReEncryptionServiceImpl implements MessageReEncryptionService {
+
+    private final MessageRepository messageRepository;
+    private final ReEncryptionJobRepository reEncryptionJobRepository;
+    private final KeyManagementService keyManagementService;
+    private final EncryptionService encryptionService;
+    private final int batchSize;
+    private final long batchDelayMs;
+    private final Duration leaseDuration;
+
+    // Identifies this instance as the lease owner of the jobs it works
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // Rooms with a worker queued or running on this instance
+    private final Set<Long> activeRooms = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+
+    public MessageReEncryptionServiceImpl(MessageRepository messageRepository,
+                                          ReEncryptionJobRepository reEncryptionJobRepository,
+                                          KeyManagementService keyManagementService,
+                                          EncryptionService encryptionService,
+                                          @Value("${chat.reencryption.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                          @Value("${chat.reencryption.batch-size:200}") int batchSize,
+                                          @Value("${chat.reencryption.batch-delay-ms:100}") long batchDelayMs,
+                                          @Value("${chat.reencryption.lease-seconds:60}") long leaseSeconds) {
+        this.messageRepository = messageRepository;
+        this.reEncryptionJobRepository = reEncryptionJobRepository;
+        this.keyManagementService = keyManagementService;
+        this.encryptionService = encryptionService;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchDelayMs = Math.max(0, batchDelayMs);
+        this.leaseDuration = Duration.ofSeconds(Math.max(1, leaseSeconds));
+        AtomicInteger created = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrentJobs), runnable -> {
+            Thread thread = new Thread(runnable, "message-reencryption-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public ReEncryptionJob startReEncryption(Long chatRoomId, Long userId) {
+        if (!keyManagementService.hasKeyAccess(chatRoomId, userId)) {
+            throw new IllegalArgumentException("User does not have access to encryption key");
+        }
+        VersionedKey currentKey = keyManagementService.getCurrentChatRoomKey(chatRoomId, userId)
+                .orElseThrow(() -> new IllegalArgumentException("Chat room has no encryption key"));
+
+        // A running job is resumed as is; its worker moves to the newest key version on its next batch
+        ReEncryptionJob job = reEncryptionJobRepository
+                .startIfNotRunning(chatRoomId, currentKey.getVersion(), userId, LocalDateTime.now())
+                .or(() -> reEncryptionJobRepository.findById(chatRoomId))
+                .orElseThrow(() -> new IllegalStateException("Re-encryption job disappeared for chat room " + chatRoomId));
+
+        log.info("Re-encryption of chat room {} to key version {} requested by user {}",
+                chatRoomId, currentKey.getVersion(), userId);
+        submit(chatRoomId);
+        return job;
+    }
+
+    @Override
+    public Optional<ReEncryptionJob> getJob(Long chatRoomId) {
+        return reEncryptionJobRepository.findById(chatRoomId);
+    }
+
+    /**
+     * Resume jobs left running by a previous shutdown
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeRunningJobs() {
+        List<ReEncryptionJob> running = reEncryptionJobRepository.findByStatus(ReEncryptionStatus.RUNNING);
+        for (ReEncryptionJob job : running) {
+            log.info("Resuming re-encryption of chat room {} after message {}", job.getChatRoomId(), job.getLastMessageId());
+            submit(job.getChatRoomId());
+        }
+    }
+
+    private void submit(Long chatRoomId) {
+        if (activeRooms.add(chatRoomId)) {
+            executor.execute(() -> run(chatRoomId));
+        }
+    }
+
+    private void run(Long chatRoomId) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Renew the lease and reload each batch so a restart or a new rotation is picked up
+                LocalDateTime now = LocalDateTime.now();
+                ReEncryptionJob job = reEncryptionJobRepository
+                        .acquireLease(chatRoomId, instanceId, now, now.plus(leaseDuration))
+                        .orElse(null);
+                if (job == null || !processBatch(job)) {
+                    return;
+                }
+                if (batchDelayMs > 0) {
+                    Thread.sleep(batchDelayMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Re-encryption of chat room {} failed: {}", chatRoomId, e.getMessage(), e);
+            reEncryptionJobRepository.markFailed(chatRoomId, instanceId, e.getMessage(), LocalDateTime.now());
+        } finally {
+            activeRooms.remove(chatRoomId);
+        }
+        // A restart that arrived while this worker was finishing was not submitted; jobs leased elsewhere are left alone
+        if (!executor.isShutdown() && reEncryptionJobRepository.findById(chatRoomId)
+                .filter(job -> job.getStatus() == ReEncryptionStatus.RUNNING)
+                .filter(job -> job.getOwnerId() == null || job.getLeaseUntil() == null
+                        || job.getLeaseUntil().isBefore(LocalDateTime.now()))
+                .isPresent()) {
+            submit(chatRoomId);
+        }
+    }
+
+    /**
+     * Re-encrypt one batch and checkpoint it, returns false once the room is done or the lease was lost
+     */
+    private boolean processBatch(ReEncryptionJob job) {
+        Long chatRoomId = job.getChatRoomId();
+        Long userId = job.getStartedByUserId();
+        VersionedKey targetKey = keyManagementService.getCurrentChatRoomKey(chatRoomId, userId)
+                .orElseThrow(() -> new IllegalStateException("Current key is not available to user " + userId));
+        String afterMessageId = job.getLastMessageId();
+        if (!Integer.valueOf(targetKey.getVersion()).equals(job.getTargetKeyVersion())) {
+            // Rotated again while running: start over towards the newest version
+            afterMessageId = null;
+        }
+
+        List<Message> batch = messageRepository.findReEncryptionBatch(
+                chatRoomId, targetKey.getVersion(), afterMessageId, batchSize);
+
+        Map<Integer, Optional<String>> previousKeys = new HashMap<>();
+        Map<String, String> reEncrypted = new HashMap<>();
+        int failed = 0;
+        for (Message message : batch) {
+            if (message.getKeyVersion() == null) {
+                failed++;
+                continue;
+            }
+            Optional<String> previousKey = previousKeys.computeIfAbsent(message.getKeyVersion(),
+                    version -> keyManagementService.getChatRoomKey(chatRoomId, version, userId));
+            if (previousKey.isEmpty()) {
+                failed++;
+                continue;
+            }
+            try {
+                String plaintext = encryptionService.decryptMessage(message.getContent(), previousKey.get(),
+                        chatRoomId, message.getKeyVersion());
+                reEncrypted.put(message.getId(), encryptionService.encryptMessage(plaintext, targetKey.getKey(),
+                        chatRoomId, targetKey.getVersion()));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping message {} during re-encryption: {}", message.getId(), e.getMessage());
+                failed++;
+            }
+        }
+
+        int updated = messageRepository.bulkReEncrypt(batch, reEncrypted, targetKey.getVersion());
+
+        if (!batch.isEmpty()) {
+            afterMessageId = batch.get(batch.size() - 1).getId();
+        }
+        boolean more = batch.size() == batchSize;
+        if (!reEncryptionJobRepository.checkpoint(chatRoomId, instanceId, targetKey.getVersion(), afterMessageId,
+                updated, failed, !more, LocalDateTime.now())) {
+            log.info("Re-encryption of chat room {} was taken over or restarted, stopping this worker", chatRoomId);
+            return false;
+        }
+        if (!more) {
+            log.info("Re-encrypted chat room {} to key version {}: {} messages updated, {} skipped",
+                    chatRoomId, targetKey.getVersion(), job.getProcessedMessages() + updated,
+                    job.getFailedMessages() + failed);
+        }
+        return more;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running jobs keep their checkpoint and resume on the next start
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,178 @@
+package com.legacykeep.chat.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Staged pipeline for the post-persist half of the send path.
+ * Room metadata updates and WebSocket fan-out run on separate bounded lanes
+ * so the sender is acknowledged as soon as the message is stored in MongoDB.
+ *
+ * Each stage is striped by chat room: a room always maps to the same
+ * single-threaded lane, which keeps per-room ordering. When a lane's queue
+ * is full the caller waits for room, pushing back on producers without
+ * running the task ahead of the ones already queued; a lane that stays full
+ * past the submit timeout rejects the task.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+@DependsOn("chatRoomActivityBuffer") // destroyed first, so drained metadata tasks reach the final flush
+public class MessageSendPipeline {
+
+    @Value("${chat.pipeline.room-metadata.lanes:4}")
+    private int roomMetadataLanes;
+
+    @Value("${chat.pipeline.room-metadata.queue-capacity:1000}")
+    private int roomMetadataQueueCapacity;
+
+    @Value("${chat.pipeline.fanout.lanes:8}")
+    private int fanoutLanes;
+
+    @Value("${chat.pipeline.fanout.queue-capacity:2000}")
+    private int fanoutQueueCapacity;
+
+    @Value("${chat.pipeline.submit-timeout-ms:5000}")
+    private long submitTimeoutMs;
+
+    @Value("${chat.pipeline.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private ThreadPoolExecutor[] roomMetadataExecutors;
+    private ThreadPoolExecutor[] fanoutExecutors;
+
+    @PostConstruct
+    public void start() {
+        roomMetadataExecutors = createLanes("room-metadata", roomMetadataLanes, roomMetadataQueueCapacity);
+        fanoutExecutors = createLanes("message-fanout", fanoutLanes, fanoutQueueCapacity);
+        log.info("Message send pipeline started with {} room metadata lanes and {} fan-out lanes",
+                roomMetadataLanes, fanoutLanes);
+    }
+
+    /**
+     * Submit a room metadata update (last message info, counters) for a chat room
+     */
+    public void submitRoomMetadata(Long chatRoomId, Runnable task) {
+        laneFor(roomMetadataExecutors, chatRoomId).execute(guarded("room-metadata", chatRoomId, task));
+    }
+
+    /**
+     * Submit a WebSocket fan-out task for a chat room
+     */
+    public void submitFanout(Long chatRoomId, Runnable task) {
+        laneFor(fanoutExecutors, chatRoomId).execute(guarded("message-fanout", chatRoomId, task));
+    }
+
+    /**
+     * Get the number of room metadata tasks waiting across all lanes
+     */
+    public int getRoomMetadataQueueDepth() {
+        return queueDepth(roomMetadataExecutors);
+    }
+
+    /**
+     * Get the number of fan-out tasks waiting across all lanes
+     */
+    public int getFanoutQueueDepth() {
+        return queueDepth(fanoutExecutors);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Draining message send pipeline");
+        // Metadata first so counters are up to date before fan-out drains
+        drain(roomMetadataExecutors);
+        drain(fanoutExecutors);
+    }
+
+    private ThreadPoolExecutor[] createLanes(String name, int lanes, int queueCapacity) {
+        ThreadPoolExecutor[] executors = new ThreadPoolExecutor[Math.max(1, lanes)];
+        for (int i = 0; i < executors.length; i++) {
+            String threadName = name + "-" + i;
+            AtomicInteger created = new AtomicInteger();
+            executors[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName + "-" + created.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    waitForRoom(threadName));
+        }
+        return executors;
+    }
+
+    /**
+     * Queue the task once the lane has room, so it still runs after the room's earlier tasks
+     */
+    private RejectedExecutionHandler waitForRoom(String lane) {
+        return (runnable, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Pipeline lane " + lane + " is shut down");
+            }
+            try {
+                if (!executor.getQueue().offer(runnable, submitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    log.error("Pipeline lane {} stayed full for {} ms, rejecting task", lane, submitTimeoutMs);
+                    throw new RejectedExecutionException("Pipeline lane " + lane + " is full");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted waiting for pipeline lane " + lane, e);
+            }
+        };
+    }
+
+    private ThreadPoolExecutor laneFor(ThreadPoolExecutor[] executors, Long chatRoomId) {
+        int hash = chatRoomId != null ? Long.hashCode(chatRoomId) : 0;
+        return executors[Math.floorMod(hash, executors.length)];
+    }
+
+    private Runnable guarded(String stage, Long chatRoomId, Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Error in {} stage for chat room {}: {}", stage, chatRoomId, e.getMessage(), e);
+            }
+        };
+    }
+
+    private int queueDepth(ThreadPoolExecutor[] executors) {
+        int depth = 0;
+        for (ThreadPoolExecutor executor : executors) {
+            depth += executor.getQueue().size();
+        }
+        return depth;
+    }
+
+    private void drain(ThreadPoolExecutor[] executors) {
+        for (ThreadPoolExecutor executor : executors) {
+            executor.shutdown();
+        }
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        for (ThreadPoolExecutor executor : executors) {
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                if (!executor.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+                    log.warn("Pipeline lane did not drain in time, {} tasks dropped", executor.shutdownNow().size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+            }
+        }
+    }
+}
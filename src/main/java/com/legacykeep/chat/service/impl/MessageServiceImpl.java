@@ -7,22 +7,28 @@ import com.legacykeep.chat.dto.request.SendMessageRequest;
 import com.legacykeep.chat.dto.request.EditMessageWithHistoryRequest;
 import com.legacykeep.chat.dto.request.DeleteMessageRequest;
 import com.legacykeep.chat.dto.request.ScheduleMessageRequest;
+import com.legacykeep.chat.entity.ChatParticipant;
 import com.legacykeep.chat.entity.Message;
 import com.legacykeep.chat.entity.MessageEditHistory;
 import com.legacykeep.chat.entity.ScheduledMessage;
 import com.legacykeep.chat.dto.response.ThreadSummary;
+import com.legacykeep.chat.enums.MailboxEventType;
 import com.legacykeep.chat.enums.MessageStatus;
 import com.legacykeep.chat.enums.MessageType;
 import com.legacykeep.chat.repository.mongo.MessageRepository;
 import com.legacykeep.chat.repository.mongo.MessageEditHistoryRepository;
 import com.legacykeep.chat.repository.mongo.ScheduledMessageRepository;
+import com.legacykeep.chat.repository.postgres.ChatParticipantRepository;
 import com.legacykeep.chat.service.ChatRoomService;
 import com.legacykeep.chat.service.ContentFilterService;
 import com.legacykeep.chat.service.EncryptionService;
 import com.legacykeep.chat.service.KeyManagementService;
 import com.legacykeep.chat.service.MessageService;
+import com.legacykeep.chat.service.UserMailboxService;
+import com.legacykeep.chat.service.UserMessageStatsService;
 import com.legacykeep.chat.service.WebSocketService;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -31,8 +37,10 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -49,6 +57,7 @@ import java.util.stream.Collectors;
 public class MessageServiceImpl implements MessageService {
 
     private final MessageRepository messageRepository;
+    private final ChatParticipantRepository chatParticipantRepository;
     private final MessageEditHistoryRepository messageEditHistoryRepository;
     private final ScheduledMessageRepository scheduledMessageRepository;
     private final ChatRoomService chatRoomService;
@@ -56,9 +65,25 @@ public class MessageServiceImpl implements MessageService {
     private final EncryptionService encryptionService;
     private final KeyManagementService keyManagementService;
     private final ContentFilterService contentFilterService;
+    private final MessageSendPipeline messageSendPipeline;
+    private final MessageDecryptionPool messageDecryptionPool;
+    private final RoomStatsCache roomStatsCache;
+    private final UserMessageStatsService userMessageStatsService;
+    private final UserMailboxService userMailboxService;
+
+    private static final int MAX_HISTORY_LIMIT = 100;
+    private static final Sort HISTORY_NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+    private static final Sort HISTORY_OLDEST_FIRST = Sort.by(Sort.Direction.ASC, "createdAt", "id");
 
     @Override
     public Message sendMessage(SendMessageRequest request) {
+        return sendMessage(request, Set.of(), savedMessage -> webSocketService.sendMessageToRoom(savedMessage.getChatRoomId(), savedMessage));
+    }
+
+    /**
+     * Persist a message, withheld from the filtered users, and hand its fan-out to the send pipeline
+     */
+    private Message sendMessage(SendMessageRequest request, Set<Long> filteredUserIds, Consumer<Message> fanout) {
         log.debug("Sending message to chat room: {} from user: {}", request.getChatRoomId(), request.getSenderUserId());
         
         // Validate chat room exists and user has access
@@ -81,24 +106,26 @@ public class MessageServiceImpl implements MessageService {
         // Handle encryption if requested
         String messageContent = request.getContent();
         boolean isEncrypted = request.getIsEncrypted() != null ? request.getIsEncrypted() : false;
+        Integer keyVersion = null;
         
         if (isEncrypted) {
             log.debug("Encrypting message content for chat room: {}", request.getChatRoomId());
             
-            // Get encryption key for the chat room
-            Optional<String> encryptionKeyOpt = keyManagementService.getChatRoomKey(request.getChatRoomId(), request.getSenderUserId());
-            if (encryptionKeyOpt.isEmpty()) {
-                // Generate new key if none exists
-                String newKey = keyManagementService.generateChatRoomKey(request.getChatRoomId(), request.getSenderUserId());
+            // Generate the room's first key if none exists yet
+            if (!keyManagementService.hasChatRoomKey(request.getChatRoomId())) {
+                keyManagementService.generateChatRoomKey(request.getChatRoomId(), request.getSenderUserId());
                 log.info("Generated new encryption key for chat room: {}", request.getChatRoomId());
-                
-                // Encrypt the message content
-                messageContent = encryptionService.encryptMessage(request.getContent(), newKey);
-            } else {
-                // Encrypt the message content with existing key
-                messageContent = encryptionService.encryptMessage(request.getContent(), encryptionKeyOpt.get());
             }
             
+            // Encrypt with the current key and record its version on the message
+            KeyManagementService.VersionedKey encryptionKey = keyManagementService
+                    .getCurrentChatRoomKey(request.getChatRoomId(), request.getSenderUserId())
+                    .orElseThrow(() -> new RuntimeException("User " + request.getSenderUserId()
+                            + " does not have access to the encryption key for chat room: " + request.getChatRoomId()));
+            messageContent = encryptionService.encryptMessage(request.getContent(), encryptionKey.getKey(),
+                    request.getChatRoomId(), encryptionKey.getVersion());
+            keyVersion = encryptionKey.getVersion();
+            
             log.debug("Message content encrypted successfully");
         }
 
@@ -114,6 +141,7 @@ public class MessageServiceImpl implements MessageService {
                 .forwardedFromMessageId(request.getForwardedFromMessageId())
                 .isStarred(false)
                 .isEncrypted(isEncrypted)
+                .keyVersion(keyVersion)
                 .isProtected(request.getIsProtected() != null ? request.getIsProtected() : false)
                 .protectionLevel(request.getProtectionLevel())
                 .passwordHash(request.getPasswordHash())
@@ -148,18 +176,24 @@ public class MessageServiceImpl implements MessageService {
                 .reactions(new HashMap<>())
                 .readBy(new HashMap<>())
                 .metadata(request.getMetadata())
+                .filteredUserIds(filteredUserIds.isEmpty() ? null : filteredUserIds)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
 
-        Message savedMessage = messageRepository.save(message);
+        String statsChangeId = userMessageStatsService.beginChange(message.getSenderUserId());
+        Message savedMessage = saveCounted(message, statsChangeId);
         
-        // Update chat room last message info
-        chatRoomService.updateLastMessageInfo(request.getChatRoomId(), savedMessage.getId(), request.getSenderUserId());
-        chatRoomService.incrementMessageCount(request.getChatRoomId());
-        
-        // Send real-time notification
-        webSocketService.sendMessageToRoom(request.getChatRoomId(), savedMessage);
+        // Acknowledge once the message is stored; room metadata and fan-out run on the pipeline
+        Long chatRoomId = request.getChatRoomId();
+        Long senderUserId = request.getSenderUserId();
+        messageSendPipeline.submitRoomMetadata(chatRoomId, () -> {
+            chatRoomService.updateLastMessageInfo(chatRoomId, savedMessage.getId(), senderUserId,
+                    savedMessage.getCreatedAt());
+            chatRoomService.incrementMessageCount(chatRoomId);
+            userMessageStatsService.recordSent(statsChangeId, savedMessage);
+        });
+        messageSendPipeline.submitFanout(chatRoomId, () -> fanout.accept(savedMessage));
         
         log.info("Sent message with ID: {} to chat room: {}", savedMessage.getId(), request.getChatRoomId());
         return savedMessage;
@@ -194,67 +228,18 @@ public class MessageServiceImpl implements MessageService {
         if (message.getIsEncrypted() != null && message.getIsEncrypted()) {
             log.debug("Decrypting message content for user: {}", userId);
             
-            Optional<String> encryptionKeyOpt = keyManagementService.getChatRoomKey(message.getChatRoomId(), userId);
+            Optional<String> encryptionKeyOpt = keyManagementService.getChatRoomKey(message.getChatRoomId(), message.getKeyVersion(), userId);
             if (encryptionKeyOpt.isEmpty()) {
                 log.warn("User {} does not have access to encryption key for message {}", userId, id);
                 return Optional.empty();
             }
             
             try {
-                String decryptedContent = encryptionService.decryptMessage(message.getContent(), encryptionKeyOpt.get());
-                // Create a new message object with decrypted content
-                message = Message.builder()
-                        .id(message.getId())
-                        .messageUuid(message.getMessageUuid())
-                        .chatRoomId(message.getChatRoomId())
-                        .senderUserId(message.getSenderUserId())
-                        .messageType(message.getMessageType())
-                        .content(decryptedContent) // Decrypted content
-                        .status(message.getStatus())
-                        .replyToMessageId(message.getReplyToMessageId())
-                        .forwardedFromMessageId(message.getForwardedFromMessageId())
-                        .isStarred(message.getIsStarred())
-                        .isEncrypted(message.getIsEncrypted())
-                        .isProtected(message.getIsProtected())
-                        .protectionLevel(message.getProtectionLevel())
-                        .passwordHash(message.getPasswordHash())
-                        .selfDestructAt(message.getSelfDestructAt())
-                        .screenshotProtection(message.getScreenshotProtection())
-                        .viewCount(message.getViewCount())
-                        .maxViews(message.getMaxViews())
-                        .toneColor(message.getToneColor())
-                        .toneConfidence(message.getToneConfidence())
-                        .contextWrapper(message.getContextWrapper())
-                        .moodTag(message.getMoodTag())
-                        .voiceEmotion(message.getVoiceEmotion())
-                        .memoryTriggers(message.getMemoryTriggers())
-                        .predictiveText(message.getPredictiveText())
-                        .aiToneSuggestion(message.getAiToneSuggestion())
-                        .mediaUrl(message.getMediaUrl())
-                        .mediaThumbnailUrl(message.getMediaThumbnailUrl())
-                        .mediaSize(message.getMediaSize())
-                        .mediaDuration(message.getMediaDuration())
-                        .mediaFormat(message.getMediaFormat())
-                        .mediaMetadata(message.getMediaMetadata())
-                        .locationLatitude(message.getLocationLatitude())
-                        .locationLongitude(message.getLocationLongitude())
-                        .locationAddress(message.getLocationAddress())
-                        .locationName(message.getLocationName())
-                        .contactName(message.getContactName())
-                        .contactPhone(message.getContactPhone())
-                        .contactEmail(message.getContactEmail())
-                        .storyId(message.getStoryId())
-                        .memoryId(message.getMemoryId())
-                        .eventId(message.getEventId())
-                        .reactions(message.getReactions())
-                        .readBy(message.getReadBy())
-                        .metadata(message.getMetadata())
-                        .createdAt(message.getCreatedAt())
-                        .updatedAt(message.getUpdatedAt())
-                        .editedAt(message.getEditedAt())
-                        .deletedAt(message.getDeletedAt())
-                        .deletedByUserId(message.getDeletedByUserId())
-                        .isDeletedForEveryone(message.getIsDeletedForEveryone())
+                String decryptedContent = encryptionService.decryptMessage(message.getContent(), encryptionKeyOpt.get(),
+                        message.getChatRoomId(), message.getKeyVersion());
+                // Copy the message with decrypted content so the stored entity is left untouched
+                message = message.toBuilder()
+                        .content(decryptedContent)
                         .build();
                 
                 log.debug("Message content decrypted successfully for user: {}", userId);
@@ -267,6 +252,42 @@ public class MessageServiceImpl implements MessageService {
         return Optional.of(message);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<DecryptedMessage> decryptPage(List<Message> messages, Long userId) {
+        log.debug("Decrypting page of {} messages for user: {}", messages.size(), userId);
+        
+        // One key lookup per room key version on the page, not per message
+        Map<String, Optional<String>> roomKeys = new HashMap<>();
+        for (Message message : messages) {
+            if (message.isEncrypted() && message.getChatRoomId() != null) {
+                roomKeys.computeIfAbsent(roomKeyRef(message),
+                        ref -> keyManagementService.getChatRoomKey(message.getChatRoomId(), message.getKeyVersion(), userId));
+            }
+        }
+        
+        return messageDecryptionPool.map(messages, message -> {
+            if (!message.isEncrypted() || message.getContent() == null) {
+                return new DecryptedMessage(message, message.getContent(), false);
+            }
+            Optional<String> encryptionKey = roomKeys.getOrDefault(roomKeyRef(message), Optional.empty());
+            if (encryptionKey.isEmpty()) {
+                return new DecryptedMessage(message, message.getContent(), false);
+            }
+            try {
+                return new DecryptedMessage(message, encryptionService.decryptMessage(message.getContent(), encryptionKey.get(),
+                        message.getChatRoomId(), message.getKeyVersion()), true);
+            } catch (Exception e) {
+                log.warn("Failed to decrypt message {} for user {}: {}", message.getId(), userId, e.getMessage());
+                return new DecryptedMessage(message, message.getContent(), false);
+            }
+        });
+    }
+
+    private static String roomKeyRef(Message message) {
+        return message.getChatRoomId() + ":" + message.getKeyVersion();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<Message> getMessageByUuid(String messageUuid) {
@@ -292,14 +313,15 @@ public class MessageServiceImpl implements MessageService {
         }
 
         // Update message content
-        message.setContent(request.getNewContent());
-        message.setEditedAt(LocalDateTime.now());
-        message.setUpdatedAt(LocalDateTime.now());
-
-        Message updatedMessage = messageRepository.save(message);
+        Message updatedMessage = saveChange(message, edited -> {
+            edited.setContent(request.getNewContent());
+            edited.setEditedAt(LocalDateTime.now());
+            edited.setUpdatedAt(LocalDateTime.now());
+        });
         
         // Send real-time notification
         webSocketService.sendMessageEditNotification(messageId, request.getUserId(), request.getNewContent());
+        recordRoomChange(updatedMessage.getChatRoomId(), MailboxEventType.MESSAGE_EDITED, messageId, request.getUserId());
         
         log.info("Edited message with ID: {}", messageId);
         return updatedMessage;
@@ -318,12 +340,7 @@ public class MessageServiceImpl implements MessageService {
         }
 
         // Soft delete - mark as deleted
-        message.setDeletedAt(LocalDateTime.now());
-        message.setDeletedByUserId(userId);
-        message.setIsDeletedForEveryone(false);
-        message.setUpdatedAt(LocalDateTime.now());
-
-        messageRepository.save(message);
+        softDelete(message, userId, false, LocalDateTime.now());
         
         // Send real-time notification
         webSocketService.sendMessageDeleteNotification(messageId, userId, false);
@@ -349,12 +366,7 @@ public class MessageServiceImpl implements MessageService {
         }
 
         // Soft delete for everyone
-        message.setDeletedAt(LocalDateTime.now());
-        message.setDeletedByUserId(userId);
-        message.setIsDeletedForEveryone(true);
-        message.setUpdatedAt(LocalDateTime.now());
-
-        messageRepository.save(message);
+        softDelete(message, userId, true, LocalDateTime.now());
         
         // Send real-time notification to all participants
         webSocketService.sendMessageDeleteNotification(messageId, userId, true);
@@ -404,16 +416,24 @@ public class MessageServiceImpl implements MessageService {
                 .updatedAt(LocalDateTime.now())
                 .build();
 
-        Message savedForwardedMessage = messageRepository.save(forwardedMessage);
-        
-        // Update chat room last message info
-        chatRoomService.updateLastMessageInfo(request.getToChatRoomId(), savedForwardedMessage.getId(), request.getFromUserId());
-        chatRoomService.incrementMessageCount(request.getToChatRoomId());
-        
-        // Send real-time notifications
-        webSocketService.sendMessageToRoom(request.getToChatRoomId(), savedForwardedMessage);
-        webSocketService.sendMessageForwardNotification(request.getOriginalMessageId(), savedForwardedMessage.getId(), 
-                request.getFromUserId(), request.getToChatRoomId());
+        String statsChangeId = userMessageStatsService.beginChange(forwardedMessage.getSenderUserId());
+        Message savedForwardedMessage = saveCounted(forwardedMessage, statsChangeId);
+        
+        // Acknowledge once the message is stored; room metadata and fan-out run on the pipeline
+        Long toChatRoomId = request.getToChatRoomId();
+        Long fromUserId = request.getFromUserId();
+        String originalMessageId = request.getOriginalMessageId();
+        messageSendPipeline.submitRoomMetadata(toChatRoomId, () -> {
+            chatRoomService.updateLastMessageInfo(toChatRoomId, savedForwardedMessage.getId(), fromUserId,
+                    savedForwardedMessage.getCreatedAt());
+            chatRoomService.incrementMessageCount(toChatRoomId);
+            userMessageStatsService.recordSent(statsChangeId, savedForwardedMessage);
+        });
+        messageSendPipeline.submitFanout(toChatRoomId, () -> {
+            webSocketService.sendMessageToRoom(toChatRoomId, savedForwardedMessage);
+            webSocketService.sendMessageForwardNotification(originalMessageId, savedForwardedMessage.getId(),
+                    fromUserId, toChatRoomId);
+        });
         
         log.info("Forwarded message with ID: {} to chat room: {}", request.getOriginalMessageId(), request.getToChatRoomId());
         return savedForwardedMessage;
@@ -423,15 +443,22 @@ public class MessageServiceImpl implements MessageService {
     public Message toggleStarMessage(String messageId, Long userId) {
         log.debug("Toggling star for message with ID: {} by user: {}", messageId, userId);
         
-        Message message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new RuntimeException("Message not found with ID: " + messageId));
-
-        // Toggle star status
-        boolean newStarStatus = !(message.getIsStarred() != null && message.getIsStarred());
-        message.setIsStarred(newStarStatus);
-        message.setUpdatedAt(LocalDateTime.now());
-
-        Message updatedMessage = messageRepository.save(message);
+        Message message = messageRepository.findProjectedForUpdate(messageId);
+        if (message == null) {
+            throw new RuntimeException("Message not found with ID: " + messageId);
+        }
+        // A deleted message's star is not counted, so only a live one marks a stats change
+        Long senderUserId = message.getSenderUserId();
+        String statsChangeId = message.getDeletedAt() == null ? userMessageStatsService.beginChange(senderUserId) : null;
+        
+        // Flip the flag server-side so concurrent toggles cannot overwrite each other
+        Message updatedMessage = messageRepository.toggleStar(messageId);
+        if (updatedMessage == null) {
+            userMessageStatsService.cancelChange(senderUserId, statsChangeId);
+            throw new RuntimeException("Message not found with ID: " + messageId);
+        }
+        boolean newStarStatus = updatedMessage.isStarred();
+        userMessageStatsService.recordStarToggle(statsChangeId, updatedMessage);
         
         // Send real-time notification
         webSocketService.sendMessageStarNotification(messageId, userId, newStarStatus);
@@ -444,103 +471,201 @@ public class MessageServiceImpl implements MessageService {
     public Message addReaction(String messageId, ReactionRequest request) {
         log.debug("Adding reaction {} to message with ID: {} by user: {}", request.getEmoji(), messageId, request.getUserId());
         
-        Message message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new RuntimeException("Message not found with ID: " + messageId));
-
-        // Initialize reactions map if null
-        if (message.getReactions() == null) {
-            message.setReactions(new HashMap<>());
-        }
-
-        // Add reaction
-        List<Long> users = message.getReactions().getOrDefault(request.getEmoji(), new ArrayList<>());
-        if (!users.contains(request.getUserId())) {
-            users.add(request.getUserId());
-            message.getReactions().put(request.getEmoji(), users);
-            message.setUpdatedAt(LocalDateTime.now());
-
-            Message updatedMessage = messageRepository.save(message);
-            
-            // Send real-time notification
-            webSocketService.sendMessageReaction(messageId, request.getUserId(), request.getEmoji(), true);
-            
-            log.info("Added reaction {} to message with ID: {} by user: {}", request.getEmoji(), messageId, request.getUserId());
-            return updatedMessage;
+        validateReactionKey(request.getEmoji());
+        Message updatedMessage = messageRepository.addReaction(messageId, request.getEmoji(), request.getUserId());
+        if (updatedMessage == null) {
+            // Either the message does not exist or the user already reacted with this emoji
+            return findProjectedOrThrow(messageId);
         }
 
-        return message;
+        // Send real-time notification
+        webSocketService.sendMessageReaction(messageId, request.getUserId(), request.getEmoji(), true);
+        recordRoomChange(updatedMessage.getChatRoomId(), MailboxEventType.REACTION_CHANGED, messageId, request.getUserId());
+        
+        log.info("Added reaction {} to message with ID: {} by user: {}", request.getEmoji(), messageId, request.getUserId());
+        return updatedMessage;
     }
 
     @Override
     public Message removeReaction(String messageId, Long userId, String emoji) {
         log.debug("Removing reaction {} from message with ID: {} by user: {}", emoji, messageId, userId);
         
-        Message message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new RuntimeException("Message not found with ID: " + messageId));
-
-        if (message.getReactions() != null && message.getReactions().containsKey(emoji)) {
-            List<Long> users = message.getReactions().get(emoji);
-            users.remove(userId);
-            
-            if (users.isEmpty()) {
-                message.getReactions().remove(emoji);
-            } else {
-                message.getReactions().put(emoji, users);
-            }
-            
-            message.setUpdatedAt(LocalDateTime.now());
-            Message updatedMessage = messageRepository.save(message);
-            
-            // Send real-time notification
-            webSocketService.sendMessageReaction(messageId, userId, emoji, false);
-            
-            log.info("Removed reaction {} from message with ID: {} by user: {}", emoji, messageId, userId);
-            return updatedMessage;
+        validateReactionKey(emoji);
+        Message updatedMessage = messageRepository.removeReaction(messageId, emoji, userId);
+        if (updatedMessage == null) {
+            // Either the message does not exist or the user had not reacted with this emoji
+            return findProjectedOrThrow(messageId);
         }
 
-        return message;
+        // Send real-time notification
+        webSocketService.sendMessageReaction(messageId, userId, emoji, false);
+        recordRoomChange(updatedMessage.getChatRoomId(), MailboxEventType.REACTION_CHANGED, messageId, userId);
+        
+        log.info("Removed reaction {} from message with ID: {} by user: {}", emoji, messageId, userId);
+        return updatedMessage;
     }
 
     @Override
     public void markMessageAsRead(String messageId, Long userId) {
         log.debug("Marking message with ID: {} as read by user: {}", messageId, userId);
         
-        Message message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new RuntimeException("Message not found with ID: " + messageId));
-
-        // Initialize readBy map if null
-        if (message.getReadBy() == null) {
-            message.setReadBy(new HashMap<>());
+        Message readMessage = messageRepository.markReadIfUnread(messageId, userId, LocalDateTime.now());
+        if (readMessage == null) {
+            if (!messageRepository.existsById(messageId)) {
+                throw new RuntimeException("Message not found with ID: " + messageId);
+            }
+            log.debug("Message with ID: {} already read by user: {}", messageId, userId);
+            return;
         }
-
-        // Mark as read
-        message.getReadBy().put(userId, LocalDateTime.now());
-        message.setUpdatedAt(LocalDateTime.now());
-
-        messageRepository.save(message);
         
         // Send real-time notification
         webSocketService.sendReadReceipt(messageId, userId);
+        Long chatRoomId = readMessage.getChatRoomId();
+        Long senderUserId = readMessage.getSenderUserId();
+        messageSendPipeline.submitFanout(chatRoomId,
+                () -> userMailboxService.recordReadReceipt(chatRoomId, messageId, senderUserId, userId));
         
         log.debug("Marked message with ID: {} as read by user: {}", messageId, userId);
     }
 
+    private Message findProjectedOrThrow(String messageId) {
+        Message message = messageRepository.findProjectedForUpdate(messageId);
+        if (message == null) {
+            throw new RuntimeException("Message not found with ID: " + messageId);
+        }
+        return message;
+    }
+
+    /**
+     * Reaction emojis become document field names, so they cannot contain path or operator characters
+     */
+    private void validateReactionKey(String emoji) {
+        if (emoji == null || emoji.isBlank() || emoji.contains(".") || emoji.startsWith("$")) {
+            throw new IllegalArgumentException("Invalid reaction: " + emoji);
+        }
+    }
+
+    /**
+     * Apply a change to a message and save it, keeping the sender's stats rollup in step
+     */
+    private Message saveChange(Message message, Consumer<Message> change) {
+        Map<String, Long> statsBefore = userMessageStatsService.countersOf(message);
+        change.accept(message);
+        if (statsBefore.equals(userMessageStatsService.countersOf(message))) {
+            return messageRepository.save(message);
+        }
+        String statsChangeId = userMessageStatsService.beginChange(message.getSenderUserId());
+        Message saved = saveCounted(message, statsChangeId);
+        userMessageStatsService.recordChange(statsChangeId, statsBefore, saved);
+        return saved;
+    }
+
+    /**
+     * Save a message whose stats change was begun, dropping the change if the save fails
+     */
+    private Message saveCounted(Message message, String statsChangeId) {
+        try {
+            return messageRepository.save(message);
+        } catch (RuntimeException e) {
+            userMessageStatsService.cancelChange(message.getSenderUserId(), statsChangeId);
+            throw e;
+        }
+    }
+
+    /**
+     * Permanently delete messages, keeping their senders' stats rollups in step
+     */
+    private void deleteCounted(List<Message> messages) {
+        // Deleted messages count for nothing, so only live ones mark a stats change
+        List<String> statsChangeIds = messages.stream()
+                .map(message -> message.getDeletedAt() == null
+                        ? userMessageStatsService.beginChange(message.getSenderUserId()) : null)
+                .collect(Collectors.toList());
+        messageRepository.deleteAll(messages);
+        for (int i = 0; i < messages.size(); i++) {
+            userMessageStatsService.recordRemoved(statsChangeIds.get(i), messages.get(i));
+        }
+    }
+
+    /**
+     * Soft delete a message, keeping the stats rollup and the delta-sync log in step
+     */
+    private void softDelete(Message message, Long deletedByUserId, boolean forEveryone, LocalDateTime deletedAt) {
+        saveChange(message, deleted -> {
+            deleted.setDeletedAt(deletedAt);
+            deleted.setDeletedByUserId(deletedByUserId);
+            deleted.setIsDeletedForEveryone(forEveryone);
+            deleted.setUpdatedAt(deletedAt);
+        });
+        recordMessageDeleted(message);
+    }
+
+    /**
+     * Record a delete in the delta-sync log: room-wide when deleted for everyone, otherwise for the deleting user only
+     */
+    private void recordMessageDeleted(Message message) {
+        Long chatRoomId = message.getChatRoomId();
+        if (Boolean.TRUE.equals(message.getIsDeletedForEveryone()) || message.getDeletedByUserId() == null) {
+            recordRoomChange(chatRoomId, MailboxEventType.MESSAGE_DELETED, message.getId(), message.getDeletedByUserId());
+        } else {
+            Long userId = message.getDeletedByUserId();
+            messageSendPipeline.submitFanout(chatRoomId, () -> userMailboxService.recordUserChange(
+                    userId, chatRoomId, MailboxEventType.MESSAGE_DELETED, message.getId()));
+        }
+    }
+
+    /**
+     * Record a change in the room's delta-sync log on its fan-out lane, so it is sequenced after earlier deliveries
+     */
+    private void recordRoomChange(Long chatRoomId, MailboxEventType eventType, String messageId, Long actorUserId) {
+        messageSendPipeline.submitFanout(chatRoomId, () -> userMailboxService.recordRoomChange(
+                chatRoomId, eventType, messageId, actorUserId));
+    }
+
     @Override
     public void markMessagesAsReadInRoom(Long chatRoomId, Long userId) {
         log.debug("Marking all messages in chat room: {} as read by user: {}", chatRoomId, userId);
         
-        // Get unread messages in the room
-        List<Message> unreadMessages = messageRepository.findByChatRoomIdOrderByCreatedAtDesc(chatRoomId)
-                .stream()
-                .filter(msg -> !msg.isReadBy(userId))
-                .collect(Collectors.toList());
+        List<Message> latest = messageRepository.findHistoryHead(chatRoomId, PageRequest.of(0, 1, HISTORY_NEWEST_FIRST));
+        if (latest.isEmpty()) {
+            return;
+        }
+        Message newest = latest.get(0);
+
+        // Only messages between the previous watermark and the newest message need a receipt
+        Optional<ChatParticipant> participant = chatParticipantRepository.findByChatRoomIdAndUserId(chatRoomId, userId);
+        LocalDateTime previousWatermark = participant.map(ChatParticipant::getLastReadAt).orElse(null);
+        if (previousWatermark != null && !newest.getCreatedAt().isAfter(previousWatermark)) {
+            log.debug("Chat room: {} already read up to {} by user: {}", chatRoomId, previousWatermark, userId);
+            return;
+        }
 
-        // Mark all as read
-        for (Message message : unreadMessages) {
-            markMessageAsRead(message.getId(), userId);
+        long marked = messageRepository.markReadBetween(chatRoomId, userId, previousWatermark,
+                newest.getCreatedAt(), LocalDateTime.now());
+        if (participant.isPresent()) {
+            chatParticipantRepository.advanceReadWatermark(chatRoomId, userId, newest.getCreatedAt(), newest.getId());
+        } else {
+            log.debug("No participant record for user: {} in chat room: {}, read watermark not stored", userId, chatRoomId);
         }
+
+        // One receipt for the watermark message covers everything before it
+        webSocketService.sendReadReceipt(newest.getId(), userId);
+        recordRoomChange(chatRoomId, MailboxEventType.READ_RECEIPT, newest.getId(), userId);
         
-        log.info("Marked {} messages as read in chat room: {} by user: {}", unreadMessages.size(), chatRoomId, userId);
+        log.info("Marked {} messages as read in chat room: {} by user: {}", marked, chatRoomId, userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getUnreadCount(Long chatRoomId, Long userId) {
+        log.debug("Getting unread count in chat room: {} for user: {}", chatRoomId, userId);
+        
+        LocalDateTime watermark = chatParticipantRepository.findByChatRoomIdAndUserId(chatRoomId, userId)
+                .map(ChatParticipant::getLastReadAt)
+                .orElse(null);
+        return watermark != null
+                ? messageRepository.countUnreadAfter(chatRoomId, watermark, userId)
+                : messageRepository.countUnreadInRoom(chatRoomId, userId);
     }
 
     @Override
@@ -562,11 +687,9 @@ public class MessageServiceImpl implements MessageService {
     public List<Message> getMessagesBefore(Long chatRoomId, String messageId, int limit) {
         log.debug("Getting {} messages before message: {} in chat room: {}", limit, messageId, chatRoomId);
         
-        Message message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new RuntimeException("Message not found with ID: " + messageId));
-
-        return messageRepository.findMessagesBefore(chatRoomId, message.getCreatedAt(), 
-                Pageable.ofSize(limit)).getContent();
+        Message message = getHistoryAnchor(chatRoomId, messageId);
+        return messageRepository.findHistoryBefore(chatRoomId, message.getCreatedAt(), toObjectId(message.getId()),
+                PageRequest.of(0, clampHistoryLimit(limit), HISTORY_NEWEST_FIRST));
     }
 
     @Override
@@ -574,13 +697,77 @@ public class MessageServiceImpl implements MessageService {
     public List<Message> getMessagesAfter(Long chatRoomId, String messageId, int limit) {
         log.debug("Getting {} messages after message: {} in chat room: {}", limit, messageId, chatRoomId);
         
+        Message message = getHistoryAnchor(chatRoomId, messageId);
+        return messageRepository.findHistoryAfter(chatRoomId, message.getCreatedAt(), toObjectId(message.getId()),
+                PageRequest.of(0, clampHistoryLimit(limit), HISTORY_OLDEST_FIRST));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MessageHistoryPage getRoomHistory(Long chatRoomId, String cursor, int limit) {
+        log.debug("Getting room history for chat room: {} with cursor: {} and limit: {}", chatRoomId, cursor, limit);
+        
+        int pageSize = clampHistoryLimit(limit);
+        // Fetch one extra row to learn whether another page exists without a count query
+        Pageable seek = PageRequest.of(0, pageSize + 1, HISTORY_NEWEST_FIRST);
+
+        List<Message> messages;
+        if (cursor == null || cursor.isBlank()) {
+            messages = messageRepository.findHistoryHead(chatRoomId, seek);
+        } else {
+            HistoryCursor position = decodeHistoryCursor(cursor);
+            messages = messageRepository.findHistoryBefore(chatRoomId, position.createdAt(), position.id(), seek);
+        }
+
+        boolean hasMore = messages.size() > pageSize;
+        if (hasMore) {
+            messages = new ArrayList<>(messages.subList(0, pageSize));
+        }
+        String nextCursor = hasMore ? encodeHistoryCursor(messages.get(messages.size() - 1)) : null;
+        return new MessageHistoryPage(messages, nextCursor, hasMore);
+    }
+
+    private Message getHistoryAnchor(Long chatRoomId, String messageId) {
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new RuntimeException("Message not found with ID: " + messageId));
+        if (!chatRoomId.equals(message.getChatRoomId())) {
+            throw new IllegalArgumentException("Message " + messageId + " does not belong to chat room " + chatRoomId);
+        }
+        return message;
+    }
+
+    private int clampHistoryLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_HISTORY_LIMIT));
+    }
 
-        return messageRepository.findMessagesAfter(chatRoomId, message.getCreatedAt(), 
-                Pageable.ofSize(limit)).getContent();
+    private ObjectId toObjectId(String id) {
+        if (!ObjectId.isValid(id)) {
+            throw new IllegalArgumentException("Invalid message ID: " + id);
+        }
+        return new ObjectId(id);
     }
 
+    /**
+     * Encode the (createdAt, id) keyset position of a message as an opaque URL-safe cursor
+     */
+    private String encodeHistoryCursor(Message message) {
+        String position = message.getCreatedAt() + "|" + message.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private HistoryCursor decodeHistoryCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return new HistoryCursor(LocalDateTime.parse(position.substring(0, separator)),
+                    toObjectId(position.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor: " + cursor, e);
+        }
+    }
+
+    private record HistoryCursor(LocalDateTime createdAt, ObjectId id) {}
+
     @Override
     @Transactional(readOnly = true)
     public List<Message> getMessagesBySender(Long senderUserId) {
@@ -895,54 +1082,33 @@ public class MessageServiceImpl implements MessageService {
     @Transactional(readOnly = true)
     public MessageStats getMessageStatsForUser(Long userId) {
         log.debug("Getting message statistics for user: {}", userId);
-        
-        long totalMessages = messageRepository.countBySenderUserId(userId);
-        long textMessages = messageRepository.countByMessageType(MessageType.TEXT);
-        long mediaMessages = messageRepository.countMessagesWithMedia();
-        long voiceMessages = messageRepository.countByMessageType(MessageType.AUDIO);
-        long starredMessages = messageRepository.countStarredMessagesByUser(userId);
-        long protectedMessages = messageRepository.countProtectedMessages();
-        long messagesWithToneColor = messageRepository.findMessagesWithToneColor().size();
-        long messagesWithAIFeatures = messageRepository.findMessagesWithAIFeatures().size();
-        long messagesWithLocation = messageRepository.findMessagesWithLocation().size();
-        long messagesWithContact = messageRepository.findMessagesWithContact().size();
-        long storyMessages = messageRepository.findByStoryIdOrderByCreatedAtDesc(1L).size(); // This would need proper implementation
-        long memoryMessages = messageRepository.findByMemoryIdOrderByCreatedAtDesc(1L).size(); // This would need proper implementation
-        long eventMessages = messageRepository.findByEventIdOrderByCreatedAtDesc(1L).size(); // This would need proper implementation
-
-        return new MessageStats(totalMessages, textMessages, mediaMessages, voiceMessages, 
-                starredMessages, protectedMessages, messagesWithToneColor, messagesWithAIFeatures,
-                mediaMessages, messagesWithLocation, messagesWithContact, storyMessages,
-                memoryMessages, eventMessages);
+        return userMessageStatsService.getStatsForUser(userId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public MessageStats getMessageStatsForRoom(Long chatRoomId) {
         log.debug("Getting message statistics for chat room: {}", chatRoomId);
-        
-        long totalMessages = messageRepository.countByChatRoomId(chatRoomId);
-        long starredMessages = messageRepository.countStarredMessagesInRoom(chatRoomId);
-        long protectedMessages = messageRepository.countProtectedMessagesInRoom(chatRoomId);
-        long messagesWithMedia = messageRepository.countMessagesWithMediaInRoom(chatRoomId);
-        
-        // Get room messages for detailed stats
-        List<Message> roomMessages = getMessagesInRoom(chatRoomId);
-        long textMessages = roomMessages.stream().mapToLong(msg -> msg.isTextMessage() ? 1 : 0).sum();
-        long mediaMessages = roomMessages.stream().mapToLong(msg -> msg.isMediaMessage() ? 1 : 0).sum();
-        long voiceMessages = roomMessages.stream().mapToLong(msg -> msg.getMessageType() == MessageType.AUDIO ? 1 : 0).sum();
-        long messagesWithToneColor = roomMessages.stream().mapToLong(msg -> msg.hasToneColor() ? 1 : 0).sum();
-        long messagesWithAIFeatures = roomMessages.stream().mapToLong(msg -> msg.hasAIFeatures() ? 1 : 0).sum();
-        long messagesWithLocation = roomMessages.stream().mapToLong(msg -> msg.hasLocation() ? 1 : 0).sum();
-        long messagesWithContact = roomMessages.stream().mapToLong(msg -> msg.hasContact() ? 1 : 0).sum();
-        long storyMessages = roomMessages.stream().mapToLong(msg -> msg.hasStory() ? 1 : 0).sum();
-        long memoryMessages = roomMessages.stream().mapToLong(msg -> msg.hasMemory() ? 1 : 0).sum();
-        long eventMessages = roomMessages.stream().mapToLong(msg -> msg.hasEvent() ? 1 : 0).sum();
+        return roomStatsCache.get(chatRoomId, this::aggregateRoomStats);
+    }
 
-        return new MessageStats(totalMessages, textMessages, mediaMessages, voiceMessages,
-                starredMessages, protectedMessages, messagesWithToneColor, messagesWithAIFeatures,
-                messagesWithMedia, messagesWithLocation, messagesWithContact, storyMessages,
-                memoryMessages, eventMessages);
+    private MessageStats aggregateRoomStats(Long chatRoomId) {
+        Map<String, Long> counters = messageRepository.aggregateRoomStats(chatRoomId);
+        return new MessageStats(
+                counters.getOrDefault("totalMessages", 0L),
+                counters.getOrDefault("textMessages", 0L),
+                counters.getOrDefault("mediaMessages", 0L),
+                counters.getOrDefault("voiceMessages", 0L),
+                counters.getOrDefault("starredMessages", 0L),
+                counters.getOrDefault("protectedMessages", 0L),
+                counters.getOrDefault("messagesWithToneColor", 0L),
+                counters.getOrDefault("messagesWithAIFeatures", 0L),
+                counters.getOrDefault("messagesWithMedia", 0L),
+                counters.getOrDefault("messagesWithLocation", 0L),
+                counters.getOrDefault("messagesWithContact", 0L),
+                counters.getOrDefault("storyMessages", 0L),
+                counters.getOrDefault("memoryMessages", 0L),
+                counters.getOrDefault("eventMessages", 0L));
     }
 
     @Override
@@ -1022,9 +1188,7 @@ public class MessageServiceImpl implements MessageService {
         List<Message> expiredMessages = messageRepository.findExpiredMessages(now);
         
         for (Message message : expiredMessages) {
-            message.setDeletedAt(now);
-            message.setIsDeletedForEveryone(true);
-            messageRepository.save(message);
+            softDelete(message, null, true, now);
             
             // Send notification
             webSocketService.sendMessageExpiredNotification(message.getId(), message.getSenderUserId());
@@ -1039,9 +1203,7 @@ public class MessageServiceImpl implements MessageService {
         List<Message> messagesAtLimit = messageRepository.findMessagesAtViewLimit();
         
         for (Message message : messagesAtLimit) {
-            message.setDeletedAt(LocalDateTime.now());
-            message.setIsDeletedForEveryone(true);
-            messageRepository.save(message);
+            softDelete(message, null, true, LocalDateTime.now());
             
             // Send notification
             webSocketService.sendViewLimitReachedNotification(message.getId(), message.getSenderUserId());
@@ -1070,30 +1232,31 @@ public class MessageServiceImpl implements MessageService {
         chatRoomService.getChatRoomById(request.getChatRoomId())
                 .orElseThrow(() -> new RuntimeException("Chat room not found with ID: " + request.getChatRoomId()));
 
-        // Check content filters before processing message
-        if (request.getContent() != null && !request.getContent().trim().isEmpty()) {
-            log.debug("Checking content filters for message content");
-            
-            // For now, we'll implement a simple check
-            // In a real implementation, you'd check against all room participants
-            // This is a placeholder for the filtering logic
-            
-            // You could get room participants and check filters for each:
-            // List<Long> participants = chatRoomService.getRoomParticipants(request.getChatRoomId());
-            // for (Long participantId : participants) {
-            //     if (contentFilterService.shouldFilterMessage(request.getSenderUserId(), participantId, request.getChatRoomId(), request.getContent())) {
-            //         log.warn("Message filtered for participant: {}", participantId);
-            //         return null; // Message is filtered
-            //     }
-            // }
-            
-            // For now, we'll just log and continue
-            log.debug("Content filter check completed - message will be sent");
+        if (request.getContent() == null || request.getContent().trim().isEmpty()) {
+            return sendMessage(request);
         }
 
-        // If we reach here, the message passed all filters
-        // Use the existing sendMessage method
-        return sendMessage(request);
+        // Evaluate every recipient's filters in one batch against the plaintext content
+        List<Long> recipientUserIds = chatParticipantRepository.findActiveUserIdsInRoom(request.getChatRoomId()).stream()
+                .filter(userId -> !userId.equals(request.getSenderUserId()))
+                .toList();
+        Set<Long> filteredRecipients = contentFilterService.getFilteredRecipients(
+                request.getSenderUserId(), request.getChatRoomId(), request.getContent(), recipientUserIds);
+
+        if (filteredRecipients.isEmpty()) {
+            log.debug("Content filter check completed - message will be sent to the room");
+            return sendMessage(request);
+        }
+
+        // Everyone else keeps receiving it on the room topic; filtered recipients get a withheld copy on their queue
+        log.debug("Message filtered for {} of {} recipients", filteredRecipients.size(), recipientUserIds.size());
+        return sendMessage(request, filteredRecipients, savedMessage -> {
+            webSocketService.sendMessageToRoom(savedMessage.getChatRoomId(), savedMessage, filteredRecipients);
+            Message filteredMessage = savedMessage.toWithheldCopy();
+            for (Long recipientUserId : filteredRecipients) {
+                webSocketService.sendMessageToUser(recipientUserId, filteredMessage);
+            }
+        });
     }
 
     // ==================== SEARCH METHODS ====================
@@ -1374,11 +1537,13 @@ public class MessageServiceImpl implements MessageService {
         messageEditHistoryRepository.save(editHistory);
         
         // Update the message
-        existingMessage.setContent(request.getNewContent());
-        existingMessage.setUpdatedAt(LocalDateTime.now());
-        existingMessage.setIsEdited(true);
-        
-        Message updatedMessage = messageRepository.save(existingMessage);
+        Message updatedMessage = saveChange(existingMessage, edited -> {
+            edited.setContent(request.getNewContent());
+            edited.setUpdatedAt(LocalDateTime.now());
+            edited.setIsEdited(true);
+        });
+        recordRoomChange(updatedMessage.getChatRoomId(), MailboxEventType.MESSAGE_EDITED,
+                updatedMessage.getId(), request.getUserId());
         
         log.info("Message edited successfully: {} version: {}", request.getMessageId(), newVersion);
         return updatedMessage;
@@ -1522,10 +1687,7 @@ public class MessageServiceImpl implements MessageService {
         if (request.getDeleteReplies() != null && request.getDeleteReplies()) {
             List<Message> replies = getRepliesToMessage(request.getMessageId());
             for (Message reply : replies) {
-                reply.setDeletedAt(LocalDateTime.now());
-                reply.setDeletedByUserId(request.getUserId());
-                reply.setIsDeletedForEveryone(deleteForEveryone);
-                messageRepository.save(reply);
+                softDelete(reply, request.getUserId(), deleteForEveryone, LocalDateTime.now());
             }
         }
         
@@ -1536,10 +1698,7 @@ public class MessageServiceImpl implements MessageService {
         }
         
         // Delete the main message
-        message.setDeletedAt(LocalDateTime.now());
-        message.setDeletedByUserId(request.getUserId());
-        message.setIsDeletedForEveryone(deleteForEveryone);
-        messageRepository.save(message);
+        softDelete(message, request.getUserId(), deleteForEveryone, LocalDateTime.now());
         
         // Notify participants if requested
         if (request.getNotifyParticipants() == null || request.getNotifyParticipants()) {
@@ -1562,10 +1721,7 @@ public class MessageServiceImpl implements MessageService {
                 continue;
             }
             
-            message.setDeletedAt(LocalDateTime.now());
-            message.setDeletedByUserId(userId);
-            message.setIsDeletedForEveryone(deleteForEveryone != null ? deleteForEveryone : false);
-            messageRepository.save(message);
+            softDelete(message, userId, Boolean.TRUE.equals(deleteForEveryone), LocalDateTime.now());
             
             // Notify participants
             webSocketService.sendMessageDeleteNotification(message.getId(), userId, deleteForEveryone != null ? deleteForEveryone : false);
@@ -1587,10 +1743,7 @@ public class MessageServiceImpl implements MessageService {
                 continue;
             }
             
-            message.setDeletedAt(LocalDateTime.now());
-            message.setDeletedByUserId(userId);
-            message.setIsDeletedForEveryone(deleteForEveryone != null ? deleteForEveryone : false);
-            messageRepository.save(message);
+            softDelete(message, userId, Boolean.TRUE.equals(deleteForEveryone), LocalDateTime.now());
         }
         
         log.info("Deleted all messages in room: {} by user: {}", chatRoomId, userId);
@@ -1609,10 +1762,7 @@ public class MessageServiceImpl implements MessageService {
                 continue;
             }
             
-            message.setDeletedAt(LocalDateTime.now());
-            message.setDeletedByUserId(userId);
-            message.setIsDeletedForEveryone(deleteForEveryone != null ? deleteForEveryone : false);
-            messageRepository.save(message);
+            softDelete(message, userId, Boolean.TRUE.equals(deleteForEveryone), LocalDateTime.now());
         }
         
         log.info("Deleted {} messages by date range by user: {}", messages.size(), userId);
@@ -1632,10 +1782,7 @@ public class MessageServiceImpl implements MessageService {
                 continue;
             }
             
-            message.setDeletedAt(LocalDateTime.now());
-            message.setDeletedByUserId(deletedByUserId);
-            message.setIsDeletedForEveryone(deleteForEveryone != null ? deleteForEveryone : false);
-            messageRepository.save(message);
+            softDelete(message, deletedByUserId, Boolean.TRUE.equals(deleteForEveryone), LocalDateTime.now());
         }
         
         log.info("Deleted {} messages by user: {} by user: {}", messages.size(), targetUserId, deletedByUserId);
@@ -1659,10 +1806,13 @@ public class MessageServiceImpl implements MessageService {
         
         // Delete replies
         List<Message> replies = getRepliesToMessage(messageId);
-        messageRepository.deleteAll(replies);
+        deleteCounted(replies);
+        replies.forEach(reply -> recordRoomChange(reply.getChatRoomId(), MailboxEventType.MESSAGE_DELETED,
+                reply.getId(), userId));
         
         // Delete the main message
-        messageRepository.delete(message);
+        deleteCounted(List.of(message));
+        recordRoomChange(message.getChatRoomId(), MailboxEventType.MESSAGE_DELETED, messageId, userId);
         
         log.info("Permanently deleted message: {} by user: {}", messageId, userId);
     }
@@ -1685,11 +1835,11 @@ public class MessageServiceImpl implements MessageService {
         }
         
         // Restore the message
-        message.setDeletedAt(null);
-        message.setDeletedByUserId(null);
-        message.setIsDeletedForEveryone(false);
-        
-        Message restoredMessage = messageRepository.save(message);
+        Message restoredMessage = saveChange(message, restored -> {
+            restored.setDeletedAt(null);
+            restored.setDeletedByUserId(null);
+            restored.setIsDeletedForEveryone(false);
+        });
         
         log.info("Restored deleted message: {} by user: {}", messageId, userId);
         return restoredMessage;
@@ -1721,10 +1871,10 @@ public class MessageServiceImpl implements MessageService {
             
             // Delete replies
             List<Message> replies = getRepliesToMessage(message.getId());
-            messageRepository.deleteAll(replies);
+            deleteCounted(replies);
             
             // Delete the main message
-            messageRepository.delete(message);
+            deleteCounted(List.of(message));
         }
         
         log.info("Cleaned up {} old deleted messages", oldDeletedMessages.size());
@@ -0,0 +1,199 @@
+package com.legacykeep.chat.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-session backpressure on the client outbound channel.
+ *
+ * Counts frames queued for each session between the broker and the socket.
+ * Once a session falls behind, ephemeral events (typing, online and away status)
+ * are dropped first, then other notifications; chat messages and sync replies are never dropped.
+ * A session that still reaches the hard limit is closed as a slow consumer and
+ * recovers by resyncing on reconnect. Queue depth, drops and disconnects are
+ * exported as metrics.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class OutboundFlowControl implements ExecutorChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    private final int ephemeralLimit;
+    private final int notificationLimit;
+    private final int maxPending;
+
+    private final Map<String, Integer> pending = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger totalPending = new AtomicInteger();
+    private final Map<EventClass, Counter> dropped = new EnumMap<>(EventClass.class);
+    private final Counter slowConsumerDisconnects;
+
+    public OutboundFlowControl(MeterRegistry meterRegistry,
+                               @Value("${chat.websocket.outbound.ephemeral-limit:32}") int ephemeralLimit,
+                               @Value("${chat.websocket.outbound.notification-limit:256}") int notificationLimit,
+                               @Value("${chat.websocket.outbound.max-pending:1024}") int maxPending) {
+        this.ephemeralLimit = ephemeralLimit;
+        this.notificationLimit = notificationLimit;
+        this.maxPending = maxPending;
+        for (EventClass eventClass : EventClass.values()) {
+            dropped.put(eventClass, Counter.builder("chat.websocket.outbound.dropped")
+                    .tag("class", eventClass.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.slowConsumerDisconnects = Counter.builder("chat.websocket.outbound.slow-consumer-disconnects")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.outbound.pending", totalPending, AtomicInteger::get)
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.outbound.backlogged-sessions", pending, Map::size)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+        int depth = pending.merge(sessionId, 1, Integer::sum);
+        totalPending.incrementAndGet();
+
+        EventClass eventClass = classify(message);
+        int limit = switch (eventClass) {
+            case EPHEMERAL -> ephemeralLimit;
+            case NOTIFICATION -> notificationLimit;
+            default -> Integer.MAX_VALUE;
+        };
+        if (depth > limit) {
+            release(sessionId);
+            dropped.get(eventClass).increment();
+            return null;
+        }
+        if (depth > maxPending && eventClass == EventClass.CHAT) {
+            release(sessionId);
+            closeSlowConsumer(sessionId, depth);
+            return null;
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            release(sessionId);
+        }
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Close a session's WebSocket; returns false if it is not open on this instance
+     */
+    public boolean closeSession(String sessionId, CloseStatus status) {
+        WebSocketSession session = sessionId != null ? sessions.remove(sessionId) : null;
+        if (session == null) {
+            return false;
+        }
+        try {
+            session.close(status);
+        } catch (Exception e) {
+            log.debug("Failed to close WebSocket session {}: {}", sessionId, e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of frames queued for a session
+     */
+    public int getPending(String sessionId) {
+        return pending.getOrDefault(sessionId, 0);
+    }
+
+    private void release(String sessionId) {
+        boolean[] released = new boolean[1];
+        pending.computeIfPresent(sessionId, (key, depth) -> {
+            released[0] = true;
+            return depth > 1 ? depth - 1 : null;
+        });
+        if (released[0]) {
+            totalPending.decrementAndGet();
+        }
+    }
+
+    private void closeSlowConsumer(String sessionId, int depth) {
+        if (closeSession(sessionId, CloseStatus.SESSION_NOT_RELIABLE)) {
+            slowConsumerDisconnects.increment();
+            log.warn("Closed slow WebSocket session {} with {} frames pending", sessionId, depth);
+        }
+    }
+
+    private static EventClass classify(Message<?> message) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return EventClass.CONTROL;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return EventClass.CONTROL;
+        }
+        if (destination.endsWith("/typing") || destination.endsWith("/away")
+                || (destination.startsWith("/topic/user/") && destination.endsWith("/status"))) {
+            return EventClass.EPHEMERAL;
+        }
+        if (isIdDestination(destination, "/topic/chat/room/") || isIdDestination(destination, "/queue/user/")
+                || destination.startsWith("/queue/sync")) {
+            return EventClass.CHAT;
+        }
+        return EventClass.NOTIFICATION;
+    }
+
+    /**
+     * Check for a destination that is exactly a prefix followed by an id
+     */
+    private static boolean isIdDestination(String destination, String prefix) {
+        return destination.startsWith(prefix) && destination.indexOf('/', prefix.length()) < 0;
+    }
+
+    private enum EventClass {
+        CHAT,
+        NOTIFICATION,
+        EPHEMERAL,
+        CONTROL
+    }
+}
@@ -0,0 +1,165 @@
+package com.legacykeep.chat.service.impl;
+
+import com.legacykeep.chat.service.MessageBackplane;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces typing, online and away events over a short window.
+ *
+ * Typing events only update a per-room set of typists. Once per window each
+ * changed room gets one snapshot on /topic/chat/room/{id}/typing with the users
+ * typing now and the users who stopped since the last snapshot, so a start and
+ * stop inside one window never reaches clients. Typists that go quiet expire
+ * after the typing TTL. Clients merge snapshots (add typingUserIds, remove
+ * stoppedUserIds), which stays correct when room members sit on different nodes.
+ *
+ * Online and away changes keep only the latest value per user and are published
+ * only when it differs from what was last sent.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class PresenceEventCoalescer {
+
+    private final MessageBackplane messageBackplane;
+    private final long typingTtlMs;
+
+    private final Map<Long, RoomTyping> typingRooms = new ConcurrentHashMap<>();
+    private final Map<Long, Boolean> pendingOnline = new ConcurrentHashMap<>();
+    private final Map<Long, Boolean> pendingAway = new ConcurrentHashMap<>();
+    // Last published state; only users currently online or away are kept
+    private final Set<Long> onlineUsers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> awayUsers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong eventsPublished = new AtomicLong(0);
+
+    public PresenceEventCoalescer(MessageBackplane messageBackplane,
+                                  @Value("${chat.presence.typing-ttl-ms:6000}") long typingTtlMs) {
+        this.messageBackplane = messageBackplane;
+        this.typingTtlMs = typingTtlMs;
+    }
+
+    /**
+     * Record a typing start or stop
+     */
+    public void recordTyping(Long chatRoomId, Long userId, boolean isTyping) {
+        long now = System.currentTimeMillis();
+        typingRooms.compute(chatRoomId, (id, room) -> {
+            RoomTyping current = room != null ? room : new RoomTyping();
+            if (isTyping) {
+                current.dirty |= current.typists.put(userId, now) == null;
+            } else {
+                current.dirty |= current.typists.remove(userId) != null;
+            }
+            return current;
+        });
+    }
+
+    /**
+     * Record a user's online status
+     */
+    public void recordOnline(Long userId, boolean isOnline) {
+        pendingOnline.put(userId, isOnline);
+    }
+
+    /**
+     * Record a user's away status
+     */
+    public void recordAway(Long userId, boolean isAway) {
+        pendingAway.put(userId, isAway);
+    }
+
+    /**
+     * Publish one snapshot per changed room and the net status change per user
+     */
+    @Scheduled(fixedDelayString = "${chat.presence.coalesce-window-ms:250}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Long chatRoomId : typingRooms.keySet()) {
+            TypingSnapshot[] snapshot = new TypingSnapshot[1];
+            typingRooms.computeIfPresent(chatRoomId, (id, room) -> {
+                room.dirty |= room.typists.values().removeIf(startedAt -> now - startedAt >= typingTtlMs);
+                if (room.dirty) {
+                    room.dirty = false;
+                    LongAccessSet typing = LongAccessSet.of(room.typists.keySet());
+                    if (!typing.equals(room.published)) {
+                        List<Long> stopped = room.published.toList().stream()
+                                .filter(userId -> !typing.contains(userId))
+                                .toList();
+                        snapshot[0] = new TypingSnapshot(typing.toList(), stopped);
+                        room.published = typing;
+                    }
+                }
+                return room.typists.isEmpty() && room.published.size() == 0 ? null : room;
+            });
+            if (snapshot[0] != null) {
+                publishTyping(chatRoomId, snapshot[0], now);
+            }
+        }
+
+        flushStatus(pendingOnline, onlineUsers, "/status", "isOnline", now);
+        flushStatus(pendingAway, awayUsers, "/away", "isAway", now);
+    }
+
+    private void publishTyping(Long chatRoomId, TypingSnapshot snapshot, long now) {
+        try {
+            Map<String, Object> typingData = new HashMap<>(4);
+            typingData.put("chatRoomId", chatRoomId);
+            typingData.put("typingUserIds", snapshot.typing());
+            typingData.put("stoppedUserIds", snapshot.stopped());
+            typingData.put("timestamp", now);
+            messageBackplane.publish("/topic/chat/room/" + chatRoomId + "/typing", typingData);
+            eventsPublished.incrementAndGet();
+        } catch (Exception e) {
+            log.error("Error sending typing snapshot to chat room: {}", chatRoomId, e);
+        }
+    }
+
+    private void flushStatus(Map<Long, Boolean> pending, Set<Long> published, String suffix, String field, long now) {
+        for (Long userId : pending.keySet()) {
+            Boolean value = pending.remove(userId);
+            if (value == null) {
+                continue;
+            }
+            boolean changed = value ? published.add(userId) : published.remove(userId);
+            if (!changed) {
+                continue;
+            }
+            try {
+                messageBackplane.publish("/topic/user/" + userId + suffix,
+                        Map.of("userId", userId, field, value, "timestamp", now));
+                eventsPublished.incrementAndGet();
+            } catch (Exception e) {
+                log.error("Error sending {} status for user: {}", field, userId, e);
+            }
+        }
+    }
+
+    /**
+     * Get the number of typing snapshots and status changes published since startup
+     */
+    public long getEventsPublished() {
+        return eventsPublished.get();
+    }
+
+    private static final class RoomTyping {
+        // Typist -> time of their last typing event; only mutated inside map compute calls
+        private final Map<Long, Long> typists = new HashMap<>();
+        private LongAccessSet published = LongAccessSet.EMPTY;
+        private boolean dirty;
+    }
+
+    private record TypingSnapshot(List<Long> typing, List<Long> stopped) {
+    }
+}
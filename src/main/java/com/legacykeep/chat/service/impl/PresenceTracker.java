@@ -0,0 +1,377 @@
+package com.legacykeep.chat.service.impl;
+
+import com.legacykeep.chat.enums.SubscriptionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Presence of STOMP sessions on this instance, driven by session connect,
+ * subscribe, unsubscribe and disconnect events.
+ *
+ * Subscriptions to room, family, story and event topics are mirrored into the
+ * SubscriptionRegistry, reference-counted across a user's sessions. Sessions
+ * that negotiated client heartbeats are kept in a timing wheel keyed by their
+ * idle deadline; any inbound frame moves the deadline, and sessions whose slot
+ * comes due are evicted, so idle detection never scans live sessions. Evicting
+ * a session also closes its WebSocket, so a client is never left connected
+ * while delivery to it is gated off. Per destination subscription counts let
+ * senders skip destinations nobody on this instance is listening to.
+ *
+ * A session's user comes from the authenticated principal. The client supplied
+ * userId CONNECT header is only read when no principal is present and
+ * chat.websocket.header-user-id.enabled is set.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class PresenceTracker {
+
+    private static final String USER_ID_HEADER = "userId";
+
+    private static final Map<String, SubscriptionType> TOPIC_PREFIXES = Map.of(
+            "/topic/chat/room/", SubscriptionType.CHAT_ROOM,
+            "/topic/family/", SubscriptionType.FAMILY,
+            "/topic/story/", SubscriptionType.STORY,
+            "/topic/event/", SubscriptionType.EVENT);
+
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final OutboundFlowControl outboundFlowControl;
+    private final long idleTimeoutMs;
+    private final boolean headerUserIdEnabled;
+    private final TimingWheel<String> idleWheel;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> userSessions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> destinationSubscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong totalConnections = new AtomicLong(0);
+
+    public PresenceTracker(SubscriptionRegistry subscriptionRegistry,
+                           OutboundFlowControl outboundFlowControl,
+                           @Value("${chat.presence.idle-timeout-ms:60000}") long idleTimeoutMs,
+                           @Value("${chat.presence.tick-ms:1000}") long tickMs,
+                           @Value("${chat.websocket.header-user-id.enabled:false}") boolean headerUserIdEnabled) {
+        this.subscriptionRegistry = subscriptionRegistry;
+        this.outboundFlowControl = outboundFlowControl;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.headerUserIdEnabled = headerUserIdEnabled;
+        this.idleWheel = new TimingWheel<>(tickMs, idleTimeoutMs, System.currentTimeMillis());
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        long[] heartbeat = accessor.getHeartbeat();
+        connect(accessor.getSessionId(), resolveUserId(accessor, event.getUser()), heartbeat[0] > 0);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        subscribe(accessor.getSessionId(), accessor.getSubscriptionId(), accessor.getDestination());
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        disconnect(event.getSessionId());
+    }
+
+    /**
+     * Register a session; sessions without client heartbeats are never evicted as idle
+     */
+    public void connect(String sessionId, Long userId, boolean clientHeartbeats) {
+        if (sessionId == null) {
+            return;
+        }
+        Session session = new Session(userId, clientHeartbeats);
+        if (sessions.putIfAbsent(sessionId, session) != null) {
+            return;
+        }
+        totalConnections.incrementAndGet();
+        if (userId != null) {
+            userSessions.compute(userId, (key, ids) -> {
+                Set<String> updated = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                updated.add(sessionId);
+                return updated;
+            });
+        }
+        if (clientHeartbeats) {
+            synchronized (session) {
+                session.lastSeenMs = System.currentTimeMillis();
+                session.scheduledTick = idleWheel.schedule(sessionId, session.lastSeenMs + idleTimeoutMs);
+            }
+        }
+        log.debug("Session {} connected for user {}", sessionId, userId);
+    }
+
+    /**
+     * Record a STOMP subscription of a session
+     */
+    public void subscribe(String sessionId, String subscriptionId, String destination) {
+        Session session = sessionId != null ? sessions.get(sessionId) : null;
+        if (session == null || subscriptionId == null || destination == null) {
+            return;
+        }
+        Subscription subscription = new Subscription(destination, parseTarget(destination));
+        if (session.subscriptions.putIfAbsent(subscriptionId, subscription) != null) {
+            return;
+        }
+        destinationSubscriptions.merge(destination, 1, Integer::sum);
+        if (subscription.target() != null && session.userId != null) {
+            // Serialized per user with releases, so a concurrent release cannot undo this subscribe
+            userSessions.computeIfPresent(session.userId, (key, ids) -> {
+                subscriptionRegistry.subscribe(subscription.target().type(), key, subscription.target().id());
+                return ids;
+            });
+        }
+    }
+
+    /**
+     * Drop a STOMP subscription of a session
+     */
+    public void unsubscribe(String sessionId, String subscriptionId) {
+        Session session = sessionId != null ? sessions.get(sessionId) : null;
+        if (session == null || subscriptionId == null) {
+            return;
+        }
+        Subscription subscription = session.subscriptions.remove(subscriptionId);
+        if (subscription != null) {
+            releaseDestination(subscription.destination());
+            if (subscription.target() != null && session.userId != null) {
+                userSessions.computeIfPresent(session.userId, (key, ids) -> {
+                    releaseTarget(key, ids, subscription.target());
+                    return ids;
+                });
+            }
+        }
+    }
+
+    /**
+     * Remove a session and every subscription it held
+     */
+    public void disconnect(String sessionId) {
+        Session session = sessionId != null ? sessions.remove(sessionId) : null;
+        if (session == null) {
+            return;
+        }
+        synchronized (session) {
+            if (session.tracksIdle) {
+                idleWheel.cancel(sessionId, session.scheduledTick);
+            }
+        }
+        List<Subscription> released = List.copyOf(session.subscriptions.values());
+        session.subscriptions.clear();
+        for (Subscription subscription : released) {
+            releaseDestination(subscription.destination());
+        }
+        if (session.userId != null) {
+            userSessions.computeIfPresent(session.userId, (key, ids) -> {
+                ids.remove(sessionId);
+                released.stream()
+                        .map(Subscription::target)
+                        .filter(target -> target != null)
+                        .distinct()
+                        .forEach(target -> releaseTarget(key, ids, target));
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        log.debug("Session {} disconnected for user {}", sessionId, session.userId);
+    }
+
+    /**
+     * Remove and close every session of a user along with the user's subscriptions
+     */
+    public void removeUser(Long userId) {
+        for (String sessionId : List.copyOf(userSessions.getOrDefault(userId, Set.of()))) {
+            disconnect(sessionId);
+            outboundFlowControl.closeSession(sessionId, CloseStatus.NORMAL);
+        }
+        subscriptionRegistry.removeUser(userId);
+    }
+
+    /**
+     * Push a session's idle deadline forward on any inbound frame, including heartbeats
+     */
+    public void touch(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null || !session.tracksIdle) {
+            return;
+        }
+        synchronized (session) {
+            session.lastSeenMs = System.currentTimeMillis();
+            session.scheduledTick = idleWheel.reschedule(sessionId, session.scheduledTick, session.lastSeenMs + idleTimeoutMs);
+        }
+    }
+
+    /**
+     * Evict sessions whose idle deadline has passed, returns the number evicted
+     */
+    @Scheduled(fixedDelayString = "${chat.presence.tick-ms:1000}")
+    public int evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (String sessionId : idleWheel.advance(now)) {
+            Session session = sessions.get(sessionId);
+            if (session == null) {
+                continue;
+            }
+            boolean expired;
+            synchronized (session) {
+                expired = now - session.lastSeenMs >= idleTimeoutMs;
+                if (!expired && session.scheduledTick <= idleWheel.getCurrentTick()) {
+                    // Due within the last partial tick; check again on the next one
+                    session.scheduledTick = idleWheel.schedule(sessionId, session.lastSeenMs + idleTimeoutMs);
+                }
+            }
+            if (expired) {
+                disconnect(sessionId);
+                outboundFlowControl.closeSession(sessionId, CloseStatus.SESSION_NOT_RELIABLE);
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.info("Evicted {} idle WebSocket sessions", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * Check whether any session on this instance is subscribed to a destination
+     */
+    public boolean hasSubscribers(String destination) {
+        return destinationSubscriptions.containsKey(destination);
+    }
+
+    /**
+     * Check whether a user has a session on this instance
+     */
+    public boolean isUserConnected(Long userId) {
+        return userId != null && userSessions.containsKey(userId);
+    }
+
+    /**
+     * Get the user a session on this instance belongs to, or null if unknown
+     */
+    public Long getUserId(String sessionId) {
+        Session session = sessionId != null ? sessions.get(sessionId) : null;
+        return session != null ? session.userId : null;
+    }
+
+    /**
+     * Get the ids of a user's sessions on this instance
+     */
+    public List<String> getSessionIds(Long userId) {
+        return userId == null ? List.of() : List.copyOf(userSessions.getOrDefault(userId, Set.of()));
+    }
+
+    /**
+     * Get the number of users with at least one session
+     */
+    public int getConnectedUserCount() {
+        return userSessions.size();
+    }
+
+    /**
+     * Get the number of open sessions
+     */
+    public int getActiveConnections() {
+        return sessions.size();
+    }
+
+    /**
+     * Get the number of sessions opened since startup
+     */
+    public long getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    /**
+     * Unsubscribe a user from a target unless another of the user's sessions still holds it
+     */
+    private void releaseTarget(long userId, Set<String> sessionIds, Target target) {
+        for (String sessionId : sessionIds) {
+            Session session = sessions.get(sessionId);
+            if (session != null && session.subscriptions.values().stream()
+                    .anyMatch(subscription -> target.equals(subscription.target()))) {
+                return;
+            }
+        }
+        subscriptionRegistry.unsubscribe(target.type(), userId, target.id());
+    }
+
+    private void releaseDestination(String destination) {
+        destinationSubscriptions.computeIfPresent(destination, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Long resolveUserId(StompHeaderAccessor accessor, Principal principal) {
+        String value = principal != null ? principal.getName()
+                : headerUserIdEnabled ? accessor.getFirstNativeHeader(USER_ID_HEADER) : null;
+        try {
+            return value != null ? Long.valueOf(value.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Map a topic such as /topic/chat/room/42/typing to its subscription target
+     */
+    private static Target parseTarget(String destination) {
+        for (Map.Entry<String, SubscriptionType> prefix : TOPIC_PREFIXES.entrySet()) {
+            if (!destination.startsWith(prefix.getKey())) {
+                continue;
+            }
+            int start = prefix.getKey().length();
+            int end = destination.indexOf('/', start);
+            try {
+                long id = Long.parseLong(destination.substring(start, end < 0 ? destination.length() : end));
+                return new Target(prefix.getValue(), id);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static final class Session {
+        private final Long userId;
+        private final boolean tracksIdle;
+        private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+        private long lastSeenMs;
+        private long scheduledTick;
+
+        private Session(Long userId, boolean tracksIdle) {
+            this.userId = userId;
+            this.tracksIdle = tracksIdle;
+        }
+    }
+
+    private record Subscription(String destination, Target target) {
+    }
+
+    private record Target(SubscriptionType type, long id) {
+    }
+}
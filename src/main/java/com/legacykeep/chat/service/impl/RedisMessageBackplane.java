@@ -0,0 +1,163 @@
+package com.legacykeep.chat.service.impl;
+
+import com.legacykeep.chat.service.MessageBackplane;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Multi-node backplane over Redis pub/sub.
+ * Each event is serialized once and published once to a shared channel; every
+ * node receives it once and fans it out to its local sessions. The publishing
+ * node delivers locally without waiting on Redis and ignores its own echo.
+ * Envelopes are "origin \n destination \n excluded users \n payload" (the users
+ * as comma-separated ids, usually empty), so receiving nodes pass the payload
+ * bytes to their broker without parsing or re-serializing them.
+ * Point spring.data.redis at a local or embedded Redis to exercise it in tests.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "chat.backplane.mode", havingValue = "redis")
+public class RedisMessageBackplane implements MessageBackplane {
+
+    private static final byte SEPARATOR = '\n';
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final LocalMessageDelivery localMessageDelivery;
+    private final WireFrameEncoder wireFrameEncoder;
+    private final String channel;
+    private final byte[] channelBytes;
+    private final byte[] nodeId = UUID.randomUUID().toString().getBytes(StandardCharsets.US_ASCII);
+    // One dispatch thread keeps events in publish order
+    private final ExecutorService dispatchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "backplane-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Kept apart from dispatch so a blocking subscription loop can never starve delivery
+    private final ExecutorService subscriptionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "backplane-subscription");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    public RedisMessageBackplane(StringRedisTemplate redisTemplate,
+                                 RedisConnectionFactory connectionFactory,
+                                 LocalMessageDelivery localMessageDelivery,
+                                 WireFrameEncoder wireFrameEncoder,
+                                 @Value("${chat.backplane.redis-channel:chat:fanout}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.localMessageDelivery = localMessageDelivery;
+        this.wireFrameEncoder = wireFrameEncoder;
+        this.channel = channel;
+        this.channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostConstruct
+    public void start() {
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.setTaskExecutor(dispatchExecutor);
+        listenerContainer.setSubscriptionExecutor(subscriptionExecutor);
+        listenerContainer.addMessageListener((message, pattern) -> receive(message.getBody()), new ChannelTopic(channel));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        log.info("Redis message backplane started on channel {} as node {}", channel,
+                new String(nodeId, StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public void publish(String destination, Object payload, Set<Long> excludedUserIds) {
+        byte[] json = wireFrameEncoder.encode(payload);
+        localMessageDelivery.deliver(destination, json, excludedUserIds);
+        try {
+            byte[] envelope = encodeEnvelope(destination, excludedUserIds, json);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channelBytes, envelope));
+        } catch (Exception e) {
+            log.error("Failed to publish to backplane for destination {}: {}", destination, e.getMessage(), e);
+        }
+    }
+
+    private byte[] encodeEnvelope(String destination, Set<Long> excludedUserIds, byte[] json) {
+        String header = destination + (char) SEPARATOR + excludedUserIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        byte[] headerBytes = header.getBytes(StandardCharsets.UTF_8);
+        byte[] envelope = new byte[nodeId.length + headerBytes.length + json.length + 2];
+        System.arraycopy(nodeId, 0, envelope, 0, nodeId.length);
+        envelope[nodeId.length] = SEPARATOR;
+        System.arraycopy(headerBytes, 0, envelope, nodeId.length + 1, headerBytes.length);
+        int payloadStart = nodeId.length + headerBytes.length + 2;
+        envelope[payloadStart - 1] = SEPARATOR;
+        System.arraycopy(json, 0, envelope, payloadStart, json.length);
+        return envelope;
+    }
+
+    /**
+     * Deliver an envelope received from the channel, ignoring this node's own events
+     */
+    void receive(byte[] envelope) {
+        try {
+            int originEnd = indexOf(envelope, 0);
+            int destinationEnd = originEnd < 0 ? -1 : indexOf(envelope, originEnd + 1);
+            int excludedEnd = destinationEnd < 0 ? -1 : indexOf(envelope, destinationEnd + 1);
+            if (excludedEnd < 0) {
+                log.warn("Dropping malformed backplane envelope");
+                return;
+            }
+            if (Arrays.equals(envelope, 0, originEnd, nodeId, 0, nodeId.length)) {
+                return;
+            }
+            String destination = new String(envelope, originEnd + 1, destinationEnd - originEnd - 1, StandardCharsets.UTF_8);
+            String excluded = new String(envelope, destinationEnd + 1, excludedEnd - destinationEnd - 1, StandardCharsets.US_ASCII);
+            Set<Long> excludedUserIds = excluded.isEmpty() ? Set.of() : Arrays.stream(excluded.split(","))
+                    .map(Long::valueOf)
+                    .collect(Collectors.toUnmodifiableSet());
+            localMessageDelivery.deliver(destination, Arrays.copyOfRange(envelope, excludedEnd + 1, envelope.length),
+                    excludedUserIds);
+        } catch (Exception e) {
+            log.error("Failed to deliver backplane event: {}", e.getMessage(), e);
+        }
+    }
+
+    private static int indexOf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == SEPARATOR) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+        dispatchExecutor.shutdownNow();
+        subscriptionExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,51 @@
+package com.legacykeep.chat.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.legacykeep.chat.service.MessageService.MessageStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Optional short-TTL cache for per-room message statistics.
+ * Disabled unless chat.stats.room-cache.ttl-seconds is positive, in which case
+ * dashboards polling the same room share one aggregation per TTL window.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Component
+public class RoomStatsCache {
+
+    private final Cache<Long, MessageStats> statsByRoom;
+
+    public RoomStatsCache(MeterRegistry meterRegistry,
+                          @Value("${chat.stats.room-cache.ttl-seconds:0}") long ttlSeconds,
+                          @Value("${chat.stats.room-cache.maximum-size:1000}") long maximumSize) {
+        if (ttlSeconds > 0) {
+            this.statsByRoom = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, statsByRoom, "roomMessageStats");
+        } else {
+            this.statsByRoom = null;
+        }
+    }
+
+    /**
+     * Get statistics for a chat room, computing them on a miss or when caching is disabled
+     */
+    public MessageStats get(Long chatRoomId, Function<Long, MessageStats> loader) {
+        if (statsByRoom == null) {
+            return loader.apply(chatRoomId);
+        }
+        return statsByRoom.get(chatRoomId, loader);
+    }
+}
@@ -0,0 +1,135 @@
+package com.legacykeep.chat.service.impl;
+
+import com.legacykeep.chat.enums.SubscriptionType;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of WebSocket subscriptions, indexed both by user and by target for each
+ * subscription type. Both directions are a hash lookup to an immutable LongAccessSet,
+ * so readers never lock or see a partial update. Writers for the same user are
+ * serialized on one of a fixed set of lock stripes, which keeps the two indexes in
+ * step without a global lock; empty sets are removed so churn does not leak entries.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Component
+public class SubscriptionRegistry {
+
+    private static final int STRIPES = 64;
+
+    private final Map<SubscriptionType, Index> indexes = new EnumMap<>(SubscriptionType.class);
+    private final Object[] stripes = new Object[STRIPES];
+
+    public SubscriptionRegistry() {
+        for (SubscriptionType type : SubscriptionType.values()) {
+            indexes.put(type, new Index());
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Subscribe a user to a target, returns false if already subscribed
+     */
+    public boolean subscribe(SubscriptionType type, long userId, long targetId) {
+        Index index = indexes.get(type);
+        synchronized (stripeFor(userId)) {
+            LongAccessSet targets = index.byUser.getOrDefault(userId, LongAccessSet.EMPTY);
+            if (targets.contains(targetId)) {
+                return false;
+            }
+            index.byUser.put(userId, targets.with(targetId));
+            index.byTarget.compute(targetId, (key, users) ->
+                    (users == null ? LongAccessSet.EMPTY : users).with(userId));
+            return true;
+        }
+    }
+
+    /**
+     * Unsubscribe a user from a target, returns false if not subscribed
+     */
+    public boolean unsubscribe(SubscriptionType type, long userId, long targetId) {
+        Index index = indexes.get(type);
+        synchronized (stripeFor(userId)) {
+            LongAccessSet targets = index.byUser.get(userId);
+            if (targets == null || !targets.contains(targetId)) {
+                return false;
+            }
+            putOrRemove(index.byUser, userId, targets.without(targetId));
+            index.byTarget.computeIfPresent(targetId, (key, users) -> emptyToNull(users.without(userId)));
+            return true;
+        }
+    }
+
+    /**
+     * Remove all of a user's subscriptions of every type
+     */
+    public void removeUser(long userId) {
+        synchronized (stripeFor(userId)) {
+            for (Index index : indexes.values()) {
+                LongAccessSet targets = index.byUser.remove(userId);
+                if (targets == null) {
+                    continue;
+                }
+                for (Long targetId : targets.toList()) {
+                    index.byTarget.computeIfPresent(targetId, (key, users) -> emptyToNull(users.without(userId)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the users subscribed to a target
+     */
+    public LongAccessSet getSubscribers(SubscriptionType type, long targetId) {
+        return indexes.get(type).byTarget.getOrDefault(targetId, LongAccessSet.EMPTY);
+    }
+
+    /**
+     * Get the targets a user is subscribed to
+     */
+    public LongAccessSet getSubscriptions(SubscriptionType type, long userId) {
+        return indexes.get(type).byUser.getOrDefault(userId, LongAccessSet.EMPTY);
+    }
+
+    /**
+     * Check whether a user is subscribed to a target
+     */
+    public boolean isSubscribed(SubscriptionType type, long userId, long targetId) {
+        return getSubscriptions(type, userId).contains(targetId);
+    }
+
+    /**
+     * Get the number of targets with at least one subscriber
+     */
+    public int getTargetCount(SubscriptionType type) {
+        return indexes.get(type).byTarget.size();
+    }
+
+    private Object stripeFor(long userId) {
+        return stripes[(Long.hashCode(userId) & 0x7fffffff) % STRIPES];
+    }
+
+    private static void putOrRemove(Map<Long, LongAccessSet> map, long key, LongAccessSet value) {
+        if (value.size() == 0) {
+            map.remove(key);
+        } else {
+            map.put(key, value);
+        }
+    }
+
+    private static LongAccessSet emptyToNull(LongAccessSet set) {
+        return set.size() == 0 ? null : set;
+    }
+
+    private static final class Index {
+        private final Map<Long, LongAccessSet> byUser = new ConcurrentHashMap<>();
+        private final Map<Long, LongAccessSet> byTarget = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,96 @@
+package com.legacykeep.chat.service.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hashed timing wheel of deadlines with a fixed tick. Each key lives in the slot
+ * for its deadline tick; advancing the wheel drains only the slots that came due,
+ * so expiry costs O(due keys) rather than a scan of every scheduled key.
+ * Deadlines are limited to the wheel's span and rounded down to a tick.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+public final class TimingWheel<K> {
+
+    private final long tickMs;
+    private final List<Set<K>> slots;
+    private volatile long currentTick;
+
+    public TimingWheel(long tickMs, long spanMs, long nowMs) {
+        this.tickMs = Math.max(1, tickMs);
+        int slotCount = (int) (Math.max(0, spanMs) / this.tickMs) + 2;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(ConcurrentHashMap.newKeySet());
+        }
+        this.currentTick = nowMs / this.tickMs;
+    }
+
+    /**
+     * Schedule a key, returns the tick it was placed in
+     */
+    public long schedule(K key, long deadlineMs) {
+        long tick = tickFor(deadlineMs);
+        slotFor(tick).add(key);
+        return tick;
+    }
+
+    /**
+     * Move a key from its previous tick to a new deadline, returns the new tick
+     */
+    public long reschedule(K key, long previousTick, long deadlineMs) {
+        long tick = tickFor(deadlineMs);
+        if (tick != previousTick) {
+            slotFor(previousTick).remove(key);
+            slotFor(tick).add(key);
+        }
+        return tick;
+    }
+
+    /**
+     * Remove a key from the tick it was scheduled in
+     */
+    public void cancel(K key, long tick) {
+        slotFor(tick).remove(key);
+    }
+
+    /**
+     * Advance to the given time and drain every key whose tick has passed
+     */
+    public List<K> advance(long nowMs) {
+        long target = nowMs / tickMs;
+        long from = currentTick + 1;
+        long to = Math.min(target, currentTick + slots.size());
+        List<K> due = new ArrayList<>();
+        for (long tick = from; tick <= to; tick++) {
+            Iterator<K> keys = slotFor(tick).iterator();
+            while (keys.hasNext()) {
+                due.add(keys.next());
+                keys.remove();
+            }
+        }
+        currentTick = Math.max(currentTick, target);
+        return due;
+    }
+
+    /**
+     * Get the last tick the wheel has advanced to
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    private long tickFor(long deadlineMs) {
+        long tick = currentTick;
+        return Math.min(Math.max(deadlineMs / tickMs, tick + 1), tick + slots.size() - 1);
+    }
+
+    private Set<K> slotFor(long tick) {
+        return slots.get((int) Math.floorMod(tick, (long) slots.size()));
+    }
+}
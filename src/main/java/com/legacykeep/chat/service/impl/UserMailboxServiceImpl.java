@@ -0,0 +1,252 @@
+package com.legacykeep.chat.service.impl;
+
+import com.legacykeep.chat.dto.response.ChatRoomResponse;
+import com.legacykeep.chat.dto.response.MailboxSyncResponse;
+import com.legacykeep.chat.dto.response.MailboxSyncResponse.ReadReceipt;
+import com.legacykeep.chat.dto.response.MessageFrame;
+import com.legacykeep.chat.entity.MailboxEntry;
+import com.legacykeep.chat.entity.Message;
+import com.legacykeep.chat.enums.MailboxEventType;
+import com.legacykeep.chat.repository.mongo.MailboxEntryRepository;
+import com.legacykeep.chat.repository.mongo.MessageRepository;
+import com.legacykeep.chat.repository.postgres.ChatParticipantRepository;
+import com.legacykeep.chat.repository.postgres.ChatRoomRepository;
+import com.legacykeep.chat.service.UserMailboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementation of UserMailboxService.
+ * A change takes one sequence number from a shared counter and writes one
+ * entry per affected user in a single insert, before the live frame is sent,
+ * so anything a client has seen live is already in its mailbox. Concurrent
+ * changes can finish their inserts out of sequence order, so a sequence stays
+ * marked in flight until its insert is done: syncs read only up to the highest
+ * sequence with nothing in flight below it, and live frames carry a cursor
+ * capped the same way, so a client never resumes past an entry not yet written.
+ * Entries are kept for a retention window; a cursor older than what was swept
+ * gets a reset. A sync reads one page of entries on the (user_id, seq) index
+ * and folds it into one delta, loading the touched messages and rooms with one
+ * query each. Messages withheld from the user by content filters are sent as
+ * their withheld copy.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class UserMailboxServiceImpl implements UserMailboxService {
+
+    private final MailboxEntryRepository mailboxEntryRepository;
+    private final ChatParticipantRepository chatParticipantRepository;
+    private final ChatRoomRepository chatRoomRepository;
+    private final MessageRepository messageRepository;
+    private final int syncBatchSize;
+    private final long retentionDays;
+    private final long inFlightTimeoutMs;
+
+    public UserMailboxServiceImpl(MailboxEntryRepository mailboxEntryRepository,
+                                  ChatParticipantRepository chatParticipantRepository,
+                                  ChatRoomRepository chatRoomRepository,
+                                  MessageRepository messageRepository,
+                                  @Value("${chat.mailbox.sync-batch-size:200}") int syncBatchSize,
+                                  @Value("${chat.mailbox.retention-days:7}") long retentionDays,
+                                  @Value("${chat.mailbox.in-flight-timeout-ms:30000}") long inFlightTimeoutMs) {
+        this.mailboxEntryRepository = mailboxEntryRepository;
+        this.chatParticipantRepository = chatParticipantRepository;
+        this.chatRoomRepository = chatRoomRepository;
+        this.messageRepository = messageRepository;
+        this.syncBatchSize = Math.max(1, syncBatchSize);
+        this.retentionDays = Math.max(1, retentionDays);
+        this.inFlightTimeoutMs = Math.max(1000, inFlightTimeoutMs);
+    }
+
+    @Override
+    public Long recordRoomMessage(Long chatRoomId, Message message, Set<Long> excludedUserIds) {
+        List<Long> userIds = chatParticipantRepository.findActiveUserIdsInRoom(chatRoomId).stream()
+                .filter(userId -> !excludedUserIds.contains(userId))
+                .toList();
+        if (userIds.isEmpty()) {
+            return null;
+        }
+        return record(userIds, chatRoomId, MailboxEventType.MESSAGE, message.getId(), message.getSenderUserId());
+    }
+
+    @Override
+    public Long recordUserMessage(Long userId, Message message) {
+        return record(List.of(userId), message.getChatRoomId(), MailboxEventType.MESSAGE,
+                message.getId(), message.getSenderUserId());
+    }
+
+    @Override
+    public void recordRoomChange(Long chatRoomId, MailboxEventType eventType, String messageId, Long actorUserId) {
+        List<Long> userIds = chatParticipantRepository.findActiveUserIdsInRoom(chatRoomId);
+        if (!userIds.isEmpty()) {
+            record(userIds, chatRoomId, eventType, messageId, actorUserId);
+        }
+    }
+
+    @Override
+    public void recordReadReceipt(Long chatRoomId, String messageId, Long senderUserId, Long readerUserId) {
+        List<Long> userIds = senderUserId == null || senderUserId.equals(readerUserId)
+                ? List.of(readerUserId) : List.of(senderUserId, readerUserId);
+        record(userIds, chatRoomId, MailboxEventType.READ_RECEIPT, messageId, readerUserId);
+    }
+
+    @Override
+    public void recordUserChange(Long userId, Long chatRoomId, MailboxEventType eventType, String messageId) {
+        record(List.of(userId), chatRoomId, eventType, messageId, userId);
+    }
+
+    @Override
+    public MailboxSyncResponse sync(Long userId, long lastSeq) {
+        long stableSeq = mailboxEntryRepository.getStableSequence(inFlightCutoff());
+        if (lastSeq <= 0 || lastSeq < mailboxEntryRepository.getFloorSequence()) {
+            // Entries after the cursor may already be swept, so a delta would silently miss some
+            log.debug("Mailbox cursor {} of user {} is outside retention, client must reload", lastSeq, userId);
+            long cursor = stableSeq;
+            return MailboxSyncResponse.builder()
+                    .lastSeq(cursor)
+                    .reset(true)
+                    .messages(List.of())
+                    .deletedMessageIds(List.of())
+                    .readReceipts(List.of())
+                    .rooms(chatRoomRepository.findChatRoomsByParticipant(userId).stream()
+                            .map(ChatRoomResponse::fromEntity)
+                            .toList())
+                    .build();
+        }
+
+        // Stop below the first sequence still being written so the returned cursor never skips it
+        List<MailboxEntry> entries = stableSeq <= lastSeq ? List.of()
+                : mailboxEntryRepository.findByUserIdAndSeqBetweenOrderBySeqAsc(
+                        userId, lastSeq, stableSeq + 1, PageRequest.of(0, syncBatchSize + 1));
+        boolean hasMore = entries.size() > syncBatchSize;
+        if (hasMore) {
+            entries = entries.subList(0, syncBatchSize);
+        }
+
+        // Fold the page: a message is sent once in its latest state, a delete wins over earlier changes
+        Map<String, Long> changedMessages = new LinkedHashMap<>();
+        Set<String> deletedMessageIds = new LinkedHashSet<>();
+        Map<String, ReadReceipt> readReceipts = new LinkedHashMap<>();
+        Set<Long> updatedRoomIds = new LinkedHashSet<>();
+        for (MailboxEntry entry : entries) {
+            switch (entry.getEventType()) {
+                case MESSAGE, MESSAGE_EDITED, REACTION_CHANGED -> {
+                    if (!deletedMessageIds.contains(entry.getMessageId())) {
+                        changedMessages.remove(entry.getMessageId());
+                        changedMessages.put(entry.getMessageId(), entry.getSeq());
+                    }
+                }
+                case MESSAGE_DELETED -> {
+                    changedMessages.remove(entry.getMessageId());
+                    deletedMessageIds.add(entry.getMessageId());
+                }
+                case READ_RECEIPT -> readReceipts.putIfAbsent(entry.getMessageId() + ":" + entry.getActorUserId(),
+                        new ReadReceipt(entry.getChatRoomId(), entry.getMessageId(), entry.getActorUserId()));
+                case ROOM_UPDATED -> updatedRoomIds.add(entry.getChatRoomId());
+            }
+        }
+
+        Map<String, Message> messages = new HashMap<>();
+        messageRepository.findAllById(changedMessages.keySet())
+                .forEach(message -> messages.put(message.getId(), message));
+
+        List<MessageFrame> frames = new ArrayList<>(changedMessages.size());
+        changedMessages.forEach((messageId, seq) -> {
+            Message message = messages.get(messageId);
+            if (message == null) {
+                return;
+            }
+            if (message.isDeleted() && (Boolean.TRUE.equals(message.getIsDeletedForEveryone())
+                    || userId.equals(message.getDeletedByUserId()))) {
+                deletedMessageIds.add(messageId);
+                return;
+            }
+            MessageFrame frame = MessageFrame.fromEntity(message.isWithheldFrom(userId) ? message.toWithheldCopy() : message);
+            frame.setSeq(seq);
+            frames.add(frame);
+        });
+
+        List<ChatRoomResponse> rooms = new ArrayList<>(updatedRoomIds.size());
+        if (!updatedRoomIds.isEmpty()) {
+            chatRoomRepository.findAllById(updatedRoomIds).forEach(room -> rooms.add(ChatRoomResponse.fromEntity(room)));
+        }
+
+        // A complete page has read everything up to the stable sequence, so even a quiet user's cursor moves past the floor
+        long cursor = hasMore ? entries.get(entries.size() - 1).getSeq() : Math.max(lastSeq, stableSeq);
+        log.debug("Mailbox sync for user {} from {} to {}: {} messages, {} deletes, {} receipts, {} rooms",
+                userId, lastSeq, cursor, frames.size(), deletedMessageIds.size(), readReceipts.size(), rooms.size());
+        return MailboxSyncResponse.builder()
+                .lastSeq(cursor)
+                .hasMore(hasMore)
+                .messages(frames)
+                .deletedMessageIds(new ArrayList<>(deletedMessageIds))
+                .readReceipts(new ArrayList<>(readReceipts.values()))
+                .rooms(rooms)
+                .build();
+    }
+
+    /**
+     * Drop entries older than the retention window
+     */
+    @Scheduled(fixedDelayString = "${chat.mailbox.sweep-interval-ms:3600000}")
+    public void expireOldEntries() {
+        try {
+            mailboxEntryRepository.dropStaleSequences(inFlightCutoff());
+            long deleted = mailboxEntryRepository.deleteCreatedBefore(LocalDateTime.now().minusDays(retentionDays));
+            if (deleted > 0) {
+                log.info("Expired {} mailbox entries older than {} days", deleted, retentionDays);
+            }
+        } catch (Exception e) {
+            log.error("Failed to expire mailbox entries: {}", e.getMessage(), e);
+        }
+    }
+
+    private long record(Collection<Long> userIds, Long chatRoomId, MailboxEventType eventType,
+                        String messageId, Long actorUserId) {
+        long seq = mailboxEntryRepository.allocateSequence();
+        LocalDateTime now = LocalDateTime.now();
+        List<MailboxEntry> entries = userIds.stream()
+                .distinct()
+                .map(userId -> MailboxEntry.builder()
+                        .userId(userId)
+                        .seq(seq)
+                        .eventType(eventType)
+                        .chatRoomId(chatRoomId)
+                        .messageId(messageId)
+                        .actorUserId(actorUserId)
+                        .createdAt(now)
+                        .build())
+                .toList();
+        try {
+            mailboxEntryRepository.insert(entries);
+        } catch (RuntimeException e) {
+            mailboxEntryRepository.releaseSequence(seq, inFlightCutoff());
+            throw e;
+        }
+        return mailboxEntryRepository.releaseSequence(seq, inFlightCutoff());
+    }
+
+    /**
+     * Sequences in flight longer than this were abandoned by a failed writer and no longer hold syncs back
+     */
+    private LocalDateTime inFlightCutoff() {
+        return LocalDateTime.now().minus(inFlightTimeoutMs, ChronoUnit.MILLIS);
+    }
+}
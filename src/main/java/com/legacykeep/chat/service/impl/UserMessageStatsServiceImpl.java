@@ -0,0 +1,270 @@
+package com.legacykeep.chat.service.impl;
+
+import com.legacykeep.chat.entity.Message;
+import com.legacykeep.chat.enums.MessageType;
+import com.legacykeep.chat.repository.mongo.MessageRepository;
+import com.legacykeep.chat.repository.mongo.UserMessageStatsRepository;
+import com.legacykeep.chat.service.MessageService.MessageStats;
+import com.legacykeep.chat.service.UserMessageStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implementation of UserMessageStatsService.
+ * Keeps the user_message_stats rollup in step with message writes using atomic $inc
+ * updates, so per-user statistics never scan the messages collection. Rollups are
+ * backfilled once on startup when none has been built yet. Every counted change is
+ * marked in flight before its message is saved and unmarked by its increment, and a
+ * rebuild only overwrites a rollup that has no recent mark and that no increment
+ * touched while it was being recounted, so a change is never counted twice.
+ * 
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class UserMessageStatsServiceImpl implements UserMessageStatsService {
+
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final UserMessageStatsRepository userMessageStatsRepository;
+    private final MessageRepository messageRepository;
+    private final int rebuildBatchSize;
+    private final boolean backfillOnStartup;
+    private final long inFlightTimeoutMs;
+
+    private final AtomicBoolean rebuildRunning = new AtomicBoolean(false);
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-message-stats-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UserMessageStatsServiceImpl(UserMessageStatsRepository userMessageStatsRepository,
+                                       MessageRepository messageRepository,
+                                       @Value("${chat.stats.user-rebuild.batch-size:500}") int rebuildBatchSize,
+                                       @Value("${chat.stats.user-rebuild.backfill-on-startup:true}") boolean backfillOnStartup,
+                                       @Value("${chat.stats.in-flight-timeout-ms:60000}") long inFlightTimeoutMs) {
+        this.userMessageStatsRepository = userMessageStatsRepository;
+        this.messageRepository = messageRepository;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.backfillOnStartup = backfillOnStartup;
+        this.inFlightTimeoutMs = inFlightTimeoutMs;
+    }
+
+    @Override
+    public Map<String, Long> countersOf(Message message) {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        boolean live = message.getDeletedAt() == null;
+        counters.put("totalMessages", flag(live));
+        counters.put("textMessages", flag(live && message.getMessageType() == MessageType.TEXT));
+        counters.put("mediaMessages", flag(live && message.getMessageType() != null && message.getMessageType().isMediaType()));
+        counters.put("voiceMessages", flag(live && message.getMessageType() == MessageType.AUDIO));
+        counters.put("starredMessages", flag(live && message.isStarred()));
+        counters.put("protectedMessages", flag(live && Boolean.TRUE.equals(message.getIsProtected())));
+        counters.put("messagesWithToneColor", flag(live && message.hasToneColor()));
+        counters.put("messagesWithAIFeatures", flag(live && message.hasAIFeatures()));
+        counters.put("messagesWithMedia", flag(live && message.hasMedia()));
+        counters.put("messagesWithLocation", flag(live && message.hasLocation()));
+        counters.put("messagesWithContact", flag(live && message.hasContact()));
+        counters.put("storyMessages", flag(live && message.hasStory()));
+        counters.put("memoryMessages", flag(live && message.hasMemory()));
+        counters.put("eventMessages", flag(live && message.hasEvent()));
+        return counters;
+    }
+
+    @Override
+    public String beginChange(Long senderUserId) {
+        if (senderUserId == null) {
+            return null;
+        }
+        String changeId = UUID.randomUUID().toString();
+        try {
+            userMessageStatsRepository.markChangePending(senderUserId, changeId);
+        } catch (Exception e) {
+            // Unmarked, the change is still counted; only a rebuild racing it could count it twice
+            log.error("Failed to mark message stats change for user {}: {}", senderUserId, e.getMessage(), e);
+        }
+        return changeId;
+    }
+
+    @Override
+    public void cancelChange(Long senderUserId, String changeId) {
+        if (senderUserId == null || changeId == null) {
+            return;
+        }
+        try {
+            userMessageStatsRepository.clearChangePending(senderUserId, changeId);
+        } catch (Exception e) {
+            // The mark expires after the in-flight timeout
+            log.error("Failed to clear message stats change for user {}: {}", senderUserId, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void recordSent(String changeId, Message message) {
+        apply(message.getSenderUserId(), changeId, countersOf(message));
+    }
+
+    @Override
+    public void recordChange(String changeId, Map<String, Long> before, Message after) {
+        Map<String, Long> delta = new HashMap<>();
+        countersOf(after).forEach((counter, value) -> {
+            long change = value - before.getOrDefault(counter, 0L);
+            if (change != 0) {
+                delta.put(counter, change);
+            }
+        });
+        apply(after.getSenderUserId(), changeId, delta);
+    }
+
+    @Override
+    public void recordStarToggle(String changeId, Message after) {
+        apply(after.getSenderUserId(), changeId, after.getDeletedAt() == null
+                ? Map.of("starredMessages", after.isStarred() ? 1L : -1L)
+                : Map.of());
+    }
+
+    @Override
+    public void recordRemoved(String changeId, Message message) {
+        Map<String, Long> delta = new HashMap<>();
+        countersOf(message).forEach((counter, value) -> {
+            if (value != 0) {
+                delta.put(counter, -value);
+            }
+        });
+        apply(message.getSenderUserId(), changeId, delta);
+    }
+
+    @Override
+    public MessageStats getStatsForUser(Long userId) {
+        log.debug("Getting message statistics rollup for user: {}", userId);
+        return userMessageStatsRepository.findById(userId)
+                .map(stats -> new MessageStats(stats.getTotalMessages(), stats.getTextMessages(),
+                        stats.getMediaMessages(), stats.getVoiceMessages(), stats.getStarredMessages(),
+                        stats.getProtectedMessages(), stats.getMessagesWithToneColor(),
+                        stats.getMessagesWithAIFeatures(), stats.getMessagesWithMedia(),
+                        stats.getMessagesWithLocation(), stats.getMessagesWithContact(),
+                        stats.getStoryMessages(), stats.getMemoryMessages(), stats.getEventMessages()))
+                .orElseGet(MessageStats::new);
+    }
+
+    @Override
+    public boolean startRebuild() {
+        if (!rebuildRunning.compareAndSet(false, true)) {
+            log.info("User message stats rebuild already running");
+            return false;
+        }
+        rebuildExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("User message stats rebuild failed: {}", e.getMessage(), e);
+            } finally {
+                rebuildRunning.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Backfill rollups once for data that predates them: runs when no rollup has ever been rebuilt
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            if (!userMessageStatsRepository.existsByRebuiltAtIsNotNull() && startRebuild()) {
+                log.info("No user message stats rollup has been built yet, backfilling from messages");
+            }
+        } catch (Exception e) {
+            log.error("Failed to check user message stats for backfill: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean isRebuildRunning() {
+        return rebuildRunning.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void rebuild() {
+        // Truncated to the precision Mongo stores, so written rollups can be matched on rebuiltAt
+        LocalDateTime startedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        log.info("Rebuilding user message stats in batches of {}", rebuildBatchSize);
+
+        List<Long> batch = new ArrayList<>(rebuildBatchSize);
+        long[] users = {0};
+        messageRepository.streamSenderUserIds(rebuildBatchSize, userId -> {
+            batch.add(userId);
+            users[0]++;
+            if (batch.size() >= rebuildBatchSize) {
+                rebuildBatch(batch, startedAt);
+                batch.clear();
+            }
+        });
+        rebuildBatch(batch, startedAt);
+
+        long removed = userMessageStatsRepository.deleteNotRebuiltSince(startedAt);
+        log.info("Rebuilt user message stats for {} users, removed {} stale rollups", users[0], removed);
+    }
+
+    /**
+     * Recompute and overwrite a batch of rollups. Versions are read before the recount and the
+     * overwrite only applies where they are unchanged and no change is marked in flight, so an
+     * increment is neither lost nor added on top of a recount that already saw its change: that
+     * user is recounted instead.
+     */
+    private void rebuildBatch(List<Long> userIds, LocalDateTime rebuiltAt) {
+        Collection<Long> pending = new ArrayList<>(userIds);
+        for (int attempt = 1; !pending.isEmpty() && attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+            Map<Long, Long> versions = userMessageStatsRepository.findVersions(pending);
+            Map<Long, Map<String, Long>> counters = messageRepository.aggregateUserStats(pending);
+            LocalDateTime staleBefore = LocalDateTime.now().minus(inFlightTimeoutMs, ChronoUnit.MILLIS);
+            pending = userMessageStatsRepository.replaceCountersIfUnchanged(counters, versions, rebuiltAt, staleBefore);
+        }
+        if (!pending.isEmpty()) {
+            // Left as they are; their increments are applied and the next rebuild retries them
+            log.warn("Skipped rebuilding message stats for {} busy users", pending.size());
+        }
+    }
+
+    private void apply(Long userId, String changeId, Map<String, Long> deltas) {
+        if (userId == null || (changeId == null && deltas.isEmpty())) {
+            return;
+        }
+        try {
+            userMessageStatsRepository.incrementCounters(userId, changeId, deltas);
+        } catch (Exception e) {
+            // The rollup is derived data; a missed increment is repaired by the next rebuild
+            log.error("Failed to update message stats rollup for user {}: {}", userId, e.getMessage(), e);
+        }
+    }
+
+    private static long flag(boolean value) {
+        return value ? 1L : 0L;
+    }
+}
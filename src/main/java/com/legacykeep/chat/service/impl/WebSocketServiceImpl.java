@@ -1,23 +1,28 @@
 package com.legacykeep.chat.service.impl;
 
+import com.legacykeep.chat.dto.response.MessageFrame;
 import com.legacykeep.chat.entity.Message;
+import com.legacykeep.chat.enums.SubscriptionType;
+import com.legacykeep.chat.service.MessageBackplane;
+import com.legacykeep.chat.service.UserMailboxService;
 import com.legacykeep.chat.service.WebSocketService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Implementation of WebSocketService.
  * Provides real-time messaging capabilities with family-centric features.
+ * Events go through the MessageBackplane so they reach subscribers on every node;
+ * messages are sent as compact MessageFrame DTOs rather than full entities,
+ * after being recorded in the recipients' mailboxes for catch-up on reconnect.
  * 
  * @author LegacyKeep Team
  * @version 1.0.0
@@ -27,30 +32,31 @@ import java.util.concurrent.atomic.AtomicLong;
 @RequiredArgsConstructor
 public class WebSocketServiceImpl implements WebSocketService {
 
-    private final SimpMessagingTemplate messagingTemplate;
-    
-    // Connection tracking
-    private final Map<Long, String> userConnections = new ConcurrentHashMap<>();
-    private final Map<Long, List<Long>> userSubscriptions = new ConcurrentHashMap<>();
-    private final Map<Long, List<Long>> familySubscriptions = new ConcurrentHashMap<>();
-    private final Map<Long, List<Long>> storySubscriptions = new ConcurrentHashMap<>();
-    private final Map<Long, List<Long>> eventSubscriptions = new ConcurrentHashMap<>();
-    private final Map<Long, List<Long>> chatRoomSubscriptions = new ConcurrentHashMap<>();
+    private final MessageBackplane messageBackplane;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final PresenceTracker presenceTracker;
+    private final PresenceEventCoalescer presenceEventCoalescer;
+    private final UserMailboxService userMailboxService;
     
     // Statistics
-    private final AtomicInteger totalConnections = new AtomicInteger(0);
-    private final AtomicInteger activeConnections = new AtomicInteger(0);
     private final AtomicLong messagesSent = new AtomicLong(0);
     private final AtomicLong notificationsSent = new AtomicLong(0);
     private final AtomicLong errorsOccurred = new AtomicLong(0);
 
     @Override
     public void sendMessageToRoom(Long chatRoomId, Message message) {
+        sendMessageToRoom(chatRoomId, message, Set.of());
+    }
+
+    @Override
+    public void sendMessageToRoom(Long chatRoomId, Message message, Set<Long> excludedUserIds) {
         log.debug("Sending message to chat room: {}", chatRoomId);
         
         try {
             String destination = "/topic/chat/room/" + chatRoomId;
-            messagingTemplate.convertAndSend(destination, message);
+            MessageFrame frame = MessageFrame.fromEntity(message);
+            frame.setSeq(recordDelivery(() -> userMailboxService.recordRoomMessage(chatRoomId, message, excludedUserIds)));
+            messageBackplane.publish(destination, frame, excludedUserIds);
             messagesSent.incrementAndGet();
             log.debug("Sent message to chat room: {} via destination: {}", chatRoomId, destination);
         } catch (Exception e) {
@@ -65,7 +71,9 @@ public class WebSocketServiceImpl implements WebSocketService {
         
         try {
             String destination = "/queue/user/" + userId;
-            messagingTemplate.convertAndSend(destination, message);
+            MessageFrame frame = MessageFrame.fromEntity(message);
+            frame.setSeq(recordDelivery(() -> userMailboxService.recordUserMessage(userId, message)));
+            messageBackplane.publish(destination, frame);
             messagesSent.incrementAndGet();
             log.debug("Sent message to user: {} via destination: {}", userId, destination);
         } catch (Exception e) {
@@ -76,22 +84,8 @@ public class WebSocketServiceImpl implements WebSocketService {
 
     @Override
     public void sendTypingIndicator(Long chatRoomId, Long userId, boolean isTyping) {
-        log.debug("Sending typing indicator for chat room: {} from user: {} - typing: {}", chatRoomId, userId, isTyping);
-        
-        try {
-            String destination = "/topic/chat/room/" + chatRoomId + "/typing";
-            Map<String, Object> typingData = Map.of(
-                "userId", userId,
-                "isTyping", isTyping,
-                "timestamp", System.currentTimeMillis()
-            );
-            messagingTemplate.convertAndSend(destination, typingData);
-            notificationsSent.incrementAndGet();
-            log.debug("Sent typing indicator to chat room: {}", chatRoomId);
-        } catch (Exception e) {
-            log.error("Error sending typing indicator to chat room: {}", chatRoomId, e);
-            errorsOccurred.incrementAndGet();
-        }
+        log.debug("Recording typing indicator for chat room: {} from user: {} - typing: {}", chatRoomId, userId, isTyping);
+        presenceEventCoalescer.recordTyping(chatRoomId, userId, isTyping);
     }
 
     @Override
@@ -106,7 +100,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "userId", userId,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, statusData);
+            messageBackplane.publish(destination, statusData);
             notificationsSent.incrementAndGet();
             log.debug("Sent message status update for message: {}", messageId);
         } catch (Exception e) {
@@ -126,7 +120,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "userId", userId,
                 "readAt", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, readData);
+            messageBackplane.publish(destination, readData);
             notificationsSent.incrementAndGet();
             log.debug("Sent read receipt for message: {}", messageId);
         } catch (Exception e) {
@@ -137,42 +131,14 @@ public class WebSocketServiceImpl implements WebSocketService {
 
     @Override
     public void sendUserOnlineStatus(Long userId, boolean isOnline) {
-        log.debug("Sending user online status for user: {} - online: {}", userId, isOnline);
-        
-        try {
-            String destination = "/topic/user/" + userId + "/status";
-            Map<String, Object> statusData = Map.of(
-                "userId", userId,
-                "isOnline", isOnline,
-                "timestamp", System.currentTimeMillis()
-            );
-            messagingTemplate.convertAndSend(destination, statusData);
-            notificationsSent.incrementAndGet();
-            log.debug("Sent user online status for user: {}", userId);
-        } catch (Exception e) {
-            log.error("Error sending user online status for user: {}", userId, e);
-            errorsOccurred.incrementAndGet();
-        }
+        log.debug("Recording user online status for user: {} - online: {}", userId, isOnline);
+        presenceEventCoalescer.recordOnline(userId, isOnline);
     }
 
     @Override
     public void sendUserAwayStatus(Long userId, boolean isAway) {
-        log.debug("Sending user away status for user: {} - away: {}", userId, isAway);
-        
-        try {
-            String destination = "/topic/user/" + userId + "/away";
-            Map<String, Object> awayData = Map.of(
-                "userId", userId,
-                "isAway", isAway,
-                "timestamp", System.currentTimeMillis()
-            );
-            messagingTemplate.convertAndSend(destination, awayData);
-            notificationsSent.incrementAndGet();
-            log.debug("Sent user away status for user: {}", userId);
-        } catch (Exception e) {
-            log.error("Error sending user away status for user: {}", userId, e);
-            errorsOccurred.incrementAndGet();
-        }
+        log.debug("Recording user away status for user: {} - away: {}", userId, isAway);
+        presenceEventCoalescer.recordAway(userId, isAway);
     }
 
     @Override
@@ -188,7 +154,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "isAdded", isAdded,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, reactionData);
+            messageBackplane.publish(destination, reactionData);
             notificationsSent.incrementAndGet();
             log.debug("Sent message reaction for message: {}", messageId);
         } catch (Exception e) {
@@ -209,7 +175,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "newContent", newContent,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, editData);
+            messageBackplane.publish(destination, editData);
             notificationsSent.incrementAndGet();
             log.debug("Sent message edit notification for message: {}", messageId);
         } catch (Exception e) {
@@ -230,7 +196,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "deleteForEveryone", deleteForEveryone,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, deleteData);
+            messageBackplane.publish(destination, deleteData);
             notificationsSent.incrementAndGet();
             log.debug("Sent message delete notification for message: {}", messageId);
         } catch (Exception e) {
@@ -252,7 +218,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "toChatRoomId", toChatRoomId,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, forwardData);
+            messageBackplane.publish(destination, forwardData);
             notificationsSent.incrementAndGet();
             log.debug("Sent message forward notification for message: {}", newMessageId);
         } catch (Exception e) {
@@ -273,7 +239,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "isStarred", isStarred,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, starData);
+            messageBackplane.publish(destination, starData);
             notificationsSent.incrementAndGet();
             log.debug("Sent message star notification for message: {}", messageId);
         } catch (Exception e) {
@@ -294,7 +260,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "updateData", updateData,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, notificationData);
+            messageBackplane.publish(destination, notificationData);
             notificationsSent.incrementAndGet();
             log.debug("Sent chat room update notification for chat room: {}", chatRoomId);
         } catch (Exception e) {
@@ -315,7 +281,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "addedByUserId", addedByUserId,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, memberData);
+            messageBackplane.publish(destination, memberData);
             notificationsSent.incrementAndGet();
             log.debug("Sent chat room member added notification for chat room: {}", chatRoomId);
         } catch (Exception e) {
@@ -336,7 +302,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "removedByUserId", removedByUserId,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, memberData);
+            messageBackplane.publish(destination, memberData);
             notificationsSent.incrementAndGet();
             log.debug("Sent chat room member removed notification for chat room: {}", chatRoomId);
         } catch (Exception e) {
@@ -357,7 +323,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "isArchived", isArchived,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, archiveData);
+            messageBackplane.publish(destination, archiveData);
             notificationsSent.incrementAndGet();
             log.debug("Sent chat room archived notification for chat room: {}", chatRoomId);
         } catch (Exception e) {
@@ -378,7 +344,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "isMuted", isMuted,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, muteData);
+            messageBackplane.publish(destination, muteData);
             notificationsSent.incrementAndGet();
             log.debug("Sent chat room muted notification for chat room: {}", chatRoomId);
         } catch (Exception e) {
@@ -399,7 +365,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "notificationData", notificationData,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, data);
+            messageBackplane.publish(destination, data);
             notificationsSent.incrementAndGet();
             log.debug("Sent family notification for family: {}", familyId);
         } catch (Exception e) {
@@ -420,7 +386,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "notificationData", notificationData,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, data);
+            messageBackplane.publish(destination, data);
             notificationsSent.incrementAndGet();
             log.debug("Sent story notification for story: {}", storyId);
         } catch (Exception e) {
@@ -441,7 +407,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "notificationData", notificationData,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, data);
+            messageBackplane.publish(destination, data);
             notificationsSent.incrementAndGet();
             log.debug("Sent event notification for event: {}", eventId);
         } catch (Exception e) {
@@ -462,7 +428,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "featureData", featureData,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, data);
+            messageBackplane.publish(destination, data);
             notificationsSent.incrementAndGet();
             log.debug("Sent AI feature notification for chat room: {}", chatRoomId);
         } catch (Exception e) {
@@ -484,7 +450,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "confidence", confidence,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, toneData);
+            messageBackplane.publish(destination, toneData);
             notificationsSent.incrementAndGet();
             log.debug("Sent tone detection notification for chat room: {}", chatRoomId);
         } catch (Exception e) {
@@ -506,7 +472,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "confidence", confidence,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, emotionData);
+            messageBackplane.publish(destination, emotionData);
             notificationsSent.incrementAndGet();
             log.debug("Sent voice emotion notification for chat room: {}", chatRoomId);
         } catch (Exception e) {
@@ -527,7 +493,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "memoryTriggers", memoryTriggers,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, memoryData);
+            messageBackplane.publish(destination, memoryData);
             notificationsSent.incrementAndGet();
             log.debug("Sent memory trigger notification for chat room: {}", chatRoomId);
         } catch (Exception e) {
@@ -548,7 +514,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "suggestion", suggestion,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, suggestionData);
+            messageBackplane.publish(destination, suggestionData);
             notificationsSent.incrementAndGet();
             log.debug("Sent predictive text suggestion for user: {}", userId);
         } catch (Exception e) {
@@ -569,7 +535,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "protectionData", protectionData,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, data);
+            messageBackplane.publish(destination, data);
             notificationsSent.incrementAndGet();
             log.debug("Sent message protection notification for message: {}", messageId);
         } catch (Exception e) {
@@ -589,7 +555,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "userId", userId,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, screenshotData);
+            messageBackplane.publish(destination, screenshotData);
             notificationsSent.incrementAndGet();
             log.debug("Sent screenshot detection notification for message: {}", messageId);
         } catch (Exception e) {
@@ -609,7 +575,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "userId", userId,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, viewLimitData);
+            messageBackplane.publish(destination, viewLimitData);
             notificationsSent.incrementAndGet();
             log.debug("Sent view limit reached notification for message: {}", messageId);
         } catch (Exception e) {
@@ -630,7 +596,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "secondsRemaining", secondsRemaining,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, warningData);
+            messageBackplane.publish(destination, warningData);
             notificationsSent.incrementAndGet();
             log.debug("Sent self-destruct warning notification for message: {}", messageId);
         } catch (Exception e) {
@@ -650,7 +616,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "userId", userId,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, expiredData);
+            messageBackplane.publish(destination, expiredData);
             notificationsSent.incrementAndGet();
             log.debug("Sent message expired notification for message: {}", messageId);
         } catch (Exception e) {
@@ -671,7 +637,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "message", message,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, statusData);
+            messageBackplane.publish(destination, statusData);
             notificationsSent.incrementAndGet();
             log.debug("Sent connection status to user: {}", userId);
         } catch (Exception e) {
@@ -692,7 +658,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "errorMessage", errorMessage,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, errorData);
+            messageBackplane.publish(destination, errorData);
             notificationsSent.incrementAndGet();
             log.debug("Sent error notification to user: {}", userId);
         } catch (Exception e) {
@@ -713,7 +679,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "notificationData", notificationData,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, data);
+            messageBackplane.publish(destination, data);
             notificationsSent.incrementAndGet();
             log.debug("Sent system notification to user: {}", userId);
         } catch (Exception e) {
@@ -733,7 +699,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "messageData", messageData,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, data);
+            messageBackplane.publish(destination, data);
             notificationsSent.incrementAndGet();
             log.debug("Broadcasted to all users - type: {}", messageType);
         } catch (Exception e) {
@@ -754,7 +720,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "messageData", messageData,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, data);
+            messageBackplane.publish(destination, data);
             notificationsSent.incrementAndGet();
             log.debug("Broadcasted to family: {} - type: {}", familyId, messageType);
         } catch (Exception e) {
@@ -775,7 +741,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 "messageData", messageData,
                 "timestamp", System.currentTimeMillis()
             );
-            messagingTemplate.convertAndSend(destination, data);
+            messageBackplane.publish(destination, data);
             notificationsSent.incrementAndGet();
             log.debug("Broadcasted to chat room: {} - type: {}", chatRoomId, messageType);
         } catch (Exception e) {
@@ -786,142 +752,105 @@ public class WebSocketServiceImpl implements WebSocketService {
 
     @Override
     public int getConnectedUsersCount() {
-        return activeConnections.get();
+        return presenceTracker.getConnectedUserCount();
     }
 
     @Override
     public List<Long> getConnectedUsersInRoom(Long chatRoomId) {
-        // This would typically be implemented with proper connection tracking
-        return List.of(); // Placeholder implementation
+        return subscriptionRegistry.getSubscribers(SubscriptionType.CHAT_ROOM, chatRoomId).toList();
     }
 
     @Override
     public List<Long> getConnectedUsersInFamily(Long familyId) {
-        // This would typically be implemented with proper connection tracking
-        return List.of(); // Placeholder implementation
+        return subscriptionRegistry.getSubscribers(SubscriptionType.FAMILY, familyId).toList();
     }
 
     @Override
     public boolean isUserConnected(Long userId) {
-        return userConnections.containsKey(userId);
+        return presenceTracker.isUserConnected(userId);
     }
 
     @Override
     public boolean isUserConnectedToRoom(Long userId, Long chatRoomId) {
-        // This would typically be implemented with proper connection tracking
-        return isUserConnected(userId); // Placeholder implementation
+        return subscriptionRegistry.isSubscribed(SubscriptionType.CHAT_ROOM, userId, chatRoomId);
     }
 
     @Override
     public Map<String, Object> getUserConnectionInfo(Long userId) {
         Map<String, Object> info = new HashMap<>();
         info.put("isConnected", isUserConnected(userId));
-        info.put("connectionId", userConnections.get(userId));
-        info.put("subscriptions", userSubscriptions.getOrDefault(userId, List.of()));
+        info.put("connectionId", presenceTracker.getSessionIds(userId).stream().findFirst().orElse(null));
+        info.put("subscriptions", subscriptionRegistry.getSubscriptions(SubscriptionType.CHAT_ROOM, userId).toList());
         return info;
     }
 
     @Override
     public void disconnectUser(Long userId) {
         log.debug("Disconnecting user: {}", userId);
-        userConnections.remove(userId);
-        userSubscriptions.remove(userId);
-        activeConnections.decrementAndGet();
+        presenceTracker.removeUser(userId);
         log.info("Disconnected user: {}", userId);
     }
 
     @Override
     public void disconnectUserFromRoom(Long userId, Long chatRoomId) {
         log.debug("Disconnecting user: {} from chat room: {}", userId, chatRoomId);
-        // This would typically be implemented with proper connection tracking
+        subscriptionRegistry.unsubscribe(SubscriptionType.CHAT_ROOM, userId, chatRoomId);
         log.info("Disconnected user: {} from chat room: {}", userId, chatRoomId);
     }
 
     @Override
     public void subscribeUserToRoom(Long userId, Long chatRoomId) {
         log.debug("Subscribing user: {} to chat room: {}", userId, chatRoomId);
-        userSubscriptions.computeIfAbsent(userId, k -> new ArrayList<>()).add(chatRoomId);
-        chatRoomSubscriptions.computeIfAbsent(chatRoomId, k -> new ArrayList<>()).add(userId);
+        subscriptionRegistry.subscribe(SubscriptionType.CHAT_ROOM, userId, chatRoomId);
         log.info("Subscribed user: {} to chat room: {}", userId, chatRoomId);
     }
 
     @Override
     public void unsubscribeUserFromRoom(Long userId, Long chatRoomId) {
         log.debug("Unsubscribing user: {} from chat room: {}", userId, chatRoomId);
-        userSubscriptions.computeIfPresent(userId, (k, v) -> {
-            v.remove(chatRoomId);
-            return v.isEmpty() ? null : v;
-        });
-        chatRoomSubscriptions.computeIfPresent(chatRoomId, (k, v) -> {
-            v.remove(userId);
-            return v.isEmpty() ? null : v;
-        });
+        subscriptionRegistry.unsubscribe(SubscriptionType.CHAT_ROOM, userId, chatRoomId);
         log.info("Unsubscribed user: {} from chat room: {}", userId, chatRoomId);
     }
 
     @Override
     public void subscribeUserToFamily(Long userId, Long familyId) {
         log.debug("Subscribing user: {} to family: {}", userId, familyId);
-        userSubscriptions.computeIfAbsent(userId, k -> new ArrayList<>()).add(familyId);
-        familySubscriptions.computeIfAbsent(familyId, k -> new ArrayList<>()).add(userId);
+        subscriptionRegistry.subscribe(SubscriptionType.FAMILY, userId, familyId);
         log.info("Subscribed user: {} to family: {}", userId, familyId);
     }
 
     @Override
     public void unsubscribeUserFromFamily(Long userId, Long familyId) {
         log.debug("Unsubscribing user: {} from family: {}", userId, familyId);
-        userSubscriptions.computeIfPresent(userId, (k, v) -> {
-            v.remove(familyId);
-            return v.isEmpty() ? null : v;
-        });
-        familySubscriptions.computeIfPresent(familyId, (k, v) -> {
-            v.remove(userId);
-            return v.isEmpty() ? null : v;
-        });
+        subscriptionRegistry.unsubscribe(SubscriptionType.FAMILY, userId, familyId);
         log.info("Unsubscribed user: {} from family: {}", userId, familyId);
     }
 
     @Override
     public void subscribeUserToStory(Long userId, Long storyId) {
         log.debug("Subscribing user: {} to story: {}", userId, storyId);
-        userSubscriptions.computeIfAbsent(userId, k -> new ArrayList<>()).add(storyId);
-        storySubscriptions.computeIfAbsent(storyId, k -> new ArrayList<>()).add(userId);
+        subscriptionRegistry.subscribe(SubscriptionType.STORY, userId, storyId);
         log.info("Subscribed user: {} to story: {}", userId, storyId);
     }
 
     @Override
     public void unsubscribeUserFromStory(Long userId, Long storyId) {
         log.debug("Unsubscribing user: {} from story: {}", userId, storyId);
-        userSubscriptions.computeIfPresent(userId, (k, v) -> {
-            v.remove(storyId);
-            return v.isEmpty() ? null : v;
-        });
-        storySubscriptions.computeIfPresent(storyId, (k, v) -> {
-            v.remove(userId);
-            return v.isEmpty() ? null : v;
-        });
+        subscriptionRegistry.unsubscribe(SubscriptionType.STORY, userId, storyId);
         log.info("Unsubscribed user: {} from story: {}", userId, storyId);
     }
 
     @Override
     public void subscribeUserToEvent(Long userId, Long eventId) {
         log.debug("Subscribing user: {} to event: {}", userId, eventId);
-        userSubscriptions.computeIfAbsent(userId, k -> new ArrayList<>()).add(eventId);
-        eventSubscriptions.computeIfAbsent(eventId, k -> new ArrayList<>()).add(userId);
+        subscriptionRegistry.subscribe(SubscriptionType.EVENT, userId, eventId);
         log.info("Subscribed user: {} to event: {}", userId, eventId);
     }
 
     @Override
     public void unsubscribeUserFromEvent(Long userId, Long eventId) {
         log.debug("Unsubscribing user: {} from event: {}", userId, eventId);
-        userSubscriptions.computeIfPresent(userId, (k, v) -> {
-            v.remove(eventId);
-            return v.isEmpty() ? null : v;
-        });
-        eventSubscriptions.computeIfPresent(eventId, (k, v) -> {
-            v.remove(userId);
-            return v.isEmpty() ? null : v;
-        });
+        subscriptionRegistry.unsubscribe(SubscriptionType.EVENT, userId, eventId);
         log.info("Unsubscribed user: {} from event: {}", userId, eventId);
     }
 
@@ -929,41 +858,45 @@ public class WebSocketServiceImpl implements WebSocketService {
     public Map<String, Object> getUserSubscriptionInfo(Long userId) {
         Map<String, Object> info = new HashMap<>();
         info.put("userId", userId);
-        info.put("chatRooms", userSubscriptions.getOrDefault(userId, List.of()));
-        info.put("families", familySubscriptions.entrySet().stream()
-                .filter(entry -> entry.getValue().contains(userId))
-                .map(Map.Entry::getKey)
-                .collect(java.util.stream.Collectors.toList()));
-        info.put("stories", storySubscriptions.entrySet().stream()
-                .filter(entry -> entry.getValue().contains(userId))
-                .map(Map.Entry::getKey)
-                .collect(java.util.stream.Collectors.toList()));
-        info.put("events", eventSubscriptions.entrySet().stream()
-                .filter(entry -> entry.getValue().contains(userId))
-                .map(Map.Entry::getKey)
-                .collect(java.util.stream.Collectors.toList()));
+        info.put("chatRooms", subscriptionRegistry.getSubscriptions(SubscriptionType.CHAT_ROOM, userId).toList());
+        info.put("families", subscriptionRegistry.getSubscriptions(SubscriptionType.FAMILY, userId).toList());
+        info.put("stories", subscriptionRegistry.getSubscriptions(SubscriptionType.STORY, userId).toList());
+        info.put("events", subscriptionRegistry.getSubscriptions(SubscriptionType.EVENT, userId).toList());
         return info;
     }
 
     @Override
     public void cleanupInactiveConnections() {
         log.debug("Cleaning up inactive connections");
-        // This would typically be implemented with proper connection tracking and timeout logic
-        log.info("Cleaned up inactive connections");
+        int evicted = presenceTracker.evictIdleSessions();
+        log.info("Cleaned up {} inactive connections", evicted);
     }
 
     @Override
     public WebSocketStats getWebSocketStats() {
         return new WebSocketStats(
-                totalConnections.get(),
-                activeConnections.get(),
-                familySubscriptions.size(),
-                storySubscriptions.size(),
-                eventSubscriptions.size(),
-                chatRoomSubscriptions.size(),
+                (int) Math.min(presenceTracker.getTotalConnections(), Integer.MAX_VALUE),
+                presenceTracker.getActiveConnections(),
+                subscriptionRegistry.getTargetCount(SubscriptionType.FAMILY),
+                subscriptionRegistry.getTargetCount(SubscriptionType.STORY),
+                subscriptionRegistry.getTargetCount(SubscriptionType.EVENT),
+                subscriptionRegistry.getTargetCount(SubscriptionType.CHAT_ROOM),
                 messagesSent.get(),
-                notificationsSent.get(),
+                // Typing and presence events are counted when their coalesced snapshot goes out
+                notificationsSent.get() + presenceEventCoalescer.getEventsPublished(),
                 errorsOccurred.get()
         );
     }
+
+    /**
+     * Record a delivery in the mailbox; live delivery still goes out if recording fails
+     */
+    private Long recordDelivery(Supplier<Long> record) {
+        try {
+            return record.get();
+        } catch (Exception e) {
+            log.warn("Failed to record delivery in mailbox: {}", e.getMessage());
+            return null;
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package com.legacykeep.chat.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Serializes WebSocket payloads once per event. The resulting bytes are
+ * handed to the broker as-is and shared by every subscriber session and
+ * by the backplane, so no payload is serialized per subscriber or per node.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Component
+@RequiredArgsConstructor
+public class WireFrameEncoder {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Serialize a payload to JSON bytes
+     */
+    public byte[] encode(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize WebSocket payload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Wrap serialized JSON bytes in a broker message
+     */
+    public Message<byte[]> toMessage(byte[] json) {
+        return MessageBuilder.withPayload(json)
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                .build();
+    }
+}
@@ -0,0 +1,10 @@
+-- Chat Service Schema Migration
+-- Read watermark: last_read_message_id now stores the MongoDB message id
+-- Version: 1.0.0
+
+ALTER TABLE chat_participants
+    ALTER COLUMN last_read_message_id TYPE VARCHAR(64) USING last_read_message_id::TEXT;
+
+-- Watermark lookups are always by (chat_room_id, user_id), covered by uk_chat_participants_room_user
+COMMENT ON COLUMN chat_participants.last_read_at IS 'Creation time of the newest message read by user (read watermark)';
+COMMENT ON COLUMN chat_participants.last_read_message_id IS 'MongoDB ID of the newest message read by user (read watermark)';
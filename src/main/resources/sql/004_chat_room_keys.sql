@@ -0,0 +1,41 @@
+-- Chat Service Schema Migration
+-- Persistent, versioned chat room encryption keys and key access grants
+-- Version: 1.0.0
+
+-- Create chat_room_keys table
+CREATE TABLE IF NOT EXISTS chat_room_keys (
+    id BIGSERIAL PRIMARY KEY,
+    chat_room_id BIGINT NOT NULL REFERENCES chat_rooms(id) ON DELETE CASCADE,
+    key_version INTEGER NOT NULL,
+    key_material VARCHAR(512) NOT NULL,
+    is_active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_by_user_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    retired_at TIMESTAMP,
+    
+    -- Constraints
+    CONSTRAINT uk_chat_room_keys_room_version UNIQUE (chat_room_id, key_version),
+    CONSTRAINT chk_key_version CHECK (key_version > 0)
+);
+
+-- At most one active key per room
+CREATE UNIQUE INDEX IF NOT EXISTS idx_chat_room_keys_active ON chat_room_keys(chat_room_id) WHERE is_active;
+
+-- Create chat_room_key_access table
+CREATE TABLE IF NOT EXISTS chat_room_key_access (
+    id BIGSERIAL PRIMARY KEY,
+    chat_room_id BIGINT NOT NULL REFERENCES chat_rooms(id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL,
+    granted_by_user_id BIGINT,
+    granted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    
+    -- Constraints
+    CONSTRAINT uk_chat_room_key_access_room_user UNIQUE (chat_room_id, user_id)
+);
+
+COMMENT ON TABLE chat_room_keys IS 'Stores every version of each chat room encryption key';
+COMMENT ON TABLE chat_room_key_access IS 'Stores which users may read a chat room''s encryption keys';
+
+COMMENT ON COLUMN chat_room_keys.key_version IS 'Version recorded on messages as key_version; increases on every rotation';
+COMMENT ON COLUMN chat_room_keys.key_material IS 'Base64 AES-256 key, wrapped with chat.encryption.master-key when configured';
+COMMENT ON COLUMN chat_room_keys.is_active IS 'Whether this version encrypts new messages; retired versions remain readable';
@@ -0,0 +1,113 @@
+package com.legacykeep.chat.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Bounded DataSource Test
+ *
+ * Tests that a connection permit is taken per handed-out connection and
+ * returned exactly once when the connection is closed, including when the
+ * pool or the close itself fails.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+class BoundedDataSourceTest {
+
+    private DataSource target;
+    private Connection pooled;
+    private BoundedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        pooled = mock(Connection.class);
+        when(target.getConnection()).thenReturn(pooled);
+        dataSource = new BoundedDataSource(target, 2, 50);
+    }
+
+    @Test
+    void testPermitReleasedOnClose() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        assertEquals(1, dataSource.getAvailablePermits());
+
+        connection.close();
+
+        assertEquals(2, dataSource.getAvailablePermits());
+        verify(pooled).close();
+    }
+
+    @Test
+    void testRepeatedCloseReleasesOnce() throws SQLException {
+        Connection connection = dataSource.getConnection();
+
+        connection.close();
+        connection.close();
+
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void testPermitReleasedWhenCloseFails() throws SQLException {
+        doThrow(new SQLException("close failed")).when(pooled).close();
+        Connection connection = dataSource.getConnection();
+
+        assertThrows(SQLException.class, connection::close);
+
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void testPermitReleasedWhenPoolFails() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("pool exhausted"));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void testPermitReleasedWhenPoolThrowsRuntimeException() throws SQLException {
+        when(target.getConnection()).thenThrow(new IllegalStateException("pool closed"));
+
+        assertThrows(IllegalStateException.class, dataSource::getConnection);
+
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void testTimesOutWhenAllPermitsAreHeld() throws SQLException {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.getAvailablePermits());
+
+        first.close();
+        second.close();
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void testOtherCallsReachTheConnection() throws SQLException {
+        when(pooled.isValid(1)).thenReturn(true);
+        doThrow(new SQLException("rollback failed")).when(pooled).rollback();
+        Connection connection = dataSource.getConnection();
+
+        assertTrue(connection.isValid(1));
+        SQLException thrown = assertThrows(SQLException.class, connection::rollback);
+        assertEquals("rollback failed", thrown.getMessage());
+        assertEquals(1, dataSource.getAvailablePermits());
+
+        connection.close();
+    }
+}
@@ -0,0 +1,126 @@
+package com.legacykeep.chat.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Mongo Connection Limiter Test
+ *
+ * Tests that the permit taken when a checkout starts is paired with the
+ * connection it produced and returned on check-in, returned at once when the
+ * checkout fails, and never returned for a checkout that went ahead without one.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+class MongoConnectionLimiterTest {
+
+    private final ServerId serverId = new ServerId(new ClusterId(), new ServerAddress());
+
+    private MongoConnectionLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new MongoConnectionLimiter(1, 20);
+    }
+
+    @Test
+    void testPermitHeldUntilCheckedIn() {
+        ConnectionId connectionId = new ConnectionId(serverId);
+
+        limiter.connectionCheckOutStarted(mock(ConnectionCheckOutStartedEvent.class));
+        assertEquals(0, limiter.getAvailablePermits());
+        limiter.connectionCheckedOut(checkedOut(connectionId));
+        assertEquals(0, limiter.getAvailablePermits());
+
+        limiter.connectionCheckedIn(checkedIn(connectionId));
+
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    @Test
+    void testFailedCheckoutReleasesPermit() {
+        limiter.connectionCheckOutStarted(mock(ConnectionCheckOutStartedEvent.class));
+
+        limiter.connectionCheckOutFailed(mock(ConnectionCheckOutFailedEvent.class));
+
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    @Test
+    void testCheckoutClearsThreadStateBeforeALaterFailure() {
+        ConnectionId connectionId = new ConnectionId(serverId);
+        limiter.connectionCheckOutStarted(mock(ConnectionCheckOutStartedEvent.class));
+        limiter.connectionCheckedOut(checkedOut(connectionId));
+
+        // A failure event with no checkout of its own on this thread must not release the held permit
+        limiter.connectionCheckOutFailed(mock(ConnectionCheckOutFailedEvent.class));
+        assertEquals(0, limiter.getAvailablePermits());
+
+        limiter.connectionCheckedIn(checkedIn(connectionId));
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    @Test
+    void testCheckoutWithoutPermitIsNotReleased() {
+        ConnectionId permitted = new ConnectionId(serverId);
+        ConnectionId unpermitted = new ConnectionId(serverId);
+        limiter.connectionCheckOutStarted(mock(ConnectionCheckOutStartedEvent.class));
+        limiter.connectionCheckedOut(checkedOut(permitted));
+
+        // Times out on the exhausted semaphore and falls through to the pool
+        limiter.connectionCheckOutStarted(mock(ConnectionCheckOutStartedEvent.class));
+        limiter.connectionCheckedOut(checkedOut(unpermitted));
+        limiter.connectionCheckedIn(checkedIn(unpermitted));
+        assertEquals(0, limiter.getAvailablePermits());
+
+        limiter.connectionCheckedIn(checkedIn(permitted));
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    @Test
+    void testPermitPairedPerThread() throws Exception {
+        ConnectionId other = new ConnectionId(serverId);
+        ConnectionId own = new ConnectionId(serverId);
+
+        // Another thread's checkout holds the only permit
+        CompletableFuture.runAsync(() -> {
+            limiter.connectionCheckOutStarted(mock(ConnectionCheckOutStartedEvent.class));
+            limiter.connectionCheckedOut(checkedOut(other));
+        }).get();
+
+        // This thread waited without a permit, so its connection is not paired with one
+        limiter.connectionCheckOutStarted(mock(ConnectionCheckOutStartedEvent.class));
+        limiter.connectionCheckedOut(checkedOut(own));
+        limiter.connectionCheckedIn(checkedIn(own));
+        assertEquals(0, limiter.getAvailablePermits());
+
+        limiter.connectionCheckedIn(checkedIn(other));
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    private static ConnectionCheckedOutEvent checkedOut(ConnectionId connectionId) {
+        ConnectionCheckedOutEvent event = mock(ConnectionCheckedOutEvent.class);
+        when(event.getConnectionId()).thenReturn(connectionId);
+        return event;
+    }
+
+    private static ConnectionCheckedInEvent checkedIn(ConnectionId connectionId) {
+        ConnectionCheckedInEvent event = mock(ConnectionCheckedInEvent.class);
+        when(event.getConnectionId()).thenReturn(connectionId);
+        return event;
+    }
+}
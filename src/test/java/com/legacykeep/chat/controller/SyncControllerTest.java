@@ -0,0 +1,88 @@
+package com.legacykeep.chat.controller;
+
+import com.legacykeep.chat.dto.response.MailboxSyncResponse;
+import com.legacykeep.chat.service.UserMailboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.security.Principal;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sync Controller Test
+ *
+ * Tests how the delta sync endpoint resolves its user: the authenticated
+ * principal first, the userId parameter only when it is trusted, and a
+ * rejection when neither applies or the parameter names someone else.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+class SyncControllerTest {
+
+    private UserMailboxService userMailboxService;
+
+    @BeforeEach
+    void setUp() {
+        userMailboxService = mock(UserMailboxService.class);
+        when(userMailboxService.sync(anyLong(), anyLong()))
+                .thenReturn(MailboxSyncResponse.builder().lastSeq(12L).build());
+    }
+
+    @Test
+    void testSyncWithTrustedUserIdParameter() throws Exception {
+        mockMvc(true).perform(get("/api/v1/sync").param("userId", "7").param("cursor", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.lastSeq").value(12));
+
+        verify(userMailboxService).sync(7L, 5L);
+    }
+
+    @Test
+    void testSyncWithPrincipal() throws Exception {
+        mockMvc(false).perform(get("/api/v1/sync").principal(principal("7")))
+                .andExpect(status().isOk());
+
+        verify(userMailboxService).sync(7L, 0L);
+    }
+
+    @Test
+    void testUntrustedUserIdParameterRejected() throws Exception {
+        mockMvc(false).perform(get("/api/v1/sync").param("userId", "7"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(userMailboxService);
+    }
+
+    @Test
+    void testMissingUserRejected() throws Exception {
+        mockMvc(true).perform(get("/api/v1/sync"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(userMailboxService);
+    }
+
+    @Test
+    void testOtherUserIdRejectedForPrincipal() throws Exception {
+        mockMvc(true).perform(get("/api/v1/sync").principal(principal("7")).param("userId", "8"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userMailboxService);
+    }
+
+    private MockMvc mockMvc(boolean paramUserIdEnabled) {
+        return MockMvcBuilders.standaloneSetup(new SyncController(userMailboxService, paramUserIdEnabled)).build();
+    }
+
+    private static Principal principal(String name) {
+        return () -> name;
+    }
+}
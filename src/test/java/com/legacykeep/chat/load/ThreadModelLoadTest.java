@@ -0,0 +1,139 @@
+package com.legacykeep.chat.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Thread Model Load Test
+ *
+ * Compares REST throughput of two running instances, one started with
+ * chat.virtual-threads.enabled=false and one with it enabled. Skipped
+ * unless both base URLs are given, e.g.
+ * mvn test -Dtest=ThreadModelLoadTest -Dloadtest.platform-url=http://localhost:8083/chat
+ * -Dloadtest.virtual-url=http://localhost:8084/chat
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "loadtest.platform-url", matches = ".+")
+@EnabledIfSystemProperty(named = "loadtest.virtual-url", matches = ".+")
+class ThreadModelLoadTest {
+
+    private final String path = System.getProperty("loadtest.path", "/api/v1/chat-rooms/participant/1");
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 200);
+    private final long durationMs = Long.getLong("loadtest.duration-ms", 30000L);
+    private final long warmupMs = Long.getLong("loadtest.warmup-ms", 5000L);
+
+    @Test
+    void testVirtualThreadThroughput() throws Exception {
+        Result platform = run(System.getProperty("loadtest.platform-url"));
+        Result virtual = run(System.getProperty("loadtest.virtual-url"));
+
+        log.info("platform threads: {}", platform);
+        log.info("virtual threads:  {}", virtual);
+        log.info("throughput ratio (virtual / platform): {}",
+                String.format("%.2f", virtual.throughput() / Math.max(platform.throughput(), 1e-9)));
+
+        assertTrue(platform.succeeded() > 0, "Platform-thread instance served no requests");
+        assertTrue(virtual.succeeded() > 0, "Virtual-thread instance served no requests");
+    }
+
+    private Result run(String baseUrl) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, concurrency / 8)))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        // Warm up connection pools and JIT before measuring
+        drive(client, request, warmupMs, new AtomicLong(), new AtomicLong(), new ArrayList<>());
+
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>();
+        long started = System.nanoTime();
+        drive(client, request, durationMs, succeeded, failed, latencies);
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(succeeded.get(), failed.get(), succeeded.get() / elapsedSeconds,
+                percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    /**
+     * Keep concurrency requests in flight until the duration has elapsed
+     */
+    private void drive(HttpClient client, HttpRequest request, long runMs,
+                       AtomicLong succeeded, AtomicLong failed, List<long[]> latencies) throws Exception {
+        long deadline = System.nanoTime() + runMs * 1_000_000L;
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(workers.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() < 500) {
+                                succeeded.incrementAndGet();
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+            for (Future<long[]> future : futures) {
+                latencies.add(future.get());
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(quantile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    private record Result(long succeeded, long failed, double throughput, double p50Ms, double p99Ms) {
+        @Override
+        public String toString() {
+            return String.format("%d ok, %d failed, %.1f req/s, p50 %.1f ms, p99 %.1f ms",
+                    succeeded, failed, throughput, p50Ms, p99Ms);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.legacykeep.chat.repository.mongo;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Mailbox Entry Repository Custom Implementation Test
+ *
+ * Tests the stable sequence a client may resume from: the counter when
+ * nothing is in flight, just below the lowest sequence still being written
+ * otherwise, ignoring in-flight sequences older than the stale cutoff, and
+ * never above the sequence a writer just released.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+class MailboxEntryRepositoryCustomImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 15, 12, 0);
+    private static final LocalDateTime STALE_BEFORE = NOW.minusSeconds(30);
+
+    private MongoCollection<Document> sequences;
+    private MailboxEntryRepositoryCustomImpl repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        sequences = mock(MongoCollection.class);
+        when(mongoTemplate.getCollection("sequences")).thenReturn(sequences);
+        repository = new MailboxEntryRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @Test
+    void testMissingCounterIsZero() {
+        assertEquals(0L, MailboxEntryRepositoryCustomImpl.stableSequence(null, STALE_BEFORE));
+        assertEquals(0L, MailboxEntryRepositoryCustomImpl.stableSequence(new Document(), STALE_BEFORE));
+    }
+
+    @Test
+    void testNothingInFlightIsTheCounter() {
+        assertEquals(42L, MailboxEntryRepositoryCustomImpl.stableSequence(counter(42L), STALE_BEFORE));
+        assertEquals(42L, MailboxEntryRepositoryCustomImpl.stableSequence(
+                new Document("value", 42L).append("in_flight", List.of()), STALE_BEFORE));
+    }
+
+    @Test
+    void testStopsBelowLowestInFlight() {
+        Document counter = counter(42L, inFlight(40L, NOW), inFlight(37L, NOW.minusSeconds(5)), inFlight(41L, NOW));
+
+        assertEquals(36L, MailboxEntryRepositoryCustomImpl.stableSequence(counter, STALE_BEFORE));
+    }
+
+    @Test
+    void testStaleInFlightIgnored() {
+        Document counter = counter(42L, inFlight(30L, STALE_BEFORE.minusSeconds(1)), inFlight(40L, NOW));
+
+        assertEquals(39L, MailboxEntryRepositoryCustomImpl.stableSequence(counter, STALE_BEFORE));
+    }
+
+    @Test
+    void testInFlightAtCutoffStillBlocks() {
+        Document counter = counter(42L, inFlight(35L, STALE_BEFORE));
+
+        assertEquals(34L, MailboxEntryRepositoryCustomImpl.stableSequence(counter, STALE_BEFORE));
+    }
+
+    @Test
+    void testInFlightWithoutTimeBlocks() {
+        Document counter = counter(42L, new Document("seq", 20L));
+
+        assertEquals(19L, MailboxEntryRepositoryCustomImpl.stableSequence(counter, STALE_BEFORE));
+    }
+
+    @Test
+    void testReleaseReturnsReleasedSequenceWhenNothingBelowIsInFlight() {
+        when(sequences.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(counter(45L, inFlight(44L, NOW)));
+
+        // Later sequences are still in flight, but nothing at or below the released one is
+        assertEquals(43L, repository.releaseSequence(43L, STALE_BEFORE));
+    }
+
+    @Test
+    void testReleaseCappedBelowEarlierInFlight() {
+        when(sequences.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(counter(45L, inFlight(41L, NOW)));
+
+        assertEquals(40L, repository.releaseSequence(43L, STALE_BEFORE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetStableSequenceReadsTheCounter() {
+        FindIterable<Document> found = mock(FindIterable.class);
+        when(found.first()).thenReturn(counter(12L, inFlight(9L, NOW)));
+        when(sequences.find(any(Bson.class))).thenReturn(found);
+
+        assertEquals(8L, repository.getStableSequence(STALE_BEFORE));
+    }
+
+    private static Document counter(long value, Document... inFlight) {
+        Document counter = new Document("value", value);
+        if (inFlight.length > 0) {
+            counter.append("in_flight", List.of(inFlight));
+        }
+        return counter;
+    }
+
+    private static Document inFlight(long seq, LocalDateTime allocatedAt) {
+        return new Document("seq", seq)
+                .append("at", Date.from(allocatedAt.atZone(ZoneId.systemDefault()).toInstant()));
+    }
+}
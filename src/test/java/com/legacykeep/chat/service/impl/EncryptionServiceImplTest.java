@@ -0,0 +1,224 @@
+package com.legacykeep.chat.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Encryption Service Implementation Test
+ *
+ * Tests the chunked media stream format: round trips at the chunk boundaries,
+ * the predicted encrypted size, and rejection of streams whose chunks were
+ * reordered, dropped, truncated or appended to, or whose header was altered.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+class EncryptionServiceImplTest {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final int HEADER_LENGTH = 1 + 4 + 16 + 7;
+    private static final int TAG_LENGTH = 16;
+    private static final int SEALED_CHUNK_LENGTH = CHUNK_SIZE + TAG_LENGTH;
+
+    private EncryptionServiceImpl encryptionService;
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        encryptionService = new EncryptionServiceImpl(100, CHUNK_SIZE);
+        key = encryptionService.generateEncryptionKey();
+    }
+
+    @Test
+    void testRoundTripEmptyInput() throws IOException {
+        assertRoundTrip(new byte[0]);
+    }
+
+    @Test
+    void testRoundTripShorterThanOneChunk() throws IOException {
+        assertRoundTrip(plaintext(100));
+    }
+
+    @Test
+    void testRoundTripExactChunkMultiple() throws IOException {
+        assertRoundTrip(plaintext(CHUNK_SIZE));
+        assertRoundTrip(plaintext(3 * CHUNK_SIZE));
+    }
+
+    @Test
+    void testRoundTripPartialLastChunk() throws IOException {
+        assertRoundTrip(plaintext(2 * CHUNK_SIZE + 17));
+    }
+
+    @Test
+    void testEncryptedSizeMatchesOutput() throws IOException {
+        for (int size : new int[] {0, 1, CHUNK_SIZE - 1, CHUNK_SIZE, CHUNK_SIZE + 1, 3 * CHUNK_SIZE, 3 * CHUNK_SIZE + 500}) {
+            byte[] encrypted = encrypt(plaintext(size));
+            assertEquals(encryptionService.getEncryptedStreamSize(size), encrypted.length, "size " + size);
+        }
+    }
+
+    @Test
+    void testEncryptReturnsBytesWritten() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = encryptionService.encryptStream(
+                Channels.newChannel(new ByteArrayInputStream(plaintext(1500))), Channels.newChannel(out), key);
+
+        assertEquals(out.size(), written);
+    }
+
+    @Test
+    void testReorderedChunksRejected() throws IOException {
+        byte[] encrypted = encrypt(plaintext(3 * CHUNK_SIZE + 10));
+        byte[] reordered = encrypted.clone();
+        System.arraycopy(encrypted, chunkOffset(1), reordered, chunkOffset(0), SEALED_CHUNK_LENGTH);
+        System.arraycopy(encrypted, chunkOffset(0), reordered, chunkOffset(1), SEALED_CHUNK_LENGTH);
+
+        assertRejected(reordered);
+    }
+
+    @Test
+    void testDroppedMiddleChunkRejected() throws IOException {
+        byte[] encrypted = encrypt(plaintext(3 * CHUNK_SIZE + 10));
+
+        assertRejected(concat(Arrays.copyOfRange(encrypted, 0, chunkOffset(1)),
+                Arrays.copyOfRange(encrypted, chunkOffset(2), encrypted.length)));
+    }
+
+    @Test
+    void testDroppedLastChunkRejected() throws IOException {
+        // With an exact multiple the remaining chunks are all full, so only the final-chunk flag catches it
+        byte[] encrypted = encrypt(plaintext(3 * CHUNK_SIZE));
+
+        assertRejected(Arrays.copyOfRange(encrypted, 0, chunkOffset(2)));
+    }
+
+    @Test
+    void testTruncatedStreamRejected() throws IOException {
+        byte[] encrypted = encrypt(plaintext(2 * CHUNK_SIZE + 300));
+
+        assertRejected(Arrays.copyOf(encrypted, encrypted.length - 1));
+        assertRejected(Arrays.copyOf(encrypted, chunkOffset(2) + TAG_LENGTH - 1));
+        assertRejected(Arrays.copyOf(encrypted, HEADER_LENGTH));
+        assertRejected(Arrays.copyOf(encrypted, HEADER_LENGTH - 1));
+    }
+
+    @Test
+    void testAppendedChunkRejected() throws IOException {
+        byte[] encrypted = encrypt(plaintext(2 * CHUNK_SIZE));
+
+        assertRejected(concat(encrypted, Arrays.copyOfRange(encrypted, chunkOffset(1), encrypted.length)));
+        assertRejected(concat(encrypted, new byte[] {1, 2, 3}));
+    }
+
+    @Test
+    void testTamperedChunkRejected() throws IOException {
+        byte[] encrypted = encrypt(plaintext(2 * CHUNK_SIZE));
+        encrypted[chunkOffset(1) + 5] ^= 1;
+
+        assertRejected(encrypted);
+    }
+
+    @Test
+    void testTamperedHeaderRejected() throws IOException {
+        byte[] encrypted = encrypt(plaintext(500));
+
+        byte[] version = encrypted.clone();
+        version[0] = 2;
+        assertRejected(version);
+
+        byte[] salt = encrypted.clone();
+        salt[5] ^= 1;
+        assertRejected(salt);
+
+        byte[] noncePrefix = encrypted.clone();
+        noncePrefix[HEADER_LENGTH - 1] ^= 1;
+        assertRejected(noncePrefix);
+    }
+
+    @Test
+    void testTamperedChunkSizeRejected() throws IOException {
+        byte[] encrypted = encrypt(plaintext(3 * CHUNK_SIZE));
+
+        byte[] larger = encrypted.clone();
+        ByteBuffer.wrap(larger, 1, 4).putInt(CHUNK_SIZE * 2);
+        assertRejected(larger);
+
+        byte[] smaller = encrypted.clone();
+        ByteBuffer.wrap(smaller, 1, 4).putInt(CHUNK_SIZE / 2);
+        assertRejected(smaller);
+
+        byte[] zero = encrypted.clone();
+        ByteBuffer.wrap(zero, 1, 4).putInt(0);
+        assertRejected(zero);
+    }
+
+    @Test
+    void testLargerChunkSizeThanConfiguredRejected() throws IOException {
+        // Authentic, but its chunks are bigger than this node would ever allocate for
+        byte[] encrypted = encryptWith(new EncryptionServiceImpl(100, 4 * CHUNK_SIZE), plaintext(100));
+
+        assertRejected(encrypted);
+    }
+
+    @Test
+    void testWrongKeyRejected() throws IOException {
+        byte[] encrypted = encrypt(plaintext(500));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> decrypt(encrypted, encryptionService.generateEncryptionKey()));
+    }
+
+    private void assertRoundTrip(byte[] plaintext) throws IOException {
+        byte[] encrypted = encrypt(plaintext);
+        assertArrayEquals(plaintext, decrypt(encrypted, key));
+    }
+
+    private void assertRejected(byte[] encrypted) {
+        assertThrows(IllegalArgumentException.class, () -> decrypt(encrypted, key));
+    }
+
+    private byte[] encrypt(byte[] plaintext) throws IOException {
+        return encryptWith(encryptionService, plaintext);
+    }
+
+    private byte[] encryptWith(EncryptionServiceImpl service, byte[] plaintext) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.encryptStream(Channels.newChannel(new ByteArrayInputStream(plaintext)), Channels.newChannel(out), key);
+        return out.toByteArray();
+    }
+
+    private byte[] decrypt(byte[] encrypted, String decryptionKey) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = encryptionService.decryptStream(
+                Channels.newChannel(new ByteArrayInputStream(encrypted)), Channels.newChannel(out), decryptionKey);
+        assertEquals(out.size(), written);
+        return out.toByteArray();
+    }
+
+    private static int chunkOffset(int index) {
+        return HEADER_LENGTH + index * SEALED_CHUNK_LENGTH;
+    }
+
+    private static byte[] plaintext(int size) {
+        byte[] plaintext = new byte[size];
+        new Random(size).nextBytes(plaintext);
+        return plaintext;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+}
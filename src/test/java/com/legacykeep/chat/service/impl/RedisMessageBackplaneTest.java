@@ -0,0 +1,153 @@
+package com.legacykeep.chat.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Redis Message Backplane Test
+ *
+ * Tests the envelope round trip between two backplane nodes: local delivery on
+ * publish, delivery on the other node with the excluded users intact, and
+ * suppression of a node's own echo. The last test runs the same exchange over
+ * a Redis on localhost:6379 and is skipped when none is reachable.
+ *
+ * @author LegacyKeep Team
+ * @version 1.0.0
+ */
+class RedisMessageBackplaneTest {
+
+    private static final String CHANNEL = "chat:fanout:test";
+    private static final String DESTINATION = "/topic/chat/room/42";
+
+    private final WireFrameEncoder wireFrameEncoder = new WireFrameEncoder(new ObjectMapper());
+
+    private RedisConnection connection;
+    private LocalMessageDelivery deliveryA;
+    private LocalMessageDelivery deliveryB;
+    private RedisMessageBackplane nodeA;
+    private RedisMessageBackplane nodeB;
+
+    @BeforeEach
+    void setUp() {
+        connection = mock(RedisConnection.class);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        deliveryA = mock(LocalMessageDelivery.class);
+        deliveryB = mock(LocalMessageDelivery.class);
+        RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+        nodeA = new RedisMessageBackplane(redisTemplate, connectionFactory, deliveryA, wireFrameEncoder, CHANNEL);
+        nodeB = new RedisMessageBackplane(redisTemplate, connectionFactory, deliveryB, wireFrameEncoder, CHANNEL);
+    }
+
+    @Test
+    void testPublishDeliversLocallyAndToOtherNodes() {
+        Map<String, Object> payload = Map.of("content", "hello");
+        byte[] json = wireFrameEncoder.encode(payload);
+
+        nodeA.publish(DESTINATION, payload, Set.of(3L, 5L));
+
+        ArgumentCaptor<byte[]> localJson = ArgumentCaptor.forClass(byte[].class);
+        verify(deliveryA).deliver(eq(DESTINATION), localJson.capture(), eq(Set.of(3L, 5L)));
+        assertArrayEquals(json, localJson.getValue());
+
+        nodeB.receive(publishedEnvelope());
+
+        ArgumentCaptor<byte[]> remoteJson = ArgumentCaptor.forClass(byte[].class);
+        verify(deliveryB).deliver(eq(DESTINATION), remoteJson.capture(), eq(Set.of(3L, 5L)));
+        assertArrayEquals(json, remoteJson.getValue());
+    }
+
+    @Test
+    void testOriginIgnoresItsOwnEcho() {
+        nodeA.publish(DESTINATION, Map.of("content", "hello"), Set.of());
+
+        nodeA.receive(publishedEnvelope());
+
+        // Only the local delivery made by publish itself
+        verify(deliveryA, times(1)).deliver(eq(DESTINATION), any(byte[].class), anySet());
+    }
+
+    @Test
+    void testEmptyExclusionsRoundTrip() {
+        nodeA.publish(DESTINATION, Map.of("content", "line one\nline two"), Set.of());
+
+        nodeB.receive(publishedEnvelope());
+
+        ArgumentCaptor<byte[]> remoteJson = ArgumentCaptor.forClass(byte[].class);
+        verify(deliveryB).deliver(eq(DESTINATION), remoteJson.capture(), eq(Set.of()));
+        assertArrayEquals(wireFrameEncoder.encode(Map.of("content", "line one\nline two")), remoteJson.getValue());
+    }
+
+    @Test
+    void testMalformedEnvelopeIsDropped() {
+        nodeB.receive("no separators here".getBytes(StandardCharsets.UTF_8));
+
+        verifyNoInteractions(deliveryB);
+    }
+
+    @Test
+    void testRoundTripOverLocalRedis() throws Exception {
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory("localhost", 6379);
+        connectionFactory.afterPropertiesSet();
+        RedisMessageBackplane publisher = null;
+        RedisMessageBackplane subscriber = null;
+        try {
+            assumeTrue(isReachable(connectionFactory), "No Redis on localhost:6379");
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+            publisher = new RedisMessageBackplane(redisTemplate, connectionFactory, deliveryA, wireFrameEncoder, CHANNEL);
+            subscriber = new RedisMessageBackplane(redisTemplate, connectionFactory, deliveryB, wireFrameEncoder, CHANNEL);
+            publisher.start();
+            subscriber.start();
+
+            Map<String, Object> payload = Map.of("content", "over redis");
+            publisher.publish(DESTINATION, payload, Set.of(7L));
+
+            ArgumentCaptor<byte[]> remoteJson = ArgumentCaptor.forClass(byte[].class);
+            verify(deliveryB, timeout(5000)).deliver(eq(DESTINATION), remoteJson.capture(), eq(Set.of(7L)));
+            assertArrayEquals(wireFrameEncoder.encode(payload), remoteJson.getValue());
+            // The publisher's echo comes back over the channel too and must not be delivered twice
+            verify(deliveryA, after(500).times(1)).deliver(eq(DESTINATION), any(byte[].class), anySet());
+        } finally {
+            if (publisher != null) {
+                publisher.stop();
+            }
+            if (subscriber != null) {
+                subscriber.stop();
+            }
+            connectionFactory.destroy();
+        }
+    }
+
+    private byte[] publishedEnvelope() {
+        ArgumentCaptor<byte[]> envelope = ArgumentCaptor.forClass(byte[].class);
+        verify(connection).publish(eq(CHANNEL.getBytes(StandardCharsets.UTF_8)), envelope.capture());
+        return envelope.getValue();
+    }
+
+    private static boolean isReachable(RedisConnectionFactory connectionFactory) {
+        try (RedisConnection redisConnection = connectionFactory.getConnection()) {
+            return "PONG".equals(redisConnection.ping());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}